@@ -0,0 +1,376 @@
+package io.github.geobuf;
+
+import com.google.gson.Gson;
+import io.github.geojson.Feature;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.CoordinateSequence;
+import org.locationtech.jts.geom.CoordinateSequenceFactory;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.geom.LinearRing;
+import org.locationtech.jts.geom.Point;
+import org.locationtech.jts.geom.Polygon;
+import org.locationtech.jts.geom.impl.PackedCoordinateSequenceFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 把Geobuf的Feature消息解码为Feature，编码方式参见 {@link FeatureEncoder}。
+ * 共享的属性名表和属性值表由调用者在读到对应字段时追加。
+ */
+final class FeatureDecoder {
+  private final GeometryFactory factory;
+  private final Gson gson;
+  private final List<String> keys;
+  private final List<Object> values;
+  private int dimensions = Geobuf.DEFAULT_DIMENSIONS;
+  private double scale = Math.pow(10, Geobuf.DEFAULT_PRECISION);
+  private long[] coords = new long[64];
+  private int coordsSize;
+  private int[] lengths = new int[16];
+  private int lengthsSize;
+
+  FeatureDecoder(GeometryFactory factory, Gson gson) {
+    this.factory = factory;
+    this.gson = gson;
+    this.keys = new ArrayList<String>();
+    this.values = new ArrayList<Object>();
+  }
+
+  /**
+   * 创建一个与template共享属性名表和属性值表的解码器，用于在多个线程中分别解码
+   */
+  FeatureDecoder(FeatureDecoder template) {
+    this.factory = template.factory;
+    this.gson = template.gson;
+    this.keys = template.keys;
+    this.values = template.values;
+    this.dimensions = template.dimensions;
+    this.scale = template.scale;
+  }
+
+  void setDimensions(int dimensions) {
+    if (dimensions != 2 && dimensions != 3) {
+      throw new IllegalArgumentException("Malformed geobuf: unsupported dimensions " + dimensions);
+    }
+    this.dimensions = dimensions;
+  }
+
+  void setPrecision(int precision) {
+    if (precision < 0 || precision > Geobuf.MAX_PRECISION) {
+      throw new IllegalArgumentException("Malformed geobuf: unsupported precision " + precision);
+    }
+    this.scale = Math.pow(10, precision);
+  }
+
+  void addKey(String key) {
+    keys.add(key);
+  }
+
+  void addValue(Object value) {
+    values.add(value);
+  }
+
+  /**
+   * 解码in当前范围内的Feature消息
+   */
+  Feature decode(ProtobufReader in) {
+    Feature feature = new Feature();
+    List<Object> localValues = null;
+    long[] refs = null;
+    int refsSize = 0;
+    while (in.hasNext()) {
+      int tag = in.tag();
+      switch (tag >>> 3) {
+        case Geobuf.FEATURE_GEOMETRY: {
+          int limit = in.pushLimit(in.length());
+          feature.setGeometry(decodeGeometry(in));
+          in.popLimit(limit);
+          break;
+        }
+        case Geobuf.FEATURE_ID:
+          feature.setId(in.string());
+          break;
+        case Geobuf.FEATURE_INT_ID:
+          feature.setNumericId(in.sint());
+          break;
+        case Geobuf.FEATURE_VALUES: {
+          if (localValues == null) {
+            localValues = new ArrayList<Object>();
+          }
+          int limit = in.pushLimit(in.length());
+          localValues.add(decodeValue(in));
+          in.popLimit(limit);
+          break;
+        }
+        case Geobuf.FEATURE_PROPERTIES: {
+          int limit = in.pushLimit(in.length());
+          refs = refs == null ? new long[16] : refs;
+          while (in.hasNext()) {
+            if (refsSize == refs.length) {
+              refs = Arrays.copyOf(refs, refsSize * 2);
+            }
+            refs[refsSize++] = in.varint();
+          }
+          in.popLimit(limit);
+          break;
+        }
+        default:
+          in.skip(tag);
+      }
+    }
+    if (refs != null) {
+      Map<String, Object> properties = new LinkedHashMap<String, Object>();
+      for (int i = 0; i + 1 < refsSize; i += 2) {
+        properties.put(key(refs[i]), value(refs[i + 1], localValues));
+      }
+      feature.setProperties(properties);
+    }
+    return feature;
+  }
+
+  private String key(long index) {
+    if (index < 0 || index >= keys.size()) {
+      throw new IllegalArgumentException("Malformed geobuf: unknown key " + index);
+    }
+    return keys.get((int) index);
+  }
+
+  private Object value(long ref, List<Object> localValues) {
+    List<Object> table = (ref & 1) == 0 ? values : localValues;
+    long index = ref >>> 1;
+    if (table == null || index >= table.size()) {
+      throw new IllegalArgumentException("Malformed geobuf: unknown value " + ref);
+    }
+    return table.get((int) index);
+  }
+
+  /**
+   * 解码in当前范围内的Value消息
+   */
+  Object decodeValue(ProtobufReader in) {
+    Object value = null;
+    while (in.hasNext()) {
+      int tag = in.tag();
+      switch (tag >>> 3) {
+        case Geobuf.VALUE_STRING:
+          value = in.string();
+          break;
+        case Geobuf.VALUE_DOUBLE:
+          value = in.readDouble();
+          break;
+        case Geobuf.VALUE_POS_INT:
+          value = in.varint();
+          break;
+        case Geobuf.VALUE_NEG_INT:
+          value = -in.varint();
+          break;
+        case Geobuf.VALUE_BOOL:
+          value = in.varint() != 0;
+          break;
+        case Geobuf.VALUE_JSON:
+          value = gson.fromJson(in.string(), Object.class);
+          break;
+        case Geobuf.VALUE_INTEGRAL_DOUBLE:
+          value = (double) in.sint();
+          break;
+        default:
+          in.skip(tag);
+      }
+    }
+    return value;
+  }
+
+  /**
+   * 解码in当前范围内的Geometry消息
+   */
+  private Geometry decodeGeometry(ProtobufReader in) {
+    int type = -1;
+    List<Geometry> geometries = null;
+    coordsSize = 0;
+    lengthsSize = 0;
+    while (in.hasNext()) {
+      int tag = in.tag();
+      switch (tag >>> 3) {
+        case Geobuf.GEOMETRY_TYPE:
+          type = (int) in.varint();
+          break;
+        case Geobuf.GEOMETRY_LENGTHS: {
+          int limit = in.pushLimit(in.length());
+          while (in.hasNext()) {
+            if (lengthsSize == lengths.length) {
+              lengths = Arrays.copyOf(lengths, lengthsSize * 2);
+            }
+            lengths[lengthsSize++] = (int) in.varint();
+          }
+          in.popLimit(limit);
+          break;
+        }
+        case Geobuf.GEOMETRY_COORDS: {
+          int limit = in.pushLimit(in.length());
+          while (in.hasNext()) {
+            if (coordsSize == coords.length) {
+              coords = Arrays.copyOf(coords, coordsSize * 2);
+            }
+            coords[coordsSize++] = in.sint();
+          }
+          in.popLimit(limit);
+          break;
+        }
+        case Geobuf.GEOMETRY_GEOMETRIES: {
+          if (geometries == null) {
+            geometries = new ArrayList<Geometry>();
+          }
+          // 子几何对象会覆盖坐标缓冲区，GeometryCollection本身没有坐标
+          int limit = in.pushLimit(in.length());
+          geometries.add(decodeGeometry(in));
+          in.popLimit(limit);
+          break;
+        }
+        default:
+          in.skip(tag);
+      }
+    }
+    if (coordsSize % dimensions != 0) {
+      throw new IllegalArgumentException("Malformed geobuf: coordinates are not a multiple of " + dimensions);
+    }
+    int points = coordsSize / dimensions;
+    switch (type) {
+      case Geobuf.POINT:
+        return factory.createPoint(points == 0 ? null : sequence(0, 1, false, false));
+      case Geobuf.MULTIPOINT:
+        Point[] multiPoint = new Point[points];
+        long[] last = new long[dimensions];
+        for (int i = 0; i < points; i++) {
+          for (int d = 0; d < dimensions; d++) {
+            last[d] += coords[i * dimensions + d];
+            coords[i * dimensions + d] = last[d];
+          }
+          multiPoint[i] = factory.createPoint(sequence(i, 1, false, false));
+        }
+        return factory.createMultiPoint(multiPoint);
+      case Geobuf.LINESTRING:
+        return factory.createLineString(sequence(0, points, false, true));
+      case Geobuf.MULTILINESTRING: {
+        int[] parts = lengthsSize == 0 ? singlePart(points) : Arrays.copyOf(lengths, lengthsSize);
+        LineString[] lines = new LineString[parts.length];
+        int start = 0;
+        for (int i = 0; i < parts.length; i++) {
+          lines[i] = factory.createLineString(sequence(start, checkPart(start, parts[i], points), false, true));
+          start += parts[i];
+        }
+        return factory.createMultiLineString(lines);
+      }
+      case Geobuf.POLYGON: {
+        int[] rings = lengthsSize == 0 ? singlePart(points) : Arrays.copyOf(lengths, lengthsSize);
+        return polygon(rings, 0, rings.length, 0, points);
+      }
+      case Geobuf.MULTIPOLYGON: {
+        if (lengthsSize == 0) {
+          int[] rings = singlePart(points);
+          return factory.createMultiPolygon(new Polygon[] {polygon(rings, 0, rings.length, 0, points)});
+        }
+        int[] parts = Arrays.copyOf(lengths, lengthsSize);
+        int count = parts[0];
+        Polygon[] polygons = new Polygon[count];
+        int index = 1;
+        int start = 0;
+        for (int i = 0; i < count; i++) {
+          if (index >= parts.length) {
+            throw new IllegalArgumentException("Malformed geobuf: invalid MultiPolygon lengths");
+          }
+          int rings = parts[index++];
+          polygons[i] = polygon(parts, index, rings, start, points);
+          for (int j = 0; j < rings; j++) {
+            start += parts[index++];
+          }
+        }
+        return factory.createMultiPolygon(polygons);
+      }
+      case Geobuf.GEOMETRYCOLLECTION:
+        return factory.createGeometryCollection(
+            geometries == null ? new Geometry[0] : geometries.toArray(new Geometry[0]));
+      default:
+        throw new IllegalArgumentException("Unsupported GeoGeometry type: " + type);
+    }
+  }
+
+  private static int[] singlePart(int points) {
+    return points == 0 ? new int[0] : new int[] {points};
+  }
+
+  private static int checkPart(int start, int length, int points) {
+    if (length < 0 || start + length > points) {
+      throw new IllegalArgumentException("Malformed geobuf: lengths exceed coordinates");
+    }
+    return length;
+  }
+
+  /**
+   * 用ringLengths[offset, offset+count)中的环创建多边形，环的坐标从第start个点开始
+   */
+  private Polygon polygon(int[] ringLengths, int offset, int count, int start, int points) {
+    if (count == 0) {
+      return factory.createPolygon();
+    }
+    if (offset + count > ringLengths.length) {
+      throw new IllegalArgumentException("Malformed geobuf: invalid Polygon lengths");
+    }
+    LinearRing[] rings = new LinearRing[count];
+    for (int i = 0; i < count; i++) {
+      int length = checkPart(start, ringLengths[offset + i], points);
+      rings[i] = factory.createLinearRing(sequence(start, length, true, true));
+      start += length;
+    }
+    LinearRing[] holes = Arrays.copyOfRange(rings, 1, rings.length);
+    return factory.createPolygon(rings[0], holes);
+  }
+
+  /**
+   * 把从第start个点开始的count个点转换为坐标序列
+   *
+   * @param closed 是否在末尾补上闭合点
+   * @param delta 坐标是否是需要累加的差值
+   */
+  private CoordinateSequence sequence(int start, int count, boolean closed, boolean delta) {
+    int size = closed && count > 0 ? count + 1 : count;
+    int dim = dimensions;
+    double[] ords = new double[size * dim];
+    long[] last = new long[dim];
+    for (int i = 0; i < count; i++) {
+      for (int d = 0; d < dim; d++) {
+        long q = coords[(start + i) * dim + d];
+        if (delta) {
+          q += last[d];
+          last[d] = q;
+        }
+        ords[i * dim + d] = q / scale;
+      }
+    }
+    if (size > count) {
+      System.arraycopy(ords, 0, ords, count * dim, dim);
+    }
+    CoordinateSequenceFactory sequenceFactory = factory.getCoordinateSequenceFactory();
+    if (sequenceFactory instanceof PackedCoordinateSequenceFactory) {
+      PackedCoordinateSequenceFactory packedFactory = (PackedCoordinateSequenceFactory) sequenceFactory;
+      if (packedFactory.getType() == PackedCoordinateSequenceFactory.FLOAT) {
+        float[] floats = new float[ords.length];
+        for (int i = 0; i < ords.length; i++) {
+          floats[i] = (float) ords[i];
+        }
+        return packedFactory.create(floats, dim);
+      }
+      return packedFactory.create(ords, dim);
+    }
+    Coordinate[] coordinates = new Coordinate[size];
+    for (int i = 0; i < size; i++) {
+      coordinates[i] = dim == 3 ? new Coordinate(ords[i * dim], ords[i * dim + 1], ords[i * dim + 2])
+          : new Coordinate(ords[i * dim], ords[i * dim + 1]);
+    }
+    return sequenceFactory.create(coordinates);
+  }
+}
@@ -0,0 +1,323 @@
+package io.github.geobuf;
+
+import com.google.gson.Gson;
+import io.github.geojson.Feature;
+import org.locationtech.jts.geom.CoordinateSequence;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryCollection;
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.geom.MultiLineString;
+import org.locationtech.jts.geom.MultiPoint;
+import org.locationtech.jts.geom.MultiPolygon;
+import org.locationtech.jts.geom.Point;
+import org.locationtech.jts.geom.Polygon;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 把Feature编码为Geobuf的Feature消息。
+ * <p>
+ * 坐标乘以10的precision次方后取整，每条线内部按与前一个点的差值编码，多边形的环省略最后的闭合点。
+ * 属性名和可重复的属性值保存在共享的表中，消息中只保存下标；新出现的属性名和属性值先放入待写出列表，
+ * 由调用者在写出Feature之前写出。
+ * </p>
+ */
+final class FeatureEncoder {
+  /**
+   * 字符串超过该长度时不放入共享表
+   */
+  private static final int MAX_SHARED_STRING = 64;
+
+  private final int precision;
+  private final int dimensions;
+  private final double scale;
+  private final int maxValues;
+  private final Gson gson;
+  private final Map<String, Integer> keys = new HashMap<String, Integer>();
+  private final Map<Object, Integer> values = new HashMap<Object, Integer>();
+  private final List<String> pendingKeys = new ArrayList<String>();
+  private final List<Object> pendingValues = new ArrayList<Object>();
+  private final ProtobufWriter geometry = new ProtobufWriter();
+  private final ProtobufWriter packed = new ProtobufWriter();
+  private final ProtobufWriter value = new ProtobufWriter();
+  private final List<Object> localValues = new ArrayList<Object>();
+  private final List<ProtobufWriter> children = new ArrayList<ProtobufWriter>();
+
+  /**
+   * @param precision 坐标保留的小数位数
+   * @param dimensions 坐标维数，2或3
+   * @param maxValues 共享属性值表的最大长度，超出后新出现的值保存在各自的Feature中
+   */
+  FeatureEncoder(int precision, int dimensions, int maxValues, Gson gson) {
+    if (precision < 0 || precision > Geobuf.MAX_PRECISION) {
+      throw new IllegalArgumentException("precision must be between 0 and " + Geobuf.MAX_PRECISION + ": " + precision);
+    }
+    if (dimensions != 2 && dimensions != 3) {
+      throw new IllegalArgumentException("dimensions must be 2 or 3: " + dimensions);
+    }
+    this.precision = precision;
+    this.dimensions = dimensions;
+    this.scale = Math.pow(10, precision);
+    this.maxValues = maxValues;
+    this.gson = gson;
+  }
+
+  /**
+   * 上次编码后新增的属性名，写出后需要调用clear
+   */
+  List<String> pendingKeys() {
+    return pendingKeys;
+  }
+
+  /**
+   * 上次编码后新增的共享属性值，写出后需要调用clear
+   */
+  List<Object> pendingValues() {
+    return pendingValues;
+  }
+
+  /**
+   * 把Feature编码为Feature消息的内容写入out
+   */
+  void encode(Feature feature, ProtobufWriter out) {
+    if (feature.getGeometry() != null) {
+      geometry.reset();
+      encodeGeometry(feature.getGeometry(), geometry, 0);
+      out.message(Geobuf.FEATURE_GEOMETRY, geometry);
+    }
+    if (feature.getId() != null) {
+      out.stringField(Geobuf.FEATURE_ID, feature.getId());
+    }
+    if (feature.getNumericId() != 0) {
+      out.sintField(Geobuf.FEATURE_INT_ID, feature.getNumericId());
+    }
+    Map<String, Object> properties = feature.getProperties();
+    if (properties == null || properties.isEmpty()) {
+      return;
+    }
+    packed.reset();
+    localValues.clear();
+    for (Map.Entry<String, Object> entry : properties.entrySet()) {
+      Integer key = keys.get(entry.getKey());
+      if (key == null) {
+        key = keys.size();
+        keys.put(entry.getKey(), key);
+        pendingKeys.add(entry.getKey());
+      }
+      packed.varint(key);
+      packed.varint(valueRef(entry.getValue()));
+    }
+    for (Object local : localValues) {
+      value.reset();
+      encodeValue(local, value);
+      out.message(Geobuf.FEATURE_VALUES, value);
+    }
+    out.message(Geobuf.FEATURE_PROPERTIES, packed);
+  }
+
+  /**
+   * 属性值的引用：共享表中的值为下标乘2，Feature内的值为下标乘2加1
+   */
+  private long valueRef(Object v) {
+    if (isShareable(v)) {
+      Integer index = values.get(v);
+      if (index != null) {
+        return (long) index << 1;
+      }
+      if (values.size() < maxValues) {
+        index = values.size();
+        values.put(v, index);
+        pendingValues.add(v);
+        return (long) index << 1;
+      }
+    }
+    localValues.add(v);
+    return ((long) (localValues.size() - 1) << 1) | 1;
+  }
+
+  private static boolean isShareable(Object v) {
+    if (v instanceof String) {
+      return ((String) v).length() <= MAX_SHARED_STRING;
+    }
+    return v instanceof Number || v instanceof Boolean;
+  }
+
+  /**
+   * 编码一个属性值为Value消息的内容。
+   * 浮点数为整数时使用变长整数编码，解码后仍为Double；其他非基本类型的值保存为JSON
+   */
+  void encodeValue(Object v, ProtobufWriter out) {
+    if (v instanceof String) {
+      out.stringField(Geobuf.VALUE_STRING, (String) v);
+    } else if (v instanceof Boolean) {
+      out.varintField(Geobuf.VALUE_BOOL, (Boolean) v ? 1 : 0);
+    } else if (v instanceof Double || v instanceof Float) {
+      double d = ((Number) v).doubleValue();
+      // -0.0不能用整数表示
+      boolean integral = d == Math.rint(d) && Math.abs(d) < Geobuf.MAX_EXACT_INTEGER
+          && Double.doubleToRawLongBits(d) != Double.doubleToRawLongBits(-0.0);
+      if (integral) {
+        out.sintField(Geobuf.VALUE_INTEGRAL_DOUBLE, (long) d);
+      } else {
+        out.doubleField(Geobuf.VALUE_DOUBLE, d);
+      }
+    } else if (v instanceof Long || v instanceof Integer || v instanceof Short || v instanceof Byte) {
+      long l = ((Number) v).longValue();
+      if (l >= 0) {
+        out.varintField(Geobuf.VALUE_POS_INT, l);
+      } else {
+        out.varintField(Geobuf.VALUE_NEG_INT, -l);
+      }
+    } else {
+      out.stringField(Geobuf.VALUE_JSON, gson.toJson(v));
+    }
+  }
+
+  private void encodeGeometry(Geometry g, ProtobufWriter out, int depth) {
+    if (g instanceof Point) {
+      out.varintField(Geobuf.GEOMETRY_TYPE, Geobuf.POINT);
+      if (!g.isEmpty()) {
+        packed.reset();
+        writeLine(((Point) g).getCoordinateSequence(), false);
+        out.message(Geobuf.GEOMETRY_COORDS, packed);
+      }
+    } else if (g instanceof LineString) {
+      out.varintField(Geobuf.GEOMETRY_TYPE, Geobuf.LINESTRING);
+      packed.reset();
+      writeLine(((LineString) g).getCoordinateSequence(), false);
+      writeCoords(out);
+    } else if (g instanceof Polygon) {
+      out.varintField(Geobuf.GEOMETRY_TYPE, Geobuf.POLYGON);
+      Polygon polygon = (Polygon) g;
+      int rings = polygon.isEmpty() ? 0 : polygon.getNumInteriorRing() + 1;
+      if (rings != 1) {
+        packed.reset();
+        for (int i = 0; i < rings; i++) {
+          packed.varint(ringLength(ring(polygon, i).getCoordinateSequence()));
+        }
+        out.message(Geobuf.GEOMETRY_LENGTHS, packed);
+      }
+      packed.reset();
+      for (int i = 0; i < rings; i++) {
+        writeLine(ring(polygon, i).getCoordinateSequence(), true);
+      }
+      writeCoords(out);
+    } else if (g instanceof MultiPoint) {
+      out.varintField(Geobuf.GEOMETRY_TYPE, Geobuf.MULTIPOINT);
+      packed.reset();
+      long[] last = new long[dimensions];
+      for (int i = 0; i < g.getNumGeometries(); i++) {
+        Point point = (Point) g.getGeometryN(i);
+        if (!point.isEmpty()) {
+          writePoint(point.getCoordinateSequence(), 0, last);
+        }
+      }
+      writeCoords(out);
+    } else if (g instanceof MultiLineString) {
+      out.varintField(Geobuf.GEOMETRY_TYPE, Geobuf.MULTILINESTRING);
+      int lines = g.getNumGeometries();
+      if (lines != 1 || g.isEmpty()) {
+        packed.reset();
+        for (int i = 0; i < lines; i++) {
+          packed.varint(((LineString) g.getGeometryN(i)).getNumPoints());
+        }
+        out.message(Geobuf.GEOMETRY_LENGTHS, packed);
+      }
+      packed.reset();
+      for (int i = 0; i < lines; i++) {
+        writeLine(((LineString) g.getGeometryN(i)).getCoordinateSequence(), false);
+      }
+      writeCoords(out);
+    } else if (g instanceof MultiPolygon) {
+      out.varintField(Geobuf.GEOMETRY_TYPE, Geobuf.MULTIPOLYGON);
+      int polygons = g.getNumGeometries();
+      Polygon first = polygons == 1 ? (Polygon) g.getGeometryN(0) : null;
+      if (first == null || first.isEmpty() || first.getNumInteriorRing() > 0) {
+        packed.reset();
+        packed.varint(polygons);
+        for (int i = 0; i < polygons; i++) {
+          Polygon polygon = (Polygon) g.getGeometryN(i);
+          int rings = polygon.isEmpty() ? 0 : polygon.getNumInteriorRing() + 1;
+          packed.varint(rings);
+          for (int j = 0; j < rings; j++) {
+            packed.varint(ringLength(ring(polygon, j).getCoordinateSequence()));
+          }
+        }
+        out.message(Geobuf.GEOMETRY_LENGTHS, packed);
+      }
+      packed.reset();
+      for (int i = 0; i < polygons; i++) {
+        Polygon polygon = (Polygon) g.getGeometryN(i);
+        int rings = polygon.isEmpty() ? 0 : polygon.getNumInteriorRing() + 1;
+        for (int j = 0; j < rings; j++) {
+          writeLine(ring(polygon, j).getCoordinateSequence(), true);
+        }
+      }
+      writeCoords(out);
+    } else if (g instanceof GeometryCollection) {
+      out.varintField(Geobuf.GEOMETRY_TYPE, Geobuf.GEOMETRYCOLLECTION);
+      if (children.size() <= depth) {
+        children.add(new ProtobufWriter());
+      }
+      ProtobufWriter child = children.get(depth);
+      for (int i = 0; i < g.getNumGeometries(); i++) {
+        child.reset();
+        encodeGeometry(g.getGeometryN(i), child, depth + 1);
+        out.message(Geobuf.GEOMETRY_GEOMETRIES, child);
+      }
+    } else {
+      throw new IllegalArgumentException("Unsupported GeoGeometry type: " + g.getGeometryType());
+    }
+  }
+
+  private static LineString ring(Polygon polygon, int index) {
+    return index == 0 ? polygon.getExteriorRing() : polygon.getInteriorRingN(index - 1);
+  }
+
+  /**
+   * 环省略闭合点后的点数
+   */
+  private static int ringLength(CoordinateSequence seq) {
+    return seq.size() > 0 ? seq.size() - 1 : 0;
+  }
+
+  private void writeCoords(ProtobufWriter out) {
+    if (packed.size() > 0) {
+      out.message(Geobuf.GEOMETRY_COORDS, packed);
+    }
+  }
+
+  /**
+   * 把一条线的坐标按差值写入packed，closed为true时省略最后的闭合点
+   */
+  private void writeLine(CoordinateSequence seq, boolean closed) {
+    long[] last = new long[dimensions];
+    int size = closed ? ringLength(seq) : seq.size();
+    for (int i = 0; i < size; i++) {
+      writePoint(seq, i, last);
+    }
+  }
+
+  /**
+   * 放大后的坐标超出long的范围时Math.round会返回Long.MAX_VALUE或Long.MIN_VALUE，坐标被悄悄改变，
+   * 因此直接拒绝，无穷大的坐标同样被拒绝
+   */
+  private void writePoint(CoordinateSequence seq, int index, long[] last) {
+    for (int d = 0; d < dimensions; d++) {
+      double ordinate = d < seq.getDimension() ? seq.getOrdinate(index, d) : 0;
+      if (Double.isNaN(ordinate)) {
+        ordinate = 0;
+      }
+      double scaled = ordinate * scale;
+      if (Math.abs(scaled) >= 0x1p63) {
+        throw new IllegalArgumentException(
+            "Ordinate " + ordinate + " out of range for precision " + precision + ", use a lower precision");
+      }
+      long q = Math.round(scaled);
+      packed.sint(q - last[d]);
+      last[d] = q;
+    }
+  }
+}
@@ -0,0 +1,131 @@
+package io.github.geobuf;
+
+import io.github.geojson.Feature;
+import io.github.geojson.FeatureCollection;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Geobuf风格的FeatureCollection二进制编码。
+ * <p>
+ * 编码结果是一串protobuf字段，不依赖protobuf库：
+ * <pre>
+ * message Data {
+ *   repeated string keys = 1;        // 追加到属性名表
+ *   optional uint32 dimensions = 2;  // 默认2
+ *   optional uint32 precision = 3;   // 坐标保留的小数位数，默认6
+ *   repeated Value values = 4;       // 追加到共享属性值表
+ *   repeated Feature features = 5;
+ * }
+ * message Feature {
+ *   optional Geometry geometry = 1;
+ *   optional string id = 11;
+ *   optional sint64 int_id = 12;
+ *   repeated Value values = 13;                 // 只属于该Feature的属性值
+ *   repeated uint32 properties = 14 [packed];   // 属性名下标和属性值引用成对出现
+ * }
+ * message Geometry {
+ *   optional Type type = 1;
+ *   repeated uint32 lengths = 2 [packed];
+ *   repeated sint64 coords = 3 [packed];        // 取整后按差值编码的坐标
+ *   repeated Geometry geometries = 4;
+ * }
+ * message Value {
+ *   string string_value = 1; double double_value = 2; uint64 pos_int_value = 3;
+ *   uint64 neg_int_value = 4; bool bool_value = 5; string json_value = 6;
+ *   sint64 integral_double_value = 7;           // 值为整数的Double
+ * }
+ * </pre>
+ * 与Geobuf不同的是，属性名和共享属性值在第一次用到时才写出，写出和读取都可以逐个Feature进行。
+ * 属性值引用为偶数时表示共享表中下标为ref/2的值，为奇数时表示该Feature的values中下标为ref/2的值。
+ * </p>
+ */
+public class Geobuf {
+  static final int DATA_KEYS = 1;
+  static final int DATA_DIMENSIONS = 2;
+  static final int DATA_PRECISION = 3;
+  static final int DATA_VALUES = 4;
+  static final int DATA_FEATURES = 5;
+
+  static final int FEATURE_GEOMETRY = 1;
+  static final int FEATURE_ID = 11;
+  static final int FEATURE_INT_ID = 12;
+  static final int FEATURE_VALUES = 13;
+  static final int FEATURE_PROPERTIES = 14;
+
+  static final int GEOMETRY_TYPE = 1;
+  static final int GEOMETRY_LENGTHS = 2;
+  static final int GEOMETRY_COORDS = 3;
+  static final int GEOMETRY_GEOMETRIES = 4;
+
+  static final int VALUE_STRING = 1;
+  static final int VALUE_DOUBLE = 2;
+  static final int VALUE_POS_INT = 3;
+  static final int VALUE_NEG_INT = 4;
+  static final int VALUE_BOOL = 5;
+  static final int VALUE_JSON = 6;
+  static final int VALUE_INTEGRAL_DOUBLE = 7;
+
+  static final int POINT = 0;
+  static final int MULTIPOINT = 1;
+  static final int LINESTRING = 2;
+  static final int MULTILINESTRING = 3;
+  static final int POLYGON = 4;
+  static final int MULTIPOLYGON = 5;
+  static final int GEOMETRYCOLLECTION = 6;
+
+  public static final int DEFAULT_PRECISION = 6;
+  public static final int DEFAULT_DIMENSIONS = 2;
+  public static final int MAX_PRECISION = 15;
+  /**
+   * 共享属性值表的默认最大长度
+   */
+  public static final int DEFAULT_MAX_VALUES = 1 << 16;
+  /**
+   * 2^53，绝对值小于该值的整数可以用double精确表示
+   */
+  static final double MAX_EXACT_INTEGER = 9007199254740992.0;
+
+  /**
+   * 使用默认精度（6位小数）编码FeatureCollection
+   */
+  public static byte[] encode(FeatureCollection collection) {
+    return encode(collection, DEFAULT_PRECISION);
+  }
+
+  /**
+   * 编码FeatureCollection
+   *
+   * @param precision 坐标保留的小数位数
+   */
+  public static byte[] encode(FeatureCollection collection, int precision) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (GeobufWriter writer = new GeobufWriter(out, precision)) {
+      if (collection.getFeatures() != null) {
+        writer.writeAll(collection.getFeatures());
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return out.toByteArray();
+  }
+
+  /**
+   * 解码为FeatureCollection
+   */
+  public static FeatureCollection decode(byte[] bytes) {
+    List<Feature> features = new ArrayList<Feature>();
+    try (GeobufReader reader = new GeobufReader(new ByteArrayInputStream(bytes))) {
+      while (reader.hasNext()) {
+        features.add(reader.next());
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return new FeatureCollection(features);
+  }
+}
@@ -0,0 +1,323 @@
+package io.github.geobuf;
+
+import com.google.gson.Gson;
+import io.github.geojson.Feature;
+import io.github.geojson.GeoJSON;
+import org.locationtech.jts.geom.Envelope;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * 带空间索引的Geobuf文件，类似FlatGeobuf，用 {@link GeobufFileReader} 按范围查询。
+ * <p>
+ * 文件结构（整数均为小端序）：
+ * <pre>
+ * magic      8字节 "GBX1" + 4个0
+ * index      静态打包R树，每个节点40字节：minX, minY, maxX, maxY (double), offset (long)
+ * features   按Hilbert曲线排序的Feature，每个Feature为4字节长度 + Geobuf的Feature消息
+ * header     Geobuf的Data消息：keys、dimensions、precision、values，以及Feature数、节点容量、最大Feature长度
+ * footer     8字节header的位置 + "GBX1"
+ * </pre>
+ * R树按层从根节点开始存放，叶子节点在最后，与Feature一一对应，offset为Feature相对features起点的位置；
+ * 非叶子节点的offset为第一个子节点的序号。没有geometry的Feature排在最后，范围为NaN，不会被查询到。
+ * header写在Feature之后，写出时只需要把Feature逐个编码一遍。
+ * </p>
+ */
+public class GeobufFile {
+  static final byte[] MAGIC = "GBX1".getBytes(StandardCharsets.US_ASCII);
+  static final int MAGIC_SIZE = 8;
+  static final int FOOTER_SIZE = 12;
+  static final int NODE_BYTES = 40;
+  public static final int DEFAULT_NODE_SIZE = 16;
+  /**
+   * 最多写出的Feature数，受每个Feature 4个double的范围数组长度限制，也保证排序键中30位的下标不会溢出
+   */
+  public static final int MAX_FEATURES = Integer.MAX_VALUE / 4;
+
+  static final int HEADER_FEATURE_COUNT = 6;
+  static final int HEADER_NODE_SIZE = 7;
+  static final int HEADER_MAX_FEATURE_LENGTH = 8;
+
+  /**
+   * 使用默认精度写出Feature
+   */
+  public static void write(Path path, Collection<Feature> features) throws IOException {
+    write(path, features, Geobuf.DEFAULT_PRECISION, DEFAULT_NODE_SIZE, GeoJSON.getGson());
+  }
+
+  /**
+   * 把Feature按Hilbert曲线排序后写出，并在前面写出打包的R树索引
+   *
+   * @param path 文件路径
+   * @param features 要写出的Feature
+   * @param precision 坐标保留的小数位数
+   * @param nodeSize R树每个节点的子节点数
+   * @param gson 用于编码嵌套对象等非基本类型属性值的Gson配置
+   */
+  public static void write(Path path, Collection<Feature> features, int precision, int nodeSize, Gson gson)
+      throws IOException {
+    if (nodeSize < 2 || nodeSize > 65535) {
+      throw new IllegalArgumentException("nodeSize must be between 2 and 65535: " + nodeSize);
+    }
+    if (features.size() > MAX_FEATURES) {
+      throw new IllegalArgumentException("at most " + MAX_FEATURES + " features can be written: " + features.size());
+    }
+    Feature[] items = features.toArray(new Feature[0]);
+    int count = items.length;
+    double[] bounds = new double[count * 4];
+    Envelope extent = new Envelope();
+    for (int i = 0; i < count; i++) {
+      Envelope env = items[i].getGeometry() == null ? null : items[i].getGeometry().getEnvelopeInternal();
+      if (env == null || env.isNull()) {
+        Arrays.fill(bounds, i * 4, i * 4 + 4, Double.NaN);
+      } else {
+        bounds[i * 4] = env.getMinX();
+        bounds[i * 4 + 1] = env.getMinY();
+        bounds[i * 4 + 2] = env.getMaxX();
+        bounds[i * 4 + 3] = env.getMaxY();
+        extent.expandToInclude(env);
+      }
+    }
+    int[] order = hilbertOrder(bounds, count, extent);
+    long[] levelBounds = levelBounds(count, nodeSize);
+    int numNodes = (int) levelBounds[0];
+    long indexBytes = (long) numNodes * NODE_BYTES;
+    long[] offsets = new long[count];
+
+    FeatureEncoder encoder = new FeatureEncoder(precision, Geobuf.DEFAULT_DIMENSIONS, Geobuf.DEFAULT_MAX_VALUES, gson);
+    ProtobufWriter message = new ProtobufWriter();
+    int maxLength = 0;
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.TRUNCATE_EXISTING)) {
+      channel.position(MAGIC_SIZE + indexBytes);
+      OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16);
+      long offset = 0;
+      byte[] length = new byte[4];
+      for (int i = 0; i < count; i++) {
+        message.reset();
+        encoder.encode(items[order[i]], message);
+        offsets[i] = offset;
+        ByteBuffer.wrap(length).order(ByteOrder.LITTLE_ENDIAN).putInt(0, message.size());
+        out.write(length);
+        message.writeTo(out);
+        offset += 4 + message.size();
+        maxLength = Math.max(maxLength, message.size());
+      }
+      long headerOffset = MAGIC_SIZE + indexBytes + offset;
+      ProtobufWriter header = new ProtobufWriter();
+      ProtobufWriter value = new ProtobufWriter(32);
+      for (String key : encoder.pendingKeys()) {
+        header.stringField(Geobuf.DATA_KEYS, key);
+      }
+      header.varintField(Geobuf.DATA_PRECISION, precision);
+      for (Object v : encoder.pendingValues()) {
+        value.reset();
+        encoder.encodeValue(v, value);
+        header.message(Geobuf.DATA_VALUES, value);
+      }
+      header.varintField(HEADER_FEATURE_COUNT, count);
+      header.varintField(HEADER_NODE_SIZE, nodeSize);
+      header.varintField(HEADER_MAX_FEATURE_LENGTH, maxLength + 4);
+      header.writeTo(out);
+      ByteBuffer footer = ByteBuffer.allocate(FOOTER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+      footer.putLong(headerOffset).put(MAGIC);
+      out.write(footer.array());
+      out.flush();
+
+      ByteBuffer head = ByteBuffer.allocate(MAGIC_SIZE);
+      head.put(MAGIC).rewind();
+      channel.write(head, 0);
+      writeIndex(channel, bounds, order, offsets, levelBounds, nodeSize);
+    }
+  }
+
+  /**
+   * 计算R树每层节点的范围。结果的第0个元素为节点总数，之后每两个元素为一层的[start, end)，
+   * 从叶子层开始，最后一层为根节点
+   */
+  static long[] levelBounds(long count, int nodeSize) {
+    long[] sizes = new long[64];
+    int levels = 0;
+    long total = 0;
+    long n = count;
+    do {
+      sizes[levels++] = n;
+      total += n;
+      n = (n + nodeSize - 1) / nodeSize;
+    } while (sizes[levels - 1] > 1);
+    if (total > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Too many features for the index: " + count);
+    }
+    long[] result = new long[1 + levels * 2];
+    result[0] = total;
+    long end = total;
+    for (int i = 0; i < levels; i++) {
+      result[1 + i * 2] = end - sizes[i];
+      result[2 + i * 2] = end;
+      end -= sizes[i];
+    }
+    return result;
+  }
+
+  /**
+   * 逐层计算节点范围并写出R树，父节点的范围为子节点范围的并集，忽略范围为NaN的子节点
+   */
+  private static void writeIndex(FileChannel channel, double[] bounds, int[] order, long[] offsets,
+      long[] levelBounds, int nodeSize) throws IOException {
+    int levels = (levelBounds.length - 1) / 2;
+    double[] lower = new double[order.length * 4];
+    for (int i = 0; i < order.length; i++) {
+      System.arraycopy(bounds, order[i] * 4, lower, i * 4, 4);
+    }
+    long[] lowerOffsets = offsets;
+    for (int level = 0; level < levels; level++) {
+      long start = levelBounds[1 + level * 2];
+      int size = (int) (levelBounds[2 + level * 2] - start);
+      writeNodes(channel, start, lower, lowerOffsets, size);
+      if (level + 1 == levels) {
+        break;
+      }
+      int parents = (int) (levelBounds[2 + (level + 1) * 2] - levelBounds[1 + (level + 1) * 2]);
+      double[] upper = new double[parents * 4];
+      long[] upperOffsets = new long[parents];
+      for (int p = 0; p < parents; p++) {
+        double minX = Double.NaN;
+        double minY = Double.NaN;
+        double maxX = Double.NaN;
+        double maxY = Double.NaN;
+        int first = p * nodeSize;
+        for (int c = first; c < Math.min(first + nodeSize, size); c++) {
+          if (Double.isNaN(lower[c * 4])) {
+            continue;
+          }
+          minX = Double.isNaN(minX) ? lower[c * 4] : Math.min(minX, lower[c * 4]);
+          minY = Double.isNaN(minY) ? lower[c * 4 + 1] : Math.min(minY, lower[c * 4 + 1]);
+          maxX = Double.isNaN(maxX) ? lower[c * 4 + 2] : Math.max(maxX, lower[c * 4 + 2]);
+          maxY = Double.isNaN(maxY) ? lower[c * 4 + 3] : Math.max(maxY, lower[c * 4 + 3]);
+        }
+        upper[p * 4] = minX;
+        upper[p * 4 + 1] = minY;
+        upper[p * 4 + 2] = maxX;
+        upper[p * 4 + 3] = maxY;
+        upperOffsets[p] = start + first;
+      }
+      lower = upper;
+      lowerOffsets = upperOffsets;
+    }
+  }
+
+  private static void writeNodes(FileChannel channel, long firstNode, double[] bounds, long[] offsets, int size)
+      throws IOException {
+    ByteBuffer buf = ByteBuffer.allocate(NODE_BYTES * 1024).order(ByteOrder.LITTLE_ENDIAN);
+    long position = MAGIC_SIZE + firstNode * NODE_BYTES;
+    for (int i = 0; i < size; i++) {
+      buf.putDouble(bounds[i * 4]).putDouble(bounds[i * 4 + 1]).putDouble(bounds[i * 4 + 2])
+          .putDouble(bounds[i * 4 + 3]).putLong(offsets[i]);
+      if (!buf.hasRemaining() || i == size - 1) {
+        buf.flip();
+        while (buf.hasRemaining()) {
+          position += channel.write(buf, position);
+        }
+        buf.clear();
+      }
+    }
+  }
+
+  /**
+   * 按范围中心点的Hilbert值排序，没有范围的Feature排在最后。返回排序后的原始下标。
+   * 排序键的高33位为Hilbert值，低30位为下标，count不能超过 {@link #MAX_FEATURES}
+   */
+  private static int[] hilbertOrder(double[] bounds, int count, Envelope extent) {
+    long[] keys = new long[count];
+    double width = extent.getWidth() > 0 ? extent.getWidth() : 1;
+    double height = extent.getHeight() > 0 ? extent.getHeight() : 1;
+    for (int i = 0; i < count; i++) {
+      long h;
+      if (Double.isNaN(bounds[i * 4])) {
+        h = 1L << 32;
+      } else {
+        double cx = (bounds[i * 4] + bounds[i * 4 + 2]) / 2;
+        double cy = (bounds[i * 4 + 1] + bounds[i * 4 + 3]) / 2;
+        int x = (int) (0xFFFF * (cx - extent.getMinX()) / width);
+        int y = (int) (0xFFFF * (cy - extent.getMinY()) / height);
+        h = hilbert(x, y) & 0xFFFFFFFFL;
+      }
+      keys[i] = (h << 30) | i;
+    }
+    Arrays.sort(keys);
+    int[] order = new int[count];
+    for (int i = 0; i < count; i++) {
+      order[i] = (int) (keys[i] & ((1L << 30) - 1));
+    }
+    return order;
+  }
+
+  /**
+   * 16位网格坐标的Hilbert曲线序号，算法来自 "Fast Hilbert curve generation" (rawrunprotected)
+   */
+  static int hilbert(int x, int y) {
+    int a = x ^ y;
+    int b = 0xFFFF ^ a;
+    int c = 0xFFFF ^ (x | y);
+    int d = x & (y ^ 0xFFFF);
+
+    int aa = a | (b >> 1);
+    int bb = (a >> 1) ^ a;
+    int cc = ((c >> 1) ^ (b & (d >> 1))) ^ c;
+    int dd = ((a & (c >> 1)) ^ (d >> 1)) ^ d;
+
+    a = aa;
+    b = bb;
+    c = cc;
+    d = dd;
+    aa = (a & (a >> 2)) ^ (b & (b >> 2));
+    bb = (a & (b >> 2)) ^ (b & ((a ^ b) >> 2));
+    cc ^= (a & (c >> 2)) ^ (b & (d >> 2));
+    dd ^= (b & (c >> 2)) ^ ((a ^ b) & (d >> 2));
+
+    a = aa;
+    b = bb;
+    c = cc;
+    d = dd;
+    aa = (a & (a >> 4)) ^ (b & (b >> 4));
+    bb = (a & (b >> 4)) ^ (b & ((a ^ b) >> 4));
+    cc ^= (a & (c >> 4)) ^ (b & (d >> 4));
+    dd ^= (b & (c >> 4)) ^ ((a ^ b) & (d >> 4));
+
+    a = aa;
+    b = bb;
+    c = cc;
+    d = dd;
+    cc ^= (a & (c >> 8)) ^ (b & (d >> 8));
+    dd ^= (b & (c >> 8)) ^ ((a ^ b) & (d >> 8));
+
+    a = cc ^ (cc >> 1);
+    b = dd ^ (dd >> 1);
+
+    int i0 = x ^ y;
+    int i1 = b | (0xFFFF ^ (i0 | a));
+
+    return (interleave(i1) << 1) | interleave(i0);
+  }
+
+  /**
+   * 把16位整数的各位依次间隔一位展开
+   */
+  private static int interleave(int v) {
+    v = (v | (v << 8)) & 0x00FF00FF;
+    v = (v | (v << 4)) & 0x0F0F0F0F;
+    v = (v | (v << 2)) & 0x33333333;
+    v = (v | (v << 1)) & 0x55555555;
+    return v;
+  }
+}
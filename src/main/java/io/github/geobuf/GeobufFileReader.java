@@ -0,0 +1,314 @@
+package io.github.geobuf;
+
+import com.google.gson.Gson;
+import io.github.geojson.Feature;
+import io.github.geojson.GeoJSON;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.GeometryFactory;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 读取 {@link GeobufFile} 写出的带索引的Geobuf文件。
+ * <p>
+ * R树索引和Feature都通过 {@link MappedByteBuffer} 读取：查询时只访问与范围相交的索引节点，
+ * 再按文件顺序解码命中的Feature，其余部分不会被读入内存。Feature区按1G分段映射，
+ * 相邻分段之间重叠一个最大Feature的长度，保证每个Feature都完整地位于某个分段中。
+ * </p>
+ * 查询方法可以在多个线程中同时调用。
+ */
+public class GeobufFileReader implements Closeable {
+  private static final long SEGMENT_SIZE = 1L << 30;
+
+  private final FileChannel channel;
+  private final FeatureDecoder decoder;
+  private final int count;
+  private final int nodeSize;
+  private final int maxFeatureLength;
+  private final long[] levelBounds;
+  private final MappedByteBuffer index;
+  private final long featuresOffset;
+  private final long featuresEnd;
+  private final MappedByteBuffer[] segments;
+
+  public GeobufFileReader(Path path) throws IOException {
+    this(path, new GeometryFactory(), GeoJSON.getGson());
+  }
+
+  /**
+   * @param path 文件路径
+   * @param factory 创建几何对象使用的工厂
+   * @param gson 用于解码嵌套对象等JSON属性值的Gson配置
+   */
+  public GeobufFileReader(Path path, GeometryFactory factory, Gson gson) throws IOException {
+    this.channel = FileChannel.open(path, StandardOpenOption.READ);
+    try {
+      long size = channel.size();
+      if (size < GeobufFile.MAGIC_SIZE + GeobufFile.FOOTER_SIZE) {
+        throw new IllegalArgumentException("Not an indexed geobuf file: " + path);
+      }
+      ByteBuffer footer = read(size - GeobufFile.FOOTER_SIZE, GeobufFile.FOOTER_SIZE);
+      long headerOffset = footer.getLong();
+      byte[] magic = new byte[GeobufFile.MAGIC.length];
+      footer.get(magic);
+      if (!Arrays.equals(magic, GeobufFile.MAGIC) || headerOffset < GeobufFile.MAGIC_SIZE
+          || headerOffset > size - GeobufFile.FOOTER_SIZE) {
+        throw new IllegalArgumentException("Not an indexed geobuf file: " + path);
+      }
+      ByteBuffer headerBytes = read(headerOffset, (int) (size - GeobufFile.FOOTER_SIZE - headerOffset));
+      this.decoder = new FeatureDecoder(factory, gson);
+      long featureCount = 0;
+      int nodes = GeobufFile.DEFAULT_NODE_SIZE;
+      int maxLength = 0;
+      ProtobufReader header = new ProtobufReader(headerBytes.array(), 0, headerBytes.limit());
+      while (header.hasNext()) {
+        int tag = header.tag();
+        switch (tag >>> 3) {
+          case Geobuf.DATA_KEYS:
+            decoder.addKey(header.string());
+            break;
+          case Geobuf.DATA_DIMENSIONS:
+            decoder.setDimensions((int) header.varint());
+            break;
+          case Geobuf.DATA_PRECISION:
+            decoder.setPrecision((int) header.varint());
+            break;
+          case Geobuf.DATA_VALUES: {
+            int limit = header.pushLimit(header.length());
+            decoder.addValue(decoder.decodeValue(header));
+            header.popLimit(limit);
+            break;
+          }
+          case GeobufFile.HEADER_FEATURE_COUNT:
+            featureCount = header.varint();
+            break;
+          case GeobufFile.HEADER_NODE_SIZE:
+            nodes = (int) header.varint();
+            break;
+          case GeobufFile.HEADER_MAX_FEATURE_LENGTH:
+            maxLength = (int) header.varint();
+            break;
+          default:
+            header.skip(tag);
+        }
+      }
+      if (nodes < 2) {
+        throw new IllegalArgumentException("Malformed geobuf: invalid node size " + nodes);
+      }
+      this.count = (int) featureCount;
+      this.nodeSize = nodes;
+      this.maxFeatureLength = maxLength;
+      this.levelBounds = GeobufFile.levelBounds(featureCount, nodes);
+      long indexBytes = levelBounds[0] * GeobufFile.NODE_BYTES;
+      if (indexBytes > Integer.MAX_VALUE) {
+        throw new IllegalArgumentException("Malformed geobuf: index larger than 2GB");
+      }
+      this.featuresOffset = GeobufFile.MAGIC_SIZE + indexBytes;
+      this.featuresEnd = headerOffset;
+      if (featuresOffset > featuresEnd) {
+        throw new IllegalArgumentException("Malformed geobuf: index exceeds file");
+      }
+      this.index = channel.map(FileChannel.MapMode.READ_ONLY, GeobufFile.MAGIC_SIZE, indexBytes);
+      this.index.order(ByteOrder.LITTLE_ENDIAN);
+      long featureBytes = featuresEnd - featuresOffset;
+      this.segments = new MappedByteBuffer[(int) ((featureBytes + SEGMENT_SIZE - 1) / SEGMENT_SIZE)];
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Feature总数
+   */
+  public int size() {
+    return count;
+  }
+
+  /**
+   * 所有Feature的范围，没有Feature或都没有geometry时返回空的Envelope
+   */
+  public Envelope getEnvelope() {
+    if (count == 0) {
+      return new Envelope();
+    }
+    int root = (int) levelBounds[levelBounds.length - 2];
+    if (Double.isNaN(nodeMinX(root))) {
+      return new Envelope();
+    }
+    return new Envelope(nodeMinX(root), nodeMaxX(root), nodeMinY(root), nodeMaxY(root));
+  }
+
+  /**
+   * 查询范围与filter相交的Feature，按文件中的顺序（Hilbert曲线顺序）返回
+   */
+  public List<Feature> query(Envelope filter) {
+    List<Feature> features = new ArrayList<Feature>();
+    query(filter, features::add);
+    return features;
+  }
+
+  /**
+   * 查询范围与filter相交的Feature，按文件中的顺序交给consumer处理
+   */
+  public void query(Envelope filter, Consumer<? super Feature> consumer) {
+    if (count == 0 || filter == null || filter.isNull()) {
+      return;
+    }
+    long[] offsets = search(filter.getMinX(), filter.getMinY(), filter.getMaxX(), filter.getMaxY());
+    FeatureDecoder local = new FeatureDecoder(decoder);
+    FeatureBuffer buffer = new FeatureBuffer();
+    for (long offset : offsets) {
+      readFeature(offset, buffer);
+      consumer.accept(local.decode(buffer.reader));
+    }
+  }
+
+  /**
+   * 按文件顺序读取所有Feature，包括没有geometry的Feature
+   */
+  public void readAll(Consumer<? super Feature> consumer) {
+    FeatureDecoder local = new FeatureDecoder(decoder);
+    FeatureBuffer buffer = new FeatureBuffer();
+    long offset = 0;
+    long end = featuresEnd - featuresOffset;
+    while (offset < end) {
+      offset += 4 + readFeature(offset, buffer);
+      consumer.accept(local.decode(buffer.reader));
+    }
+  }
+
+  @Override public void close() throws IOException {
+    channel.close();
+  }
+
+  /**
+   * 遍历R树，返回与范围相交的叶子节点中保存的Feature位置，按位置排序
+   */
+  private long[] search(double minX, double minY, double maxX, double maxY) {
+    long[] result = new long[16];
+    int resultSize = 0;
+    int leafStart = (int) levelBounds[1];
+    int levels = (levelBounds.length - 1) / 2;
+    int[] stack = new int[levels * 2 * 8];
+    int top = 0;
+    // 栈中保存节点序号和所在的层
+    stack[top++] = (int) levelBounds[levelBounds.length - 2];
+    stack[top++] = levels - 1;
+    while (top > 0) {
+      int level = stack[--top];
+      int first = stack[--top];
+      int levelEnd = (int) levelBounds[2 + level * 2];
+      int end = Math.min(first + nodeSize, levelEnd);
+      for (int node = first; node < end; node++) {
+        // NaN范围的比较结果都为false
+        if (!(nodeMaxX(node) >= minX && nodeMinX(node) <= maxX && nodeMaxY(node) >= minY
+            && nodeMinY(node) <= maxY)) {
+          continue;
+        }
+        long offset = index.getLong(node * GeobufFile.NODE_BYTES + 32);
+        if (node >= leafStart) {
+          if (resultSize == result.length) {
+            result = Arrays.copyOf(result, resultSize * 2);
+          }
+          result[resultSize++] = offset;
+        } else {
+          if (top + 2 > stack.length) {
+            stack = Arrays.copyOf(stack, stack.length * 2);
+          }
+          stack[top++] = (int) offset;
+          stack[top++] = level - 1;
+        }
+      }
+    }
+    long[] offsets = Arrays.copyOf(result, resultSize);
+    Arrays.sort(offsets);
+    return offsets;
+  }
+
+  private double nodeMinX(int node) {
+    return index.getDouble(node * GeobufFile.NODE_BYTES);
+  }
+
+  private double nodeMinY(int node) {
+    return index.getDouble(node * GeobufFile.NODE_BYTES + 8);
+  }
+
+  private double nodeMaxX(int node) {
+    return index.getDouble(node * GeobufFile.NODE_BYTES + 16);
+  }
+
+  private double nodeMaxY(int node) {
+    return index.getDouble(node * GeobufFile.NODE_BYTES + 24);
+  }
+
+  /**
+   * 把offset处的Feature消息复制到buffer中，返回消息的长度
+   */
+  private int readFeature(long offset, FeatureBuffer buffer) {
+    int segmentIndex = (int) (offset / SEGMENT_SIZE);
+    ByteBuffer segment = segment(segmentIndex).duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    int position = (int) (offset - segmentIndex * SEGMENT_SIZE);
+    if (position + 4 > segment.limit()) {
+      throw new IllegalArgumentException("Malformed geobuf: feature offset exceeds file");
+    }
+    int length = segment.getInt(position);
+    if (length < 0 || position + 4 + length > segment.limit()) {
+      throw new IllegalArgumentException("Malformed geobuf: feature length exceeds file");
+    }
+    if (buffer.bytes.length < length) {
+      buffer.bytes = new byte[Math.max(length, buffer.bytes.length * 2)];
+    }
+    segment.position(position + 4);
+    segment.get(buffer.bytes, 0, length);
+    buffer.reader.reset(buffer.bytes, 0, length);
+    return length;
+  }
+
+  private MappedByteBuffer segment(int segmentIndex) {
+    synchronized (segments) {
+      MappedByteBuffer segment = segments[segmentIndex];
+      if (segment == null) {
+        long start = featuresOffset + segmentIndex * SEGMENT_SIZE;
+        long length = Math.min(SEGMENT_SIZE + maxFeatureLength, featuresEnd - start);
+        try {
+          segment = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+        segments[segmentIndex] = segment;
+      }
+      return segment;
+    }
+  }
+
+  private ByteBuffer read(long position, int length) throws IOException {
+    ByteBuffer buf = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+    while (buf.hasRemaining()) {
+      if (channel.read(buf, position + buf.position()) < 0) {
+        throw new IllegalArgumentException("Malformed geobuf: unexpected end of file");
+      }
+    }
+    buf.flip();
+    return buf;
+  }
+
+  /**
+   * 每次查询使用的Feature消息缓冲区
+   */
+  private static final class FeatureBuffer {
+    private byte[] bytes = new byte[256];
+    private final ProtobufReader reader = new ProtobufReader();
+  }
+}
@@ -0,0 +1,180 @@
+package io.github.geobuf;
+
+import com.google.gson.Gson;
+import io.github.geojson.Feature;
+import io.github.geojson.GeoJSON;
+import org.locationtech.jts.geom.GeometryFactory;
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 逐个读取Geobuf格式的Feature，格式参见 {@link Geobuf}。每次只把一个Feature消息读入内存。
+ * 读取失败时抛出 {@link UncheckedIOException}，数据格式错误时抛出 {@link IllegalArgumentException}。
+ */
+public class GeobufReader implements Iterator<Feature>, Closeable {
+  private final InputStream in;
+  private final FeatureDecoder decoder;
+  private final ProtobufReader reader = new ProtobufReader();
+  private byte[] buf = new byte[1024];
+  private Feature next;
+  private boolean finished;
+
+  public GeobufReader(InputStream in) {
+    this(in, new GeometryFactory());
+  }
+
+  /**
+   * @param in Geobuf输入流
+   * @param factory 创建几何对象使用的工厂，例如使用 {@link io.github.geom.Geom#packedFactory} 生成紧凑的坐标序列
+   */
+  public GeobufReader(InputStream in, GeometryFactory factory) {
+    this(in, factory, GeoJSON.getGson());
+  }
+
+  /**
+   * @param in Geobuf输入流
+   * @param factory 创建几何对象使用的工厂
+   * @param gson 用于解码嵌套对象等JSON属性值的Gson配置
+   */
+  public GeobufReader(InputStream in, GeometryFactory factory, Gson gson) {
+    this.in = new BufferedInputStream(in);
+    this.decoder = new FeatureDecoder(factory, gson);
+  }
+
+  @Override public boolean hasNext() {
+    if (next == null && !finished) {
+      try {
+        next = advance();
+      } catch (IOException e) {
+        finished = true;
+        throw new UncheckedIOException(e);
+      } catch (RuntimeException e) {
+        finished = true;
+        throw e;
+      }
+    }
+    return next != null;
+  }
+
+  @Override public Feature next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    Feature feature = next;
+    next = null;
+    return feature;
+  }
+
+  /**
+   * 把剩余的Feature包装为顺序的Stream，关闭Stream时同时关闭读取器
+   */
+  public Stream<Feature> stream() {
+    Spliterator<Feature> spliterator =
+        Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL);
+    return StreamSupport.stream(spliterator, false).onClose(() -> {
+      try {
+        close();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    });
+  }
+
+  @Override public void close() throws IOException {
+    finished = true;
+    next = null;
+    in.close();
+  }
+
+  private Feature advance() throws IOException {
+    while (true) {
+      long tag = readVarint(true);
+      if (tag < 0) {
+        finished = true;
+        return null;
+      }
+      int field = (int) (tag >>> 3);
+      int wireType = (int) (tag & 7);
+      if (wireType == ProtobufWriter.VARINT) {
+        long value = readVarint(false);
+        if (field == Geobuf.DATA_DIMENSIONS) {
+          decoder.setDimensions((int) value);
+        } else if (field == Geobuf.DATA_PRECISION) {
+          decoder.setPrecision((int) value);
+        }
+        continue;
+      }
+      if (wireType != ProtobufWriter.LENGTH_DELIMITED) {
+        throw new IllegalArgumentException("Malformed geobuf: unexpected wire type " + wireType);
+      }
+      int length = readMessage();
+      reader.reset(buf, 0, length);
+      switch (field) {
+        case Geobuf.DATA_KEYS:
+          decoder.addKey(new String(buf, 0, length, StandardCharsets.UTF_8));
+          break;
+        case Geobuf.DATA_VALUES:
+          decoder.addValue(decoder.decodeValue(reader));
+          break;
+        case Geobuf.DATA_FEATURES:
+          return decoder.decode(reader);
+        default:
+          // 未知字段直接跳过
+      }
+    }
+  }
+
+  /**
+   * 读取一个length-delimited字段的内容到buf中，返回长度
+   */
+  private int readMessage() throws IOException {
+    long length = readVarint(false);
+    if (length < 0 || length > Integer.MAX_VALUE - 8) {
+      throw new IllegalArgumentException("Malformed geobuf: invalid message length " + length);
+    }
+    if (buf.length < length) {
+      buf = new byte[Math.max((int) length, buf.length * 2)];
+    }
+    int read = 0;
+    while (read < length) {
+      int n = in.read(buf, read, (int) length - read);
+      if (n < 0) {
+        throw new EOFException("Truncated geobuf message");
+      }
+      read += n;
+    }
+    return (int) length;
+  }
+
+  /**
+   * 从输入流中读取一个varint，eofAllowed为true时在流结束处返回-1
+   */
+  private long readVarint(boolean eofAllowed) throws IOException {
+    long value = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      int b = in.read();
+      if (b < 0) {
+        if (eofAllowed && shift == 0) {
+          return -1;
+        }
+        throw new EOFException("Truncated geobuf varint");
+      }
+      value |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IllegalArgumentException("Malformed geobuf: varint too long");
+  }
+}
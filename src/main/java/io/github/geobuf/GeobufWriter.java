@@ -0,0 +1,128 @@
+package io.github.geobuf;
+
+import com.google.gson.Gson;
+import io.github.geojson.Feature;
+import io.github.geojson.GeoJSON;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 以Geobuf格式逐个写出Feature，格式参见 {@link Geobuf}。
+ * <pre>
+ * try (GeobufWriter writer = new GeobufWriter(new FileOutputStream(file))) {
+ *   for (Feature feature : features) {
+ *     writer.write(feature);
+ *   }
+ * }
+ * </pre>
+ * 每个Feature写出前先写出它新用到的属性名和共享属性值，内存占用只与属性名和共享值表的大小有关。
+ */
+public class GeobufWriter implements Closeable, Flushable {
+  private final OutputStream out;
+  private final FeatureEncoder encoder;
+  private final int precision;
+  private final int dimensions;
+  private final ProtobufWriter buffer = new ProtobufWriter(1 << 16);
+  private final ProtobufWriter message = new ProtobufWriter();
+  private final ProtobufWriter valueMessage = new ProtobufWriter(32);
+  private boolean started;
+  private boolean closed;
+
+  public GeobufWriter(OutputStream out) {
+    this(out, Geobuf.DEFAULT_PRECISION);
+  }
+
+  /**
+   * @param out 输出的目标流。
+   * @param precision 坐标保留的小数位数，0到15之间
+   */
+  public GeobufWriter(OutputStream out, int precision) {
+    this(out, precision, Geobuf.DEFAULT_DIMENSIONS, Geobuf.DEFAULT_MAX_VALUES, GeoJSON.getGson());
+  }
+
+  /**
+   * @param out 输出的目标流。
+   * @param precision 坐标保留的小数位数，0到15之间
+   * @param dimensions 坐标维数，为3时写出z值（缺少z值时写出0）
+   * @param maxValues 共享属性值表的最大长度，超出后新出现的值保存在各自的Feature中
+   * @param gson 用于编码嵌套对象等非基本类型属性值的Gson配置
+   */
+  public GeobufWriter(OutputStream out, int precision, int dimensions, int maxValues, Gson gson) {
+    this.out = new BufferedOutputStream(out);
+    this.encoder = new FeatureEncoder(precision, dimensions, maxValues, gson);
+    this.precision = precision;
+    this.dimensions = dimensions;
+  }
+
+  /**
+   * 写出一个Feature
+   */
+  public void write(Feature feature) throws IOException {
+    if (closed) {
+      throw new IOException("GeobufWriter is closed");
+    }
+    begin();
+    message.reset();
+    encoder.encode(feature, message);
+    for (String key : encoder.pendingKeys()) {
+      buffer.stringField(Geobuf.DATA_KEYS, key);
+    }
+    encoder.pendingKeys().clear();
+    for (Object value : encoder.pendingValues()) {
+      valueMessage.reset();
+      encoder.encodeValue(value, valueMessage);
+      buffer.message(Geobuf.DATA_VALUES, valueMessage);
+    }
+    encoder.pendingValues().clear();
+    buffer.message(Geobuf.DATA_FEATURES, message);
+    if (buffer.size() >= 1 << 16) {
+      buffer.writeTo(out);
+      buffer.reset();
+    }
+  }
+
+  /**
+   * 依次写出多个Feature
+   */
+  public void writeAll(Iterable<Feature> features) throws IOException {
+    for (Feature feature : features) {
+      write(feature);
+    }
+  }
+
+  @Override public void flush() throws IOException {
+    if (closed) {
+      return;
+    }
+    buffer.writeTo(out);
+    buffer.reset();
+    out.flush();
+  }
+
+  /**
+   * 写出剩余的内容并关闭输出流，重复调用无效
+   */
+  @Override public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    begin();
+    flush();
+    closed = true;
+    out.close();
+  }
+
+  private void begin() {
+    if (started) {
+      return;
+    }
+    started = true;
+    if (dimensions != Geobuf.DEFAULT_DIMENSIONS) {
+      buffer.varintField(Geobuf.DATA_DIMENSIONS, dimensions);
+    }
+    buffer.varintField(Geobuf.DATA_PRECISION, precision);
+  }
+}
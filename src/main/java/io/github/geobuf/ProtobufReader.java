@@ -0,0 +1,149 @@
+package io.github.geobuf;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 从字节数组中按protobuf编码格式读取字段。
+ * 嵌套消息和packed字段通过 {@link #pushLimit(int)}/{@link #popLimit(int)} 限制读取范围。
+ */
+final class ProtobufReader {
+  private byte[] buf;
+  private int pos;
+  private int limit;
+
+  ProtobufReader() {
+  }
+
+  ProtobufReader(byte[] buf, int offset, int length) {
+    reset(buf, offset, length);
+  }
+
+  void reset(byte[] buf, int offset, int length) {
+    this.buf = buf;
+    this.pos = offset;
+    this.limit = offset + length;
+  }
+
+  /**
+   * 当前范围内是否还有未读取的字段
+   */
+  boolean hasNext() {
+    return pos < limit;
+  }
+
+  int position() {
+    return pos;
+  }
+
+  /**
+   * 读取字段标签，字段号为 {@code tag >>> 3}，wire type为 {@code tag & 7}
+   */
+  int tag() {
+    return (int) varint();
+  }
+
+  long varint() {
+    long value = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      if (pos >= limit) {
+        throw new IllegalArgumentException("Malformed geobuf: truncated varint");
+      }
+      byte b = buf[pos++];
+      value |= (long) (b & 0x7F) << shift;
+      if (b >= 0) {
+        return value;
+      }
+    }
+    throw new IllegalArgumentException("Malformed geobuf: varint too long");
+  }
+
+  long sint() {
+    long value = varint();
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  long fixed64() {
+    check(8);
+    long value = 0;
+    for (int i = 0; i < 8; i++) {
+      value |= (buf[pos++] & 0xFFL) << (i * 8);
+    }
+    return value;
+  }
+
+  int fixed32() {
+    check(4);
+    int value = 0;
+    for (int i = 0; i < 4; i++) {
+      value |= (buf[pos++] & 0xFF) << (i * 8);
+    }
+    return value;
+  }
+
+  double readDouble() {
+    return Double.longBitsToDouble(fixed64());
+  }
+
+  String string() {
+    int length = length();
+    String value = new String(buf, pos, length, StandardCharsets.UTF_8);
+    pos += length;
+    return value;
+  }
+
+  /**
+   * 读取length-delimited字段的长度并检查范围
+   */
+  int length() {
+    long length = varint();
+    if (length < 0 || length > limit - pos) {
+      throw new IllegalArgumentException("Malformed geobuf: length " + length + " exceeds message");
+    }
+    return (int) length;
+  }
+
+  /**
+   * 把读取范围限制为之后的length个字节，返回原来的范围，读取完后传给 {@link #popLimit(int)}
+   */
+  int pushLimit(int length) {
+    int previous = limit;
+    limit = pos + length;
+    return previous;
+  }
+
+  void popLimit(int previous) {
+    pos = limit;
+    limit = previous;
+  }
+
+  /**
+   * 跳过一个不需要的字段的值
+   */
+  void skip(int tag) {
+    switch (tag & 7) {
+      case ProtobufWriter.VARINT:
+        varint();
+        break;
+      case ProtobufWriter.FIXED64:
+        check(8);
+        pos += 8;
+        break;
+      case ProtobufWriter.LENGTH_DELIMITED:
+        int length = length();
+        pos += length;
+        break;
+      case ProtobufWriter.FIXED32:
+        check(4);
+        pos += 4;
+        break;
+      default:
+        throw new IllegalArgumentException("Malformed geobuf: unsupported wire type " + (tag & 7));
+    }
+  }
+
+  private void check(int length) {
+    if (limit - pos < length) {
+      throw new IllegalArgumentException("Malformed geobuf: truncated message");
+    }
+  }
+}
@@ -0,0 +1,123 @@
+package io.github.geobuf;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 按protobuf编码格式写入字节的可增长缓冲区，只实现了Geobuf用到的wire type。
+ * 嵌套消息和packed字段先写入另一个缓冲区，再通过 {@link #message(int, ProtobufWriter)} 带长度写入。
+ */
+final class ProtobufWriter {
+  static final int VARINT = 0;
+  static final int FIXED64 = 1;
+  static final int LENGTH_DELIMITED = 2;
+  static final int FIXED32 = 5;
+
+  private byte[] buf;
+  private int size;
+
+  ProtobufWriter() {
+    this(256);
+  }
+
+  ProtobufWriter(int capacity) {
+    this.buf = new byte[capacity];
+  }
+
+  void reset() {
+    size = 0;
+  }
+
+  int size() {
+    return size;
+  }
+
+  byte[] toByteArray() {
+    return Arrays.copyOf(buf, size);
+  }
+
+  void writeTo(OutputStream out) throws IOException {
+    out.write(buf, 0, size);
+  }
+
+  void tag(int field, int wireType) {
+    varint(((long) field << 3) | wireType);
+  }
+
+  void varint(long value) {
+    ensure(10);
+    while ((value & ~0x7FL) != 0) {
+      buf[size++] = (byte) ((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    buf[size++] = (byte) value;
+  }
+
+  /**
+   * zigzag编码的有符号整数
+   */
+  void sint(long value) {
+    varint((value << 1) ^ (value >> 63));
+  }
+
+  void fixed64(long value) {
+    ensure(8);
+    for (int i = 0; i < 8; i++) {
+      buf[size++] = (byte) value;
+      value >>>= 8;
+    }
+  }
+
+  void fixed32(int value) {
+    ensure(4);
+    for (int i = 0; i < 4; i++) {
+      buf[size++] = (byte) value;
+      value >>>= 8;
+    }
+  }
+
+  void bytes(byte[] bytes, int offset, int length) {
+    ensure(length);
+    System.arraycopy(bytes, offset, buf, size, length);
+    size += length;
+  }
+
+  void varintField(int field, long value) {
+    tag(field, VARINT);
+    varint(value);
+  }
+
+  void sintField(int field, long value) {
+    tag(field, VARINT);
+    sint(value);
+  }
+
+  void doubleField(int field, double value) {
+    tag(field, FIXED64);
+    fixed64(Double.doubleToLongBits(value));
+  }
+
+  void stringField(int field, String value) {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    tag(field, LENGTH_DELIMITED);
+    varint(bytes.length);
+    bytes(bytes, 0, bytes.length);
+  }
+
+  /**
+   * 写入一个嵌套消息或packed字段，内容为message中已写入的字节
+   */
+  void message(int field, ProtobufWriter message) {
+    tag(field, LENGTH_DELIMITED);
+    varint(message.size);
+    bytes(message.buf, 0, message.size);
+  }
+
+  private void ensure(int length) {
+    if (size + length > buf.length) {
+      buf = Arrays.copyOf(buf, Math.max(buf.length * 2, size + length));
+    }
+  }
+}
@@ -10,12 +10,10 @@ package io.github.geohash;
 
 import java.io.Serializable;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
 import io.github.geom.Geom;
-import org.locationtech.jts.geom.Geometry;
 import org.locationtech.jts.geom.Point;
 import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.geom.Polygon;
@@ -78,34 +76,14 @@ public final class GeoHash implements Comparable<GeoHash>, Serializable {
 		return new GeoHash(latitude, longitude, numberOfBits);
 	}
 
+	/**
+	 * returns every geohash of the given length sharing area with the polygon, cells that only touch its boundary are
+	 * left out.
+	 *
+	 * @see GeoHashCoverer
+	 */
 	public static Set<String> geoHashesPolygon(Polygon polygon, int hashLength){
-		Envelope envelope = polygon.getEnvelopeInternal();
-		Set<String> set = new HashSet<>();
-		double southLat = envelope.getMinY();
-		double northLat = envelope.getMaxY();
-		double westLon = envelope.getMinX();
-		double eastLon = envelope.getMaxX();
-		String rowHash = encode(southLat,westLon, hashLength);
-		Envelope rowBox = decode(rowHash).envelope;
-		while(rowBox.getMinY() < northLat){
-			String columnHash = rowHash;
-			Envelope columnBox = rowBox;
-			while (isWest(columnBox.getMinX(), eastLon)){
-				Geometry geoHashEvp = Geom.polygon(columnBox.getMinX(),columnBox.getMinY(),columnBox.getMaxX(),columnBox.getMinY(),columnBox.getMaxX(),columnBox.getMaxY(),columnBox.getMinX(),columnBox.getMaxY(),columnBox.getMinX(),columnBox.getMinY());
-				if(polygon.intersects(geoHashEvp)){
-					set.add(columnHash);
-				}
-				// move column east
-				GeoHash column = decode(columnHash).getEasternNeighbour();
-				columnHash = column.toBase32();
-				columnBox = column.envelope;
-			}
-			// move row north
-			GeoHash row = decode(rowHash).getNorthernNeighbour();
-			rowHash = row.toBase32();
-			rowBox = row.envelope;
-		}
-		return set;
+		return GeoHashCoverer.cover(polygon, hashLength).toBase32();
 	}
 
 	public static GeoHash decodeBinary(String binaryString) {
@@ -231,16 +209,6 @@ public final class GeoHash implements Comparable<GeoHash>, Serializable {
 		}
 	}
 
-	private static boolean isWest(double lon1, double lon2){
-		double ll1 = lon1 + 180;
-		double ll2 = lon2 + 180;
-		if(ll1 < ll2 && (ll2 - ll1)<180){
-			return true;
-		}else{
-			return (ll1>ll2 && (ll2 + 360 - ll1)<180);
-		}
-	}
-
 	private static String padLeft(String s, int n, String pad) {
 		return String.format("%" + n + "s", s).replace(" ", pad);
 	}
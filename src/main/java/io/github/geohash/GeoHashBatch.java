@@ -0,0 +1,229 @@
+package io.github.geohash;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Encodes geohashes for whole arrays of points, e.g. a batch of GPS fixes.
+ * <p>
+ * Points are read from primitive arrays, either separate latitude and longitude arrays or interleaved longitude,
+ * latitude pairs (the x,y order of GeoJSON and packed coordinate sequences), and written as {@link LongGeoHash} longs
+ * or as base32 ASCII characters packed back to back in a byte array, {@code length} bytes per point. Nothing is
+ * allocated per point. Batches larger than {@value #SEQUENTIAL_THRESHOLD} points are split into ranges encoded in
+ * parallel on a fork-join pool, by default the common pool.
+ * </p>
+ */
+public final class GeoHashBatch {
+    /**
+     * batches up to this size are encoded in the calling thread
+     */
+    static final int SEQUENTIAL_THRESHOLD = 8192;
+
+    private static final byte[] BASE32_BYTES = "0123456789bcdefghjkmnpqrstuvwxyz".getBytes(StandardCharsets.US_ASCII);
+
+    private GeoHashBatch() {
+    }
+
+    /**
+     * @see #encode(double[], double[], int, long[], ForkJoinPool)
+     */
+    public static long[] encode(double[] lats, double[] lons, int length, long[] hashes) {
+        return encode(lats, lons, length, hashes, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Encodes {@code lats.length} points into hashes.
+     *
+     * @param lats latitudes
+     * @param lons longitudes, same length as lats
+     * @param length length in characters (1 to 12)
+     * @param hashes receives the hashes, at least as long as lats
+     * @param pool pool used for large batches
+     * @return hashes
+     */
+    public static long[] encode(final double[] lats, final double[] lons, int length, final long[] hashes,
+            ForkJoinPool pool) {
+        LongGeoHash.checkLength(length);
+        int count = lats.length;
+        checkSize(lons.length, count, "lons");
+        checkSize(hashes.length, count, "hashes");
+        final int shift = 64 - 5 * length;
+        final long len = length;
+        run(count, pool, new Range() {
+            @Override
+            public void encode(int from, int to) {
+                for (int i = from; i < to; i++) {
+                    long morton = LongGeoHash.interleave(LongGeoHash.quantize(lats[i], 90),
+                            LongGeoHash.quantize(lons[i], 180));
+                    hashes[i] = ((morton >>> shift) << LongGeoHash.LENGTH_BITS) | len;
+                }
+            }
+        });
+        return hashes;
+    }
+
+    /**
+     * @see #encodeInterleaved(double[], int, long[], ForkJoinPool)
+     */
+    public static long[] encodeInterleaved(double[] lonLats, int length, long[] hashes) {
+        return encodeInterleaved(lonLats, length, hashes, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Encodes {@code lonLats.length / 2} points into hashes.
+     *
+     * @param lonLats longitude, latitude pairs
+     * @param length length in characters (1 to 12)
+     * @param hashes receives the hashes, at least {@code lonLats.length / 2} long
+     * @param pool pool used for large batches
+     * @return hashes
+     */
+    public static long[] encodeInterleaved(final double[] lonLats, int length, final long[] hashes,
+            ForkJoinPool pool) {
+        LongGeoHash.checkLength(length);
+        int count = lonLats.length / 2;
+        checkSize(hashes.length, count, "hashes");
+        final int shift = 64 - 5 * length;
+        final long len = length;
+        run(count, pool, new Range() {
+            @Override
+            public void encode(int from, int to) {
+                for (int i = from; i < to; i++) {
+                    long morton = LongGeoHash.interleave(LongGeoHash.quantize(lonLats[2 * i + 1], 90),
+                            LongGeoHash.quantize(lonLats[2 * i], 180));
+                    hashes[i] = ((morton >>> shift) << LongGeoHash.LENGTH_BITS) | len;
+                }
+            }
+        });
+        return hashes;
+    }
+
+    /**
+     * @see #encodeBase32(double[], double[], int, byte[], ForkJoinPool)
+     */
+    public static byte[] encodeBase32(double[] lats, double[] lons, int length, byte[] chars) {
+        return encodeBase32(lats, lons, length, chars, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Encodes {@code lats.length} points into base32 characters, the geohash of point i occupies bytes
+     * {@code [i * length, (i + 1) * length)}.
+     *
+     * @param lats latitudes
+     * @param lons longitudes, same length as lats
+     * @param length length in characters (1 to 12)
+     * @param chars receives the characters, at least {@code lats.length * length} long
+     * @param pool pool used for large batches
+     * @return chars
+     */
+    public static byte[] encodeBase32(final double[] lats, final double[] lons, final int length, final byte[] chars,
+            ForkJoinPool pool) {
+        LongGeoHash.checkLength(length);
+        int count = lats.length;
+        checkSize(lons.length, count, "lons");
+        checkSize(chars.length / length, count, "chars");
+        final int shift = 64 - 5 * length;
+        run(count, pool, new Range() {
+            @Override
+            public void encode(int from, int to) {
+                for (int i = from; i < to; i++) {
+                    long morton = LongGeoHash.interleave(LongGeoHash.quantize(lats[i], 90),
+                            LongGeoHash.quantize(lons[i], 180));
+                    writeBase32(morton >>> shift, length, chars, i * length);
+                }
+            }
+        });
+        return chars;
+    }
+
+    /**
+     * @see #encodeBase32Interleaved(double[], int, byte[], ForkJoinPool)
+     */
+    public static byte[] encodeBase32Interleaved(double[] lonLats, int length, byte[] chars) {
+        return encodeBase32Interleaved(lonLats, length, chars, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Encodes {@code lonLats.length / 2} points into base32 characters, the geohash of point i occupies bytes
+     * {@code [i * length, (i + 1) * length)}.
+     *
+     * @param lonLats longitude, latitude pairs
+     * @param length length in characters (1 to 12)
+     * @param chars receives the characters, at least {@code lonLats.length / 2 * length} long
+     * @param pool pool used for large batches
+     * @return chars
+     */
+    public static byte[] encodeBase32Interleaved(final double[] lonLats, final int length, final byte[] chars,
+            ForkJoinPool pool) {
+        LongGeoHash.checkLength(length);
+        int count = lonLats.length / 2;
+        checkSize(chars.length / length, count, "chars");
+        final int shift = 64 - 5 * length;
+        run(count, pool, new Range() {
+            @Override
+            public void encode(int from, int to) {
+                for (int i = from; i < to; i++) {
+                    long morton = LongGeoHash.interleave(LongGeoHash.quantize(lonLats[2 * i + 1], 90),
+                            LongGeoHash.quantize(lonLats[2 * i], 180));
+                    writeBase32(morton >>> shift, length, chars, i * length);
+                }
+            }
+        });
+        return chars;
+    }
+
+    private static void writeBase32(long bits, int length, byte[] chars, int offset) {
+        for (int i = offset + length - 1; i >= offset; i--) {
+            chars[i] = BASE32_BYTES[(int) (bits & 31)];
+            bits >>>= 5;
+        }
+    }
+
+    private static void checkSize(int size, int count, String name) {
+        if (size < count) {
+            throw new IllegalArgumentException(name + " is too small for " + count + " points");
+        }
+    }
+
+    private static void run(int count, ForkJoinPool pool, Range range) {
+        if (count <= SEQUENTIAL_THRESHOLD || pool.getParallelism() == 1) {
+            range.encode(0, count);
+        } else {
+            pool.invoke(new Split(range, 0, count));
+        }
+    }
+
+    /**
+     * Encodes the points in [from, to).
+     */
+    private interface Range {
+        void encode(int from, int to);
+    }
+
+    /**
+     * Halves the range until it is small enough to encode in one task.
+     */
+    private static final class Split extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final transient Range range;
+        private final int from;
+        private final int to;
+
+        Split(Range range, int from, int to) {
+            this.range = range;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                range.encode(from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new Split(range, from, mid), new Split(range, mid, to));
+        }
+    }
+}
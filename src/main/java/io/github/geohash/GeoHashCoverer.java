@@ -0,0 +1,298 @@
+package io.github.geohash;
+
+import io.github.geom.Geom;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.Polygonal;
+import org.locationtech.jts.geom.prep.PreparedGeometry;
+import org.locationtech.jts.geom.prep.PreparedGeometryFactory;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Covers a geometry with geohash cells of mixed length.
+ * <p>
+ * Cells are subdivided top down, starting from the smallest cell containing the geometry's envelope, and each cell
+ * is tested once against a {@link PreparedGeometry}: cells outside the geometry are dropped, as are cells that only
+ * touch a polygonal geometry along an edge or at a corner, cells covered by it are emitted as interior cells at the
+ * shortest length allowed, and only cells crossing its boundary are refined, up to the maximum length. Interior cells
+ * shorter than the minimum length are expanded to all their descendants without further tests.
+ * </p>
+ * <p>
+ * The number of cells is kept under the maximum by refining boundary cells level by level and stopping, leaving the
+ * remaining boundary cells at their current length, as soon as refining the next one would exceed it. The minimum
+ * length takes precedence, so a covering may exceed the maximum when the minimum length requires it. With equal
+ * minimum and maximum lengths and no cell limit the covering is every cell of that length sharing area with a
+ * polygonal geometry, or intersecting any other geometry.
+ * </p>
+ * Instances are immutable and can be shared between threads.
+ */
+public final class GeoHashCoverer {
+    private final int minLength;
+    private final int maxLength;
+    private final int maxCells;
+
+    /**
+     * @param minLength shortest cells emitted, 1 to 12
+     * @param maxLength longest cells emitted, minLength to 12
+     * @param maxCells maximum number of cells, {@link Integer#MAX_VALUE} for no limit
+     */
+    public GeoHashCoverer(int minLength, int maxLength, int maxCells) {
+        LongGeoHash.checkLength(minLength);
+        LongGeoHash.checkLength(maxLength);
+        if (minLength > maxLength) {
+            throw new IllegalArgumentException("minLength must not be greater than maxLength");
+        }
+        if (maxCells < 1) {
+            throw new IllegalArgumentException("maxCells must be positive: " + maxCells);
+        }
+        this.minLength = minLength;
+        this.maxLength = maxLength;
+        this.maxCells = maxCells;
+    }
+
+    /**
+     * Returns every cell of the given length sharing area with a polygonal geometry, or intersecting any other
+     * geometry.
+     */
+    public static Covering cover(Geometry geometry, int length) {
+        return new GeoHashCoverer(length, length, Integer.MAX_VALUE).cover(geometry);
+    }
+
+    public Covering cover(Geometry geometry) {
+        Covering covering = new Covering();
+        if (geometry == null || geometry.isEmpty()) {
+            return covering;
+        }
+        PreparedGeometry prepared = PreparedGeometryFactory.prepare(geometry);
+        boolean polygonal = geometry instanceof Polygonal;
+        double[] bbox = new double[4];
+        long[] frontier = new long[32];
+        int frontierSize = 0;
+        int rootLength = rootLength(geometry.getEnvelopeInternal());
+        if (rootLength == 0) {
+            for (int c = 0; c < 32; c++) {
+                frontier[frontierSize++] = LongGeoHash.pack(c, 1);
+            }
+        } else {
+            Envelope envelope = geometry.getEnvelopeInternal();
+            frontier[frontierSize++] = LongGeoHash.encode(envelope.getMinY(), envelope.getMinX(), rootLength);
+        }
+        int kept = 0;
+        for (int i = 0; i < frontierSize; i++) {
+            long hash = frontier[i];
+            int relation = classify(prepared, polygonal, hash, bbox);
+            if (relation == INTERIOR) {
+                emitInterior(covering, hash);
+            } else if (relation == BOUNDARY) {
+                frontier[kept++] = hash;
+            }
+        }
+        frontierSize = kept;
+
+        long[] next = new long[64];
+        for (int length = Math.max(rootLength, 1); frontierSize > 0 && length < maxLength; length++) {
+            int nextSize = 0;
+            int i = 0;
+            for (; i < frontierSize; i++) {
+                long hash = frontier[i];
+                int childLength = length + 1;
+                long childBits = LongGeoHash.bits(hash) << 5;
+                int interiorCount = 0;
+                int boundaryStart = nextSize;
+                long interiorMask = 0;
+                if (next.length < nextSize + 32) {
+                    next = Arrays.copyOf(next, Math.max(next.length * 2, nextSize + 32));
+                }
+                for (int c = 0; c < 32; c++) {
+                    long child = LongGeoHash.pack(childBits | c, childLength);
+                    int relation = classify(prepared, polygonal, child, bbox);
+                    if (relation == INTERIOR) {
+                        interiorMask |= 1L << c;
+                        interiorCount++;
+                    } else if (relation == BOUNDARY) {
+                        next[nextSize++] = child;
+                    }
+                }
+                // refining replaces the cell by its children, stop once that would exceed the limit
+                int children = interiorCount + nextSize - boundaryStart;
+                if (length >= minLength && children > 1
+                        && (long) covering.size + (frontierSize - i - 1) + nextSize + interiorCount > maxCells) {
+                    nextSize = boundaryStart;
+                    break;
+                }
+                for (int c = 0; c < 32; c++) {
+                    if ((interiorMask & (1L << c)) != 0) {
+                        emitInterior(covering, LongGeoHash.pack(childBits | c, childLength));
+                    }
+                }
+            }
+            if (i < frontierSize) {
+                // the cells not refined are emitted as boundary cells at their current length
+                for (; i < frontierSize; i++) {
+                    covering.add(frontier[i], false);
+                }
+                for (int j = 0; j < nextSize; j++) {
+                    covering.add(next[j], false);
+                }
+                return covering;
+            }
+            long[] swap = frontier;
+            frontier = next;
+            next = swap;
+            frontierSize = nextSize;
+        }
+        for (int i = 0; i < frontierSize; i++) {
+            covering.add(frontier[i], false);
+        }
+        return covering;
+    }
+
+    private static final int OUTSIDE = 0;
+    private static final int BOUNDARY = 1;
+    private static final int INTERIOR = 2;
+
+    /**
+     * Fraction of a cell's width and height trimmed from each side before testing it against a polygonal geometry,
+     * large enough to stay above the rounding error of the cell bounds at length 12.
+     */
+    private static final double SHRINK = 1e-6;
+
+    /**
+     * A cell sharing only an edge or a corner with a polygonal geometry has no area in common with it and is outside.
+     * Rather than a {@code touches} test, which is not prepared and relates the whole geometry for every cell, the
+     * intersection test is run against the cell shrunk by {@link #SHRINK} on each side, so slivers thinner than that
+     * are dropped as well.
+     */
+    private static int classify(PreparedGeometry prepared, boolean polygonal, long hash, double[] bbox) {
+        LongGeoHash.decode(hash, bbox);
+        Envelope cell = new Envelope(bbox[0], bbox[2], bbox[1], bbox[3]);
+        if (!prepared.getGeometry().getEnvelopeInternal().intersects(cell)) {
+            return OUTSIDE;
+        }
+        Geometry polygon = Geom.factory.toGeometry(cell);
+        if (prepared.covers(polygon)) {
+            return INTERIOR;
+        }
+        if (polygonal) {
+            double dx = cell.getWidth() * SHRINK;
+            double dy = cell.getHeight() * SHRINK;
+            polygon = Geom.factory.toGeometry(
+                    new Envelope(bbox[0] + dx, bbox[2] - dx, bbox[1] + dy, bbox[3] - dy));
+        }
+        return prepared.intersects(polygon) ? BOUNDARY : OUTSIDE;
+    }
+
+    /**
+     * Emits an interior cell, expanding it to all its descendants of the minimum length when it is shorter.
+     */
+    private void emitInterior(Covering covering, long hash) {
+        int length = LongGeoHash.length(hash);
+        if (length >= minLength) {
+            covering.add(hash, true);
+            return;
+        }
+        int shift = 5 * (minLength - length);
+        long first = LongGeoHash.bits(hash) << shift;
+        long count = 1L << shift;
+        for (long c = 0; c < count; c++) {
+            covering.add(LongGeoHash.pack(first | c, minLength), true);
+        }
+    }
+
+    /**
+     * Length of the longest cell containing the whole envelope, 0 if no cell does.
+     */
+    private int rootLength(Envelope envelope) {
+        long sw = LongGeoHash.bits(LongGeoHash.encode(envelope.getMinY(), envelope.getMinX(), LongGeoHash.MAX_LENGTH));
+        long ne = LongGeoHash.bits(LongGeoHash.encode(envelope.getMaxY(), envelope.getMaxX(), LongGeoHash.MAX_LENGTH));
+        // once left aligned, the leading zeros of the difference are the common prefix bits
+        int common = Long.numberOfLeadingZeros((sw ^ ne) << 4) / 5;
+        return Math.min(Math.min(common, LongGeoHash.MAX_LENGTH), maxLength);
+    }
+
+    /**
+     * Cells of a covering in the order they were produced, each either interior (inside the geometry) or boundary
+     * (crossing its boundary).
+     */
+    public static final class Covering {
+        private long[] hashes = new long[64];
+        private long[] interior = new long[1];
+        private int size;
+
+        Covering() {
+        }
+
+        void add(long hash, boolean isInterior) {
+            if (size == hashes.length) {
+                hashes = Arrays.copyOf(hashes, size * 2);
+            }
+            if ((size >> 6) >= interior.length) {
+                interior = Arrays.copyOf(interior, interior.length * 2);
+            }
+            if (isInterior) {
+                interior[size >> 6] |= 1L << size;
+            }
+            hashes[size++] = hash;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        /**
+         * @return the {@link LongGeoHash} of cell i
+         */
+        public long getHash(int i) {
+            checkIndex(i);
+            return hashes[i];
+        }
+
+        /**
+         * @return true if cell i lies inside the geometry, false if it crosses its boundary
+         */
+        public boolean isInterior(int i) {
+            checkIndex(i);
+            return (interior[i >> 6] & (1L << i)) != 0;
+        }
+
+        /**
+         * @return a copy of all cells as {@link LongGeoHash} longs
+         */
+        public long[] getHashes() {
+            return Arrays.copyOf(hashes, size);
+        }
+
+        /**
+         * @return the base32 strings of all cells
+         */
+        public Set<String> toBase32() {
+            Set<String> set = new LinkedHashSet<>();
+            for (int i = 0; i < size; i++) {
+                set.add(LongGeoHash.toBase32(hashes[i]));
+            }
+            return set;
+        }
+
+        /**
+         * @return the base32 strings of the cells of one kind
+         */
+        public Set<String> toBase32(boolean interior) {
+            Set<String> set = new LinkedHashSet<>();
+            for (int i = 0; i < size; i++) {
+                if (isInterior(i) == interior) {
+                    set.add(LongGeoHash.toBase32(hashes[i]));
+                }
+            }
+            return set;
+        }
+
+        private void checkIndex(int i) {
+            if (i < 0 || i >= size) {
+                throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size);
+            }
+        }
+    }
+}
@@ -399,31 +399,14 @@ public class GeoHashUtils {
         return geoHashesPolygon(geom, hashLength);
     }
 
+    /**
+     * @param polygon polygon
+     * @param hashLength length in characters (1 to 12)
+     * @return every geo hash of the given length sharing area with the polygon, cells that only touch its boundary
+     *         are left out
+     * @see GeoHashCoverer
+     */
     public static Set<String> geoHashesPolygon(Polygon polygon, int hashLength){
-        Envelope envelope = polygon.getEnvelopeInternal();
-        Set<String> set = new HashSet<>();
-        double southLat = envelope.getMinY();
-        double northLat = envelope.getMaxY();
-        double westLon = envelope.getMinX();
-        double eastLon = envelope.getMaxX();
-        String rowHash = encode(southLat,westLon, hashLength);
-        double[] rowBox = decodeBbox(rowHash);
-        while(rowBox[1] < northLat){
-            String columnHash = rowHash;
-            double[] columnBox = rowBox;
-            while (isWest(columnBox[0], eastLon)){
-                Geometry geoHashEvp = Geom.polygon(columnBox[0],columnBox[1],columnBox[2],columnBox[1],columnBox[2],columnBox[3],columnBox[0],columnBox[3],columnBox[0],columnBox[1]);
-                if(polygon.intersects(geoHashEvp)){
-                    set.add(columnHash);
-                }
-                // move column east
-                columnHash = east(columnHash);
-                columnBox = decodeBbox(columnHash);
-            }
-            // move row north
-            rowHash = north(rowHash);
-            rowBox = decodeBbox(rowHash);
-        }
-        return set;
+        return GeoHashCoverer.cover(polygon, hashLength).toBase32();
     }
 }
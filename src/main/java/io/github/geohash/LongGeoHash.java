@@ -0,0 +1,385 @@
+package io.github.geohash;
+
+import java.util.Arrays;
+
+/**
+ * Allocation free geohash codec working on primitive longs.
+ * <p>
+ * A hash is stored in a single long: the interleaved longitude/latitude bits of the geohash, right aligned, shifted
+ * left by 4, with the number of base32 characters (1 to 12) in the low 4 bits. A hash therefore carries its own
+ * precision, and hashes of the same length sort like their base32 strings as unsigned longs.
+ * </p>
+ * <p>
+ * Encoding quantizes latitude and longitude to 32 bit integers and interleaves them with shift/mask bit spreading
+ * (Morton order) instead of bisecting the ranges one bit at a time. Decoding reverses the interleave and writes the
+ * bounding box into a caller supplied array. Base32 characters are looked up in a 256 entry table; upper case
+ * characters are accepted.
+ * </p>
+ * <p>
+ * Neighbours are computed on the interleaved bits directly: the longitude and latitude bits are treated as dilated
+ * integers, and adding to one of them fills the other's bit positions with ones so the carry skips over them. Longitude
+ * wraps around the antimeridian; there are no neighbours beyond the poles.
+ * </p>
+ */
+public final class LongGeoHash {
+    /**
+     * maximum number of base32 characters, 60 bits
+     */
+    public static final int MAX_LENGTH = 12;
+    /**
+     * returned for neighbours beyond the poles, not a valid hash since its length would be 15
+     */
+    public static final long NO_NEIGHBOR = -1L;
+
+    static final int LENGTH_BITS = 4;
+    private static final long LENGTH_MASK = (1L << LENGTH_BITS) - 1;
+    private static final double QUANTIZATION = 1L << 32;
+    private static final long MAX_QUANTIZED = (1L << 32) - 1;
+    private static final long EVEN_BITS = 0x5555555555555555L;
+    private static final long ODD_BITS = 0xAAAAAAAAAAAAAAAAL;
+
+    private static final char[] BASE32_CHARS = { '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'b', 'c', 'd', 'e',
+            'f', 'g', 'h', 'j', 'k', 'm', 'n', 'p', 'q', 'r', 's', 't', 'u', 'v', 'w', 'x', 'y', 'z' };
+    /**
+     * character -> 5 bit value, -1 for characters that are not base32
+     */
+    private static final byte[] BASE32_DECODE = new byte[256];
+
+    static {
+        Arrays.fill(BASE32_DECODE, (byte) -1);
+        for (int i = 0; i < BASE32_CHARS.length; i++) {
+            BASE32_DECODE[BASE32_CHARS[i]] = (byte) i;
+            BASE32_DECODE[Character.toUpperCase(BASE32_CHARS[i])] = (byte) i;
+        }
+    }
+
+    private LongGeoHash() {
+    }
+
+    /**
+     * @param latitude latitude, clamped to [-90, 90]
+     * @param longitude longitude, clamped to [-180, 180]
+     * @param length length in characters (1 to 12)
+     * @return the hash of the cell containing the point
+     */
+    public static long encode(double latitude, double longitude, int length) {
+        checkLength(length);
+        long morton = interleave(quantize(latitude, 90), quantize(longitude, 180));
+        return pack(morton >>> (64 - 5 * length), length);
+    }
+
+    /**
+     * Parses a base32 geohash.
+     *
+     * @throws IllegalArgumentException if the length is not between 1 and 12 or a character is not base32
+     */
+    public static long fromBase32(CharSequence geoHash) {
+        int length = geoHash.length();
+        checkLength(length);
+        long bits = 0;
+        for (int i = 0; i < length; i++) {
+            char c = geoHash.charAt(i);
+            int value = c < 256 ? BASE32_DECODE[c] : -1;
+            if (value < 0) {
+                throw new IllegalArgumentException("not a base32 character: " + c);
+            }
+            bits = (bits << 5) | value;
+        }
+        return pack(bits, length);
+    }
+
+    /**
+     * @return the base32 string of the hash
+     */
+    public static String toBase32(long hash) {
+        char[] chars = new char[MAX_LENGTH];
+        return new String(chars, 0, toBase32(hash, chars, 0));
+    }
+
+    /**
+     * Writes the base32 characters of the hash into a char array.
+     *
+     * @return the number of characters written
+     */
+    public static int toBase32(long hash, char[] dest, int offset) {
+        int length = length(hash);
+        long bits = bits(hash);
+        for (int i = length - 1; i >= 0; i--) {
+            dest[offset + i] = BASE32_CHARS[(int) (bits & 31)];
+            bits >>>= 5;
+        }
+        return length;
+    }
+
+    /**
+     * Decodes the bounding box of a hash.
+     *
+     * @param bbox array of at least 4 elements receiving [west longitude, south latitude, east longitude, north
+     *             latitude], the same order as {@link GeoHashUtils#decodeBbox(String)}
+     * @return bbox
+     */
+    public static double[] decode(long hash, double[] bbox) {
+        int length = length(hash);
+        int numberOfBits = 5 * length;
+        long morton = bits(hash) << (64 - numberOfBits);
+        long lon = compact(morton >>> 1);
+        long lat = compact(morton);
+        int lonBits = (numberOfBits + 1) / 2;
+        int latBits = numberOfBits / 2;
+        bbox[0] = lon * (360 / QUANTIZATION) - 180;
+        bbox[1] = lat * (180 / QUANTIZATION) - 90;
+        bbox[2] = bbox[0] + 360.0 / (1L << lonBits);
+        bbox[3] = bbox[1] + 180.0 / (1L << latBits);
+        return bbox;
+    }
+
+    /**
+     * Decodes the bounding box of a base32 geohash without creating any object.
+     *
+     * @see #decode(long, double[])
+     */
+    public static double[] decode(CharSequence geoHash, double[] bbox) {
+        return decode(fromBase32(geoHash), bbox);
+    }
+
+    /**
+     * Returns the cell at the given offset in cells from a hash, of the same length.
+     *
+     * @param dLon number of cells to the east, negative to the west
+     * @param dLat number of cells to the north, negative to the south
+     * @return the hash of the cell, or {@link #NO_NEIGHBOR} if it is beyond a pole
+     */
+    public static long neighbor(long hash, int dLon, int dLat) {
+        int length = length(hash);
+        int numberOfBits = 5 * length;
+        long bits = bits(hash);
+        long lonMask = lonMask(numberOfBits);
+        long latMask = lowBits(numberOfBits) & ~lonMask;
+        long row = row(bits, latMask) + dLat;
+        if (row < 0 || row >= 1L << (numberOfBits / 2)) {
+            return NO_NEIGHBOR;
+        }
+        return pack(add(add(bits, latMask, dLat), lonMask, dLon), length);
+    }
+
+    /**
+     * Writes the 8 adjacent cells of a hash in the order of {@link GeoHash#getAdjacent()}: N, NE, E, SE, S, SW, W,
+     * NW. Cells beyond a pole are {@link #NO_NEIGHBOR}.
+     *
+     * @param dest array of at least 8 elements
+     * @return dest
+     */
+    public static long[] neighbors(long hash, long[] dest) {
+        int length = length(hash);
+        int numberOfBits = 5 * length;
+        long bits = bits(hash);
+        long lonMask = lonMask(numberOfBits);
+        long latMask = lowBits(numberOfBits) & ~lonMask;
+        long row = row(bits, latMask);
+        long east = increment(bits, lonMask);
+        long west = decrement(bits, lonMask);
+        if (row + 1 < 1L << (numberOfBits / 2)) {
+            dest[0] = pack(increment(bits, latMask), length);
+            dest[1] = pack(increment(east, latMask), length);
+            dest[7] = pack(increment(west, latMask), length);
+        } else {
+            dest[0] = dest[1] = dest[7] = NO_NEIGHBOR;
+        }
+        dest[2] = pack(east, length);
+        if (row > 0) {
+            dest[3] = pack(decrement(east, latMask), length);
+            dest[4] = pack(decrement(bits, latMask), length);
+            dest[5] = pack(decrement(west, latMask), length);
+        } else {
+            dest[3] = dest[4] = dest[5] = NO_NEIGHBOR;
+        }
+        dest[6] = pack(west, length);
+        return dest;
+    }
+
+    /**
+     * Writes the cells at exactly k cells (Chebyshev distance) from a hash, row by row from south to north and west
+     * to east. Cells beyond the poles are skipped, and a ring wider than the world is not repeated.
+     * <p>
+     * Longitude distances wrap around the antimeridian, so no cell is further than half the number of columns east or
+     * west: once k exceeds that, the rows between the southern and northern rows of the ring hold no cell at distance
+     * k and only those two rows are written, each of them once around the world.
+     * </p>
+     *
+     * @param k ring number, 0 for the cell itself
+     * @param dest receives the cells from offset, needs {@code k == 0 ? 1 : 8 * k} elements at most
+     * @return the number of cells written
+     */
+    public static int ring(long hash, int k, long[] dest, int offset) {
+        return cells(hash, k, true, dest, offset);
+    }
+
+    /**
+     * Writes all cells within k cells (Chebyshev distance) of a hash, including the hash itself, row by row from south
+     * to north and west to east. Cells beyond the poles are skipped, and columns are not repeated when the square is
+     * wider than the world.
+     *
+     * @param k radius in cells
+     * @param dest receives the cells from offset, needs {@code (2 * k + 1) * (2 * k + 1)} elements at most
+     * @return the number of cells written
+     */
+    public static int kRing(long hash, int k, long[] dest, int offset) {
+        return cells(hash, k, false, dest, offset);
+    }
+
+    private static int cells(long hash, int k, boolean exact, long[] dest, int offset) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k must not be negative: " + k);
+        }
+        int length = length(hash);
+        int numberOfBits = 5 * length;
+        long bits = bits(hash);
+        long lonMask = lonMask(numberOfBits);
+        long latMask = lowBits(numberOfBits) & ~lonMask;
+        long row = row(bits, latMask);
+        long rows = 1L << (numberOfBits / 2);
+        long columns = 1L << ((numberOfBits + 1) / 2);
+        // rows beyond the poles are skipped, both bounds fit in an int as there are at most 2^30 rows
+        int minDy = (int) Math.max(-k, -row);
+        int maxDy = (int) Math.min(k, rows - 1 - row);
+        int pos = offset;
+        for (int dy = minDy; dy <= maxDy; dy++) {
+            long rowBits = add(bits, latMask, dy);
+            boolean edgeRow = dy == -k || dy == k;
+            if (2L * k + 1 >= columns) {
+                // the row spans every column, write each once starting at the westernmost
+                long cell = add(rowBits, lonMask, (int) -(columns / 2));
+                for (long dx = -(columns / 2); dx < columns - columns / 2; dx++) {
+                    if (!exact || edgeRow || Math.abs(dx) == k) {
+                        dest[pos++] = pack(cell, length);
+                    }
+                    cell = increment(cell, lonMask);
+                }
+            } else if (exact && !edgeRow) {
+                dest[pos++] = pack(add(rowBits, lonMask, -k), length);
+                dest[pos++] = pack(add(rowBits, lonMask, k), length);
+            } else {
+                long cell = add(rowBits, lonMask, -k);
+                for (int dx = -k; dx <= k; dx++) {
+                    dest[pos++] = pack(cell, length);
+                    cell = increment(cell, lonMask);
+                }
+            }
+        }
+        return pos - offset;
+    }
+
+    /**
+     * Mask of the longitude bits among the low numberOfBits bits, the highest of which is a longitude bit.
+     */
+    private static long lonMask(int numberOfBits) {
+        return lowBits(numberOfBits) & ((numberOfBits & 1) == 1 ? EVEN_BITS : ODD_BITS);
+    }
+
+    private static long lowBits(int numberOfBits) {
+        return numberOfBits == 64 ? -1L : (1L << numberOfBits) - 1;
+    }
+
+    /**
+     * Returns the latitude index of the cell, 0 at the south pole.
+     */
+    private static long row(long bits, long latMask) {
+        return compact((latMask & 1) == 1 ? bits : bits >>> 1);
+    }
+
+    /**
+     * Adds 1 to the dilated integer of the masked bits, leaving the other bits unchanged. Wraps around.
+     */
+    private static long increment(long bits, long mask) {
+        return (((bits | ~mask) + (mask & -mask)) & mask) | (bits & ~mask);
+    }
+
+    /**
+     * Subtracts 1 from the dilated integer of the masked bits, leaving the other bits unchanged. Wraps around.
+     */
+    private static long decrement(long bits, long mask) {
+        return (((bits & mask) - (mask & -mask)) & mask) | (bits & ~mask);
+    }
+
+    /**
+     * Adds a signed delta to the dilated integer of the masked bits, leaving the other bits unchanged. Wraps around.
+     */
+    private static long add(long bits, long mask, int delta) {
+        if (delta == 0) {
+            return bits;
+        }
+        // deposit |delta| onto the bit positions of the mask
+        long dilated = spread(Math.abs((long) delta)) << ((mask & 1) == 1 ? 0 : 1);
+        long sum = delta > 0 ? (bits | ~mask) + dilated : (bits & mask) - dilated;
+        return (sum & mask) | (bits & ~mask);
+    }
+
+    /**
+     * @return the number of base32 characters of the hash
+     */
+    public static int length(long hash) {
+        return (int) (hash & LENGTH_MASK);
+    }
+
+    /**
+     * @return the right aligned interleaved bits of the hash, 5 per character
+     */
+    public static long bits(long hash) {
+        return hash >>> LENGTH_BITS;
+    }
+
+    /**
+     * Builds a hash from right aligned interleaved bits and a length in characters.
+     */
+    public static long pack(long bits, int length) {
+        return (bits << LENGTH_BITS) | length;
+    }
+
+    static void checkLength(int length) {
+        if (length < 1 || length > MAX_LENGTH) {
+            throw new IllegalArgumentException("length must be between 1 and " + MAX_LENGTH);
+        }
+    }
+
+    /**
+     * Maps [-range, range] to [0, 2^32 - 1].
+     */
+    static long quantize(double value, double range) {
+        long q = (long) ((value + range) * (QUANTIZATION / (2 * range)));
+        // NaN becomes 0 through the cast
+        return q < 0 ? 0 : q > MAX_QUANTIZED ? MAX_QUANTIZED : q;
+    }
+
+    /**
+     * Interleaves two 32 bit values, longitude bits at the odd positions so the first geohash bit is a longitude bit.
+     */
+    static long interleave(long lat, long lon) {
+        return (spread(lon) << 1) | spread(lat);
+    }
+
+    /**
+     * Spreads the low 32 bits of a value to the even bit positions.
+     */
+    static long spread(long v) {
+        v &= 0xFFFFFFFFL;
+        v = (v | (v << 16)) & 0x0000FFFF0000FFFFL;
+        v = (v | (v << 8)) & 0x00FF00FF00FF00FFL;
+        v = (v | (v << 4)) & 0x0F0F0F0F0F0F0F0FL;
+        v = (v | (v << 2)) & 0x3333333333333333L;
+        v = (v | (v << 1)) & 0x5555555555555555L;
+        return v;
+    }
+
+    /**
+     * Gathers the even bits of a value into the low 32 bits, the inverse of {@link #spread(long)}.
+     */
+    static long compact(long v) {
+        v &= 0x5555555555555555L;
+        v = (v | (v >>> 1)) & 0x3333333333333333L;
+        v = (v | (v >>> 2)) & 0x0F0F0F0F0F0F0F0FL;
+        v = (v | (v >>> 4)) & 0x00FF00FF00FF00FFL;
+        v = (v | (v >>> 8)) & 0x0000FFFF0000FFFFL;
+        v = (v | (v >>> 16)) & 0x00000000FFFFFFFFL;
+        return v;
+    }
+}
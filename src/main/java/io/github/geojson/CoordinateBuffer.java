@@ -0,0 +1,231 @@
+package io.github.geojson;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.CoordinateSequence;
+import org.locationtech.jts.geom.CoordinateSequenceFactory;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.impl.PackedCoordinateSequenceFactory;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * 解析GeoJSON coordinates成员时使用的缓冲区。
+ * <p>
+ * 坐标值按x,y,z的顺序保存在一个double数组中（缺少z时为NaN），嵌套数组的结构保存在一个int数组中：
+ * {@link #BEGIN}/{@link #END}表示数组的开始和结束，非负数表示坐标点的序号。
+ * 这样coordinates在type之前出现时也能先解析，再根据type组装几何对象。
+ * </p>
+ */
+final class CoordinateBuffer {
+  static final int BEGIN = -1;
+  static final int END = -2;
+  static final int STRIDE = 3;
+
+  int[] struct = new int[16];
+  int structSize;
+  double[] ords = new double[16 * STRIDE];
+  int size;
+  int dimension = 2;
+  int cursor;
+  double minX = Double.POSITIVE_INFINITY;
+  double minY = Double.POSITIVE_INFINITY;
+  double maxX = Double.NEGATIVE_INFINITY;
+  double maxY = Double.NEGATIVE_INFINITY;
+  boolean inUse;
+
+  /**
+   * 清空缓冲区以便重复使用，已分配的数组保留
+   */
+  void reset() {
+    structSize = 0;
+    size = 0;
+    dimension = 2;
+    cursor = 0;
+    minX = Double.POSITIVE_INFINITY;
+    minY = Double.POSITIVE_INFINITY;
+    maxX = Double.NEGATIVE_INFINITY;
+    maxY = Double.NEGATIVE_INFINITY;
+  }
+
+  /**
+   * 已读取的坐标范围是否与给定的范围相交，没有坐标时返回false
+   */
+  boolean intersects(double filterMinX, double filterMinY, double filterMaxX, double filterMaxY) {
+    return size > 0 && minX <= filterMaxX && maxX >= filterMinX && minY <= filterMaxY && maxY >= filterMinY;
+  }
+
+  /**
+   * 读取一个coordinates数组，可以是单个坐标点，也可以是任意层嵌套的坐标数组
+   */
+  void read(JsonReader in) throws IOException {
+    in.beginArray();
+    if (in.peek() == JsonToken.NUMBER || in.peek() == JsonToken.STRING) {
+      readPosition(in);
+      return;
+    }
+    push(BEGIN);
+    while (in.hasNext()) {
+      if (in.peek() != JsonToken.BEGIN_ARRAY) {
+        throw new JsonSyntaxException("Expected a coordinate array but was " + in.peek() + " at " + in.getPath());
+      }
+      read(in);
+    }
+    in.endArray();
+    push(END);
+  }
+
+  private void readPosition(JsonReader in) throws IOException {
+    if (size * STRIDE == ords.length) {
+      ords = Arrays.copyOf(ords, ords.length * 2);
+    }
+    int offset = size * STRIDE;
+    double x = in.nextDouble();
+    double y = in.nextDouble();
+    ords[offset] = x;
+    ords[offset + 1] = y;
+    if (x < minX) {
+      minX = x;
+    }
+    if (x > maxX) {
+      maxX = x;
+    }
+    if (y < minY) {
+      minY = y;
+    }
+    if (y > maxY) {
+      maxY = y;
+    }
+    if (in.hasNext()) {
+      ords[offset + 2] = in.nextDouble();
+      dimension = 3;
+      while (in.hasNext()) {
+        in.skipValue();
+      }
+    } else {
+      ords[offset + 2] = Double.NaN;
+    }
+    in.endArray();
+    push(size++);
+  }
+
+  private void push(int value) {
+    if (structSize == struct.length) {
+      struct = Arrays.copyOf(struct, struct.length * 2);
+    }
+    struct[structSize++] = value;
+  }
+
+  /**
+   * 当前位置是否是单个坐标点
+   */
+  boolean isPosition() {
+    return cursor < structSize && struct[cursor] >= 0;
+  }
+
+  /**
+   * 当前位置是否是数组的结尾
+   */
+  boolean isEnd() {
+    return cursor < structSize && struct[cursor] == END;
+  }
+
+  /**
+   * 是否已经读取完所有结构
+   */
+  boolean isExhausted() {
+    return cursor == structSize;
+  }
+
+  void expect(int token, String type) {
+    if (cursor >= structSize || struct[cursor] != token) {
+      throw new JsonSyntaxException("Invalid coordinates for GeoJSON type " + type);
+    }
+    cursor++;
+  }
+
+  /**
+   * 读取当前位置的单个坐标点，转换为只有一个点的坐标序列
+   */
+  CoordinateSequence nextPosition(GeometryFactory factory, String type) {
+    if (!isPosition()) {
+      throw new JsonSyntaxException("Invalid coordinates for GeoJSON type " + type);
+    }
+    return sequence(factory, struct[cursor++], 1);
+  }
+
+  /**
+   * 读取当前位置由坐标点组成的一层数组，转换为坐标序列
+   */
+  CoordinateSequence nextSequence(GeometryFactory factory, String type) {
+    expect(BEGIN, type);
+    int start = cursor;
+    while (isPosition()) {
+      cursor++;
+    }
+    int count = cursor - start;
+    expect(END, type);
+    return sequence(factory, count > 0 ? struct[start] : 0, count);
+  }
+
+  /**
+   * 把连续的坐标点转换为坐标序列。
+   * 几何工厂使用 {@link PackedCoordinateSequenceFactory} 时直接生成紧凑的坐标序列，不为每个点创建Coordinate对象。
+   */
+  private CoordinateSequence sequence(GeometryFactory factory, int first, int count) {
+    CoordinateSequenceFactory sequenceFactory = factory.getCoordinateSequenceFactory();
+    if (sequenceFactory instanceof PackedCoordinateSequenceFactory) {
+      PackedCoordinateSequenceFactory packedFactory = (PackedCoordinateSequenceFactory) sequenceFactory;
+      int dim = hasZ(first, count) ? 3 : 2;
+      if (packedFactory.getType() == PackedCoordinateSequenceFactory.FLOAT) {
+        float[] packed = new float[count * dim];
+        for (int i = 0, j = 0; i < count; i++) {
+          int offset = (first + i) * STRIDE;
+          for (int d = 0; d < dim; d++) {
+            packed[j++] = (float) ords[offset + d];
+          }
+        }
+        return packedFactory.create(packed, dim);
+      }
+      double[] packed = new double[count * dim];
+      for (int i = 0, j = 0; i < count; i++) {
+        int offset = (first + i) * STRIDE;
+        for (int d = 0; d < dim; d++) {
+          packed[j++] = ords[offset + d];
+        }
+      }
+      return packedFactory.create(packed, dim);
+    }
+    Coordinate[] coords = new Coordinate[count];
+    for (int i = 0; i < count; i++) {
+      coords[i] = new Coordinate(x(first + i), y(first + i), z(first + i));
+    }
+    return sequenceFactory.create(coords);
+  }
+
+  private boolean hasZ(int first, int count) {
+    if (dimension < 3) {
+      return false;
+    }
+    for (int i = first; i < first + count; i++) {
+      if (!Double.isNaN(z(i))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  double x(int index) {
+    return ords[index * STRIDE];
+  }
+
+  double y(int index) {
+    return ords[index * STRIDE + 1];
+  }
+
+  double z(int index) {
+    return ords[index * STRIDE + 2];
+  }
+}
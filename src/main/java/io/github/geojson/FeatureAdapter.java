@@ -0,0 +1,163 @@
+package io.github.geojson;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 在token级别读写单个Feature对象，供流式读写使用，不经过Gson的反射和JsonElement树。
+ */
+class FeatureAdapter {
+  static final String NAME_TYPE = "type";
+  static final String NAME_ID = "id";
+  static final String NAME_NUMERIC_ID = "numericId";
+  static final String NAME_GEOMETRY = "geometry";
+  static final String NAME_PROPERTIES = "properties";
+  static final String NAME_FEATURES = "features";
+  static final String NAME_BBOX = "bbox";
+  static final String TYPE_FEATURE = "Feature";
+  static final String TYPE_FEATURE_COLLECTION = "FeatureCollection";
+
+  private final TypeAdapter<Geometry> geometryAdapter;
+  private final TypeAdapter<Map<String, Object>> propertiesAdapter;
+  private final TypeAdapter<Object> valueAdapter;
+  private final Envelope filter;
+  private final Set<String> propertyNames;
+
+  FeatureAdapter(Gson gson) {
+    this(gson, null, null);
+  }
+
+  /**
+   * @param filter 范围过滤条件，为null时不过滤
+   * @param propertyNames 需要读取的属性名，其余属性在token级别跳过，为null时读取全部属性
+   */
+  FeatureAdapter(Gson gson, Envelope filter, Set<String> propertyNames) {
+    this.geometryAdapter = gson.getAdapter(Geometry.class);
+    this.propertiesAdapter = gson.getAdapter(new TypeToken<Map<String, Object>>() {
+    });
+    this.valueAdapter = gson.getAdapter(Object.class);
+    this.filter = filter;
+    this.propertyNames = propertyNames;
+  }
+
+  /**
+   * 读取一个Feature对象，遇到null时返回null。
+   * <p>
+   * 设置了filter时，范围不相交或没有geometry的Feature也返回null。bbox成员或geometry读完后即可判断，
+   * 之后的成员直接跳过；JsonReader不能回退，出现在它们之前的properties仍然会被完整解析。
+   * </p>
+   */
+  Feature read(JsonReader in) throws IOException {
+    if (in.peek() == JsonToken.NULL) {
+      in.nextNull();
+      return null;
+    }
+    Feature feature = new Feature();
+    boolean rejected = false;
+    in.beginObject();
+    while (in.hasNext()) {
+      String name = in.nextName();
+      if (in.peek() == JsonToken.NULL || rejected) {
+        in.skipValue();
+        continue;
+      }
+      switch (name) {
+        case NAME_BBOX:
+          if (filter != null) {
+            rejected = !GeometryAdapter.bboxIntersects(in, filter);
+          } else {
+            in.skipValue();
+          }
+          break;
+        case NAME_ID:
+          feature.setId(in.nextString());
+          break;
+        case NAME_NUMERIC_ID:
+          feature.setNumericId(in.nextLong());
+          break;
+        case NAME_GEOMETRY:
+          feature.setGeometry(readGeometry(in));
+          rejected = filter != null && feature.getGeometry() == null;
+          break;
+        case NAME_PROPERTIES:
+          feature.setProperties(readProperties(in));
+          break;
+        default:
+          in.skipValue();
+      }
+    }
+    in.endObject();
+    if (filter != null && (rejected || feature.getGeometry() == null)) {
+      return null;
+    }
+    return feature;
+  }
+
+  /**
+   * 读取properties对象，指定了属性名时只解析需要的属性，其余属性的值直接跳过
+   */
+  private Map<String, Object> readProperties(JsonReader in) throws IOException {
+    if (propertyNames == null) {
+      return propertiesAdapter.read(in);
+    }
+    if (propertiesAdapter instanceof PropertyMapAdapter) {
+      return ((PropertyMapAdapter) propertiesAdapter).read(in, propertyNames);
+    }
+    Map<String, Object> properties = new LinkedHashMap<String, Object>();
+    in.beginObject();
+    while (in.hasNext()) {
+      String name = in.nextName();
+      if (propertyNames.contains(name)) {
+        properties.put(name, valueAdapter.read(in));
+      } else {
+        in.skipValue();
+      }
+    }
+    in.endObject();
+    return properties;
+  }
+
+  private Geometry readGeometry(JsonReader in) throws IOException {
+    if (filter == null) {
+      return geometryAdapter.read(in);
+    }
+    if (geometryAdapter instanceof GeometryAdapter) {
+      return ((GeometryAdapter) geometryAdapter).read(in, filter);
+    }
+    Geometry geometry = geometryAdapter.read(in);
+    return geometry != null && filter.intersects(geometry.getEnvelopeInternal()) ? geometry : null;
+  }
+
+  /**
+   * 写出一个Feature对象，成员顺序与Gson反射序列化的结果一致
+   */
+  void write(JsonWriter out, Feature feature) throws IOException {
+    if (feature == null) {
+      out.nullValue();
+      return;
+    }
+    out.beginObject();
+    out.name(NAME_TYPE).value(TYPE_FEATURE);
+    out.name(NAME_PROPERTIES);
+    if (feature.getProperties() == null) {
+      out.nullValue();
+    } else {
+      propertiesAdapter.write(out, feature.getProperties());
+    }
+    out.name(NAME_GEOMETRY);
+    geometryAdapter.write(out, feature.getGeometry());
+    out.name(NAME_ID).value(feature.getId());
+    out.name(NAME_NUMERIC_ID).value(feature.getNumericId());
+    out.endObject();
+  }
+}
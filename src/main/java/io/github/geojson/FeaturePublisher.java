@@ -0,0 +1,176 @@
+package io.github.geojson;
+
+import com.google.gson.Gson;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 以 {@link Flow.Publisher} 的方式发布FeatureCollection输入流中的Feature。
+ * <p>
+ * Feature由 {@link FeatureReader} 逐个解析，只有订阅者请求时才继续读取输入流，
+ * 下游处理慢时解析随之暂停，Feature不会在内存中堆积。输入流只能被读取一次，因此只允许一个订阅者，
+ * 完成、出错或取消订阅时关闭输入流。
+ * </p>
+ * 解析和onNext等回调在给定的Executor中执行，同一时刻只有一个线程在调用订阅者。
+ */
+public class FeaturePublisher implements Flow.Publisher<Feature> {
+  private final FeatureReader reader;
+  private final Executor executor;
+  private final AtomicBoolean subscribed = new AtomicBoolean();
+
+  /**
+   * 使用公共fork-join线程池解析UTF-8编码的输入流
+   *
+   * @param in FeatureCollection输入流
+   */
+  public FeaturePublisher(InputStream in) {
+    this(in, GeoJSON.getGson(), ForkJoinPool.commonPool());
+  }
+
+  /**
+   * @param in FeatureCollection输入流，UTF-8编码
+   * @param gson 用于解析geometry和properties的Gson配置
+   * @param executor 执行解析和订阅者回调的Executor
+   */
+  public FeaturePublisher(InputStream in, Gson gson, Executor executor) {
+    this.reader = new FeatureReader(new InputStreamReader(in, StandardCharsets.UTF_8), gson);
+    this.executor = executor;
+  }
+
+  @Override public void subscribe(Flow.Subscriber<? super Feature> subscriber) {
+    if (subscriber == null) {
+      throw new NullPointerException("subscriber");
+    }
+    if (!subscribed.compareAndSet(false, true)) {
+      subscriber.onSubscribe(new Flow.Subscription() {
+        @Override public void request(long n) {
+        }
+
+        @Override public void cancel() {
+        }
+      });
+      subscriber.onError(new IllegalStateException("FeaturePublisher allows only one subscriber"));
+      return;
+    }
+    FeatureSubscription subscription = new FeatureSubscription(subscriber);
+    subscriber.onSubscribe(subscription);
+  }
+
+  private void closeQuietly() {
+    try {
+      reader.close();
+    } catch (IOException e) {
+      // 已经结束，忽略关闭时的异常
+    }
+  }
+
+  private final class FeatureSubscription implements Flow.Subscription, Runnable {
+    private final Flow.Subscriber<? super Feature> subscriber;
+    private final AtomicLong demand = new AtomicLong();
+    private final AtomicInteger wip = new AtomicInteger();
+    private volatile boolean cancelled;
+    private volatile Throwable invalidRequest;
+    private boolean done;
+
+    FeatureSubscription(Flow.Subscriber<? super Feature> subscriber) {
+      this.subscriber = subscriber;
+    }
+
+    @Override public void request(long n) {
+      if (n <= 0) {
+        invalidRequest = new IllegalArgumentException("non-positive subscription request: " + n);
+      } else {
+        long current;
+        long next;
+        do {
+          current = demand.get();
+          next = current + n < 0 ? Long.MAX_VALUE : current + n;
+        } while (!demand.compareAndSet(current, next));
+      }
+      schedule();
+    }
+
+    @Override public void cancel() {
+      cancelled = true;
+      schedule();
+    }
+
+    private void schedule() {
+      if (wip.getAndIncrement() == 0) {
+        executor.execute(this);
+      }
+    }
+
+    /**
+     * 在Executor中按请求数读取并发布Feature，wip保证同一时刻只有一个线程执行
+     */
+    @Override public void run() {
+      int missed = 1;
+      while (true) {
+        if (!done) {
+          drain();
+        }
+        missed = wip.addAndGet(-missed);
+        if (missed == 0) {
+          return;
+        }
+      }
+    }
+
+    private void drain() {
+      long requested = demand.get();
+      long emitted = 0;
+      while (true) {
+        if (cancelled) {
+          finish();
+          return;
+        }
+        if (invalidRequest != null) {
+          finish();
+          subscriber.onError(invalidRequest);
+          return;
+        }
+        if (emitted == requested) {
+          break;
+        }
+        Feature feature;
+        try {
+          if (!reader.hasNext()) {
+            finish();
+            subscriber.onComplete();
+            return;
+          }
+          feature = reader.next();
+        } catch (RuntimeException e) {
+          finish();
+          subscriber.onError(e);
+          return;
+        }
+        try {
+          subscriber.onNext(feature);
+        } catch (RuntimeException e) {
+          finish();
+          throw e;
+        }
+        emitted++;
+      }
+      if (requested != Long.MAX_VALUE) {
+        demand.addAndGet(-emitted);
+      }
+    }
+
+    private void finish() {
+      done = true;
+      cancelled = true;
+      closeQuietly();
+    }
+  }
+}
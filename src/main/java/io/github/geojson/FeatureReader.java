@@ -0,0 +1,182 @@
+package io.github.geojson;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+import org.locationtech.jts.geom.Envelope;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 流式读取FeatureCollection，每次只解析一个Feature，内存占用不随文件大小增长。
+ * <pre>
+ * try (FeatureReader reader = new FeatureReader(new FileReader(file))) {
+ *   while (reader.hasNext()) {
+ *     Feature feature = reader.next();
+ *   }
+ * }
+ * </pre>
+ * 输入可以是FeatureCollection对象，也可以是直接由Feature组成的数组。
+ * 输入格式错误时hasNext和next抛出 {@link JsonSyntaxException}，读取失败时抛出 {@link JsonIOException}，之后不再返回Feature。
+ */
+public class FeatureReader implements Iterator<Feature>, Closeable {
+  private final JsonReader in;
+  private final FeatureAdapter adapter;
+  private Feature next;
+  private boolean started;
+  private boolean finished;
+
+  public FeatureReader(Reader reader) {
+    this(reader, GeoJSON.getGson());
+  }
+
+  /**
+   * @param reader 给定的 {@code JSON} reader对象。
+   * @param gson 用于解析geometry和properties的Gson配置，参见 {@link GeoJSON#createGson(boolean)}
+   */
+  public FeatureReader(Reader reader, Gson gson) {
+    this(reader, new FeatureAdapter(gson));
+  }
+
+  /**
+   * 只读取范围与filter相交的Feature，没有geometry的Feature被忽略
+   *
+   * @param reader 给定的 {@code JSON} reader对象。
+   * @param gson 用于解析geometry和properties的Gson配置，参见 {@link GeoJSON#createGson(boolean)}
+   * @param filter 范围过滤条件
+   */
+  public FeatureReader(Reader reader, Gson gson, Envelope filter) {
+    this(reader, new FeatureAdapter(gson, filter, null));
+  }
+
+  /**
+   * 只读取指定名称的属性，其余属性在token级别跳过，不解析也不占用内存
+   *
+   * @param reader 给定的 {@code JSON} reader对象。
+   * @param gson 用于解析geometry和properties的Gson配置，参见 {@link GeoJSON#createGson(boolean)}
+   * @param propertyNames 需要读取的属性名
+   */
+  public FeatureReader(Reader reader, Gson gson, Set<String> propertyNames) {
+    this(reader, new FeatureAdapter(gson, null, propertyNames));
+  }
+
+  /**
+   * 只读取范围与filter相交的Feature，并且只读取指定名称的属性
+   *
+   * @param reader 给定的 {@code JSON} reader对象。
+   * @param gson 用于解析geometry和properties的Gson配置，参见 {@link GeoJSON#createGson(boolean)}
+   * @param filter 范围过滤条件，为null时不过滤
+   * @param propertyNames 需要读取的属性名，为null时读取全部属性
+   */
+  public FeatureReader(Reader reader, Gson gson, Envelope filter, Set<String> propertyNames) {
+    this(reader, new FeatureAdapter(gson, filter, propertyNames));
+  }
+
+  FeatureReader(Reader reader, FeatureAdapter adapter) {
+    this.in = new JsonReader(reader);
+    this.adapter = adapter;
+  }
+
+  @Override public boolean hasNext() {
+    if (next == null && !finished) {
+      next = advance();
+    }
+    return next != null;
+  }
+
+  @Override public Feature next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    Feature feature = next;
+    next = null;
+    return feature;
+  }
+
+  /**
+   * 把剩余的Feature包装为顺序的Stream，关闭Stream时同时关闭读取器
+   */
+  public Stream<Feature> stream() {
+    Spliterator<Feature> spliterator =
+        Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL);
+    return StreamSupport.stream(spliterator, false).onClose(this::closeQuietly);
+  }
+
+  @Override public void close() throws IOException {
+    finished = true;
+    next = null;
+    in.close();
+  }
+
+  private void closeQuietly() {
+    try {
+      close();
+    } catch (IOException e) {
+      throw new JsonIOException(e);
+    }
+  }
+
+  private Feature advance() {
+    try {
+      if (!started) {
+        started = true;
+        seekFeatures();
+      }
+      while (!finished) {
+        if (!in.hasNext()) {
+          in.endArray();
+          finished = true;
+          break;
+        }
+        Feature feature = adapter.read(in);
+        if (feature != null) {
+          return feature;
+        }
+      }
+      return null;
+    } catch (JsonParseException e) {
+      finished = true;
+      throw e;
+    } catch (MalformedJsonException | IllegalStateException | IllegalArgumentException e) {
+      // IllegalArgumentException: geometry的type缺失或不支持，NumberFormatException也是它的子类
+      finished = true;
+      throw new JsonSyntaxException(e);
+    } catch (IOException e) {
+      finished = true;
+      throw new JsonIOException(e);
+    }
+  }
+
+  /**
+   * 定位到features数组的起始位置，之前的其他成员直接跳过
+   */
+  private void seekFeatures() throws IOException {
+    if (in.peek() == JsonToken.BEGIN_ARRAY) {
+      in.beginArray();
+      return;
+    }
+    in.beginObject();
+    while (in.hasNext()) {
+      String name = in.nextName();
+      if (FeatureAdapter.NAME_FEATURES.equals(name) && in.peek() == JsonToken.BEGIN_ARRAY) {
+        in.beginArray();
+        return;
+      }
+      in.skipValue();
+    }
+    in.endObject();
+    finished = true;
+  }
+}
@@ -0,0 +1,827 @@
+package io.github.geojson;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.CoordinateSequence;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryCollection;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.geom.LinearRing;
+import org.locationtech.jts.geom.MultiLineString;
+import org.locationtech.jts.geom.MultiPoint;
+import org.locationtech.jts.geom.MultiPolygon;
+import org.locationtech.jts.geom.Point;
+import org.locationtech.jts.geom.Polygon;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * 按列保存的Feature集合，用于需要遍历大量Feature的统计分析。
+ * <p>
+ * 所有坐标按x、y交替保存在一个double[]中，几何结构用三层偏移数组描述：
+ * 每行（Feature）包含若干部件，每个部件（点、线或多边形）包含若干环，每个环对应一段连续的坐标。
+ * 点和线各只有一个环。第i行的部件为 {@code [partOffsets[i], partOffsets[i + 1])}，其余两层同理。
+ * Feature的几何类型保存在byte[]中，取值与WKB的类型编码相同，没有geometry时为 {@link #NONE}。
+ * 属性按名称保存为列，数值、布尔值和字符串使用基本类型数组，字符串按字典编码。
+ * </p>
+ * <p>
+ * {@link #getGeometry(int, GeometryFactory)} 和 {@link Cursor} 返回的几何对象和坐标序列直接引用表中的坐标数组，不复制坐标。
+ * 坐标序列写时复制：修改坐标（例如 {@code normalize()} 或 {@code apply(CoordinateSequenceFilter)}）时，
+ * 该序列先复制自己的一段坐标再修改，表中的坐标和其他读取者看到的几何对象不受影响。
+ * 只保留x和y；GeometryCollection按部件展开保存，嵌套的集合还原时变为一层。
+ * </p>
+ * 表创建后只读，可以在多个线程中同时访问。
+ */
+public final class FeatureTable {
+  public static final byte NONE = 0;
+  public static final byte POINT = 1;
+  public static final byte LINESTRING = 2;
+  public static final byte POLYGON = 3;
+  public static final byte MULTIPOINT = 4;
+  public static final byte MULTILINESTRING = 5;
+  public static final byte MULTIPOLYGON = 6;
+  public static final byte GEOMETRYCOLLECTION = 7;
+
+  private final int size;
+  private final byte[] geometryTypes;
+  private final int[] partOffsets;
+  private final byte[] partTypes;
+  private final int[] ringOffsets;
+  private final int[] coordinateOffsets;
+  private final double[] coordinates;
+  private final String[] ids;
+  private final long[] numericIds;
+  private final BitSet hasProperties;
+  private final Map<String, Column> columns;
+
+  private FeatureTable(Builder builder, Map<String, Column> columns) {
+    this.size = builder.size;
+    this.geometryTypes = Arrays.copyOf(builder.geometryTypes, builder.size);
+    this.partOffsets = Arrays.copyOf(builder.partOffsets, builder.size + 1);
+    this.partTypes = Arrays.copyOf(builder.partTypes, builder.parts);
+    this.ringOffsets = Arrays.copyOf(builder.ringOffsets, builder.parts + 1);
+    this.coordinateOffsets = Arrays.copyOf(builder.coordinateOffsets, builder.rings + 1);
+    this.coordinates = Arrays.copyOf(builder.coordinates, builder.points * 2);
+    this.ids = builder.ids;
+    this.numericIds = builder.numericIds;
+    this.hasProperties = builder.hasProperties;
+    this.columns = Collections.unmodifiableMap(columns);
+  }
+
+  /**
+   * 把FeatureCollection转换为列式表
+   */
+  public static FeatureTable of(FeatureCollection collection) {
+    List<Feature> features = collection.getFeatures() == null ? new ArrayList<Feature>() : collection.getFeatures();
+    return of(features);
+  }
+
+  /**
+   * 把Feature列表转换为列式表
+   */
+  public static FeatureTable of(List<Feature> features) {
+    Builder builder = new Builder(features.size());
+    Map<String, List<Object>> values = new LinkedHashMap<String, List<Object>>();
+    Map<String, BitSet> defined = new LinkedHashMap<String, BitSet>();
+    for (int row = 0; row < features.size(); row++) {
+      Feature feature = features.get(row);
+      builder.add(feature);
+      Map<String, Object> properties = feature.getProperties();
+      if (properties == null) {
+        continue;
+      }
+      for (Map.Entry<String, Object> entry : properties.entrySet()) {
+        List<Object> column = values.get(entry.getKey());
+        if (column == null) {
+          column = new ArrayList<Object>(Collections.nCopies(features.size(), null));
+          values.put(entry.getKey(), column);
+          defined.put(entry.getKey(), new BitSet(features.size()));
+        }
+        column.set(row, entry.getValue());
+        defined.get(entry.getKey()).set(row);
+      }
+    }
+    Map<String, Column> columns = new LinkedHashMap<String, Column>();
+    for (Map.Entry<String, List<Object>> entry : values.entrySet()) {
+      columns.put(entry.getKey(), Column.of(entry.getKey(), entry.getValue(), defined.get(entry.getKey())));
+    }
+    return new FeatureTable(builder, columns);
+  }
+
+  /**
+   * 还原为FeatureCollection，几何对象的坐标复制到factory的坐标序列中，与表相互独立
+   */
+  public FeatureCollection toFeatureCollection(GeometryFactory factory) {
+    List<Feature> features = new ArrayList<Feature>(size);
+    for (int row = 0; row < size; row++) {
+      Geometry geometry = getGeometry(row, factory);
+      if (geometry != null) {
+        geometry = factory.createGeometry(geometry);
+      }
+      Feature feature = new Feature(ids[row], numericIds[row], geometry);
+      feature.setProperties(getProperties(row));
+      features.add(feature);
+    }
+    return new FeatureCollection(features);
+  }
+
+  public FeatureCollection toFeatureCollection() {
+    return toFeatureCollection(new GeometryFactory());
+  }
+
+  /**
+   * Feature数量
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * 所有Feature的坐标点总数
+   */
+  public int getCoordinateCount() {
+    return coordinates.length / 2;
+  }
+
+  /**
+   * 第i个坐标点的x
+   */
+  public double getX(int point) {
+    return coordinates[point * 2];
+  }
+
+  /**
+   * 第i个坐标点的y
+   */
+  public double getY(int point) {
+    return coordinates[point * 2 + 1];
+  }
+
+  /**
+   * 第row行的几何类型，取值为 {@link #NONE} 到 {@link #GEOMETRYCOLLECTION}
+   */
+  public byte getGeometryType(int row) {
+    return geometryTypes[row];
+  }
+
+  /**
+   * 第row行的坐标点范围 {@code [first, last)}，结果写入range
+   */
+  public void getCoordinateRange(int row, int[] range) {
+    range[0] = coordinateOffsets[ringOffsets[partOffsets[row]]];
+    range[1] = coordinateOffsets[ringOffsets[partOffsets[row + 1]]];
+  }
+
+  /**
+   * 第row行几何对象的范围，同一个Feature的坐标是连续的，直接扫描坐标数组计算
+   */
+  public Envelope getEnvelope(int row) {
+    Envelope envelope = new Envelope();
+    int end = coordinateOffsets[ringOffsets[partOffsets[row + 1]]];
+    for (int i = coordinateOffsets[ringOffsets[partOffsets[row]]]; i < end; i++) {
+      envelope.expandToInclude(coordinates[i * 2], coordinates[i * 2 + 1]);
+    }
+    return envelope;
+  }
+
+  public String getId(int row) {
+    return ids[row];
+  }
+
+  public long getNumericId(int row) {
+    return numericIds[row];
+  }
+
+  /**
+   * 按第一次出现的顺序返回所有属性列
+   */
+  public Map<String, Column> getColumns() {
+    return columns;
+  }
+
+  /**
+   * 返回属性列，不存在时返回null
+   */
+  public Column getColumn(String name) {
+    return columns.get(name);
+  }
+
+  /**
+   * 还原第row行的属性，原来没有properties时返回null
+   */
+  public Map<String, Object> getProperties(int row) {
+    if (!hasProperties.get(row)) {
+      return null;
+    }
+    Map<String, Object> properties = new LinkedHashMap<String, Object>();
+    for (Column column : columns.values()) {
+      if (column.isDefined(row)) {
+        properties.put(column.getName(), column.get(row));
+      }
+    }
+    return properties;
+  }
+
+  /**
+   * 返回第row行的几何对象，坐标序列直接引用表中的坐标，没有geometry时返回null
+   */
+  public Geometry getGeometry(int row, GeometryFactory factory) {
+    int first = partOffsets[row];
+    int end = partOffsets[row + 1];
+    switch (geometryTypes[row]) {
+      case NONE:
+        return null;
+      case POINT:
+      case LINESTRING:
+      case POLYGON:
+        return part(first, factory);
+      case MULTIPOINT: {
+        Point[] points = new Point[end - first];
+        for (int i = 0; i < points.length; i++) {
+          points[i] = (Point) part(first + i, factory);
+        }
+        return factory.createMultiPoint(points);
+      }
+      case MULTILINESTRING: {
+        LineString[] lines = new LineString[end - first];
+        for (int i = 0; i < lines.length; i++) {
+          lines[i] = (LineString) part(first + i, factory);
+        }
+        return factory.createMultiLineString(lines);
+      }
+      case MULTIPOLYGON: {
+        Polygon[] polygons = new Polygon[end - first];
+        for (int i = 0; i < polygons.length; i++) {
+          polygons[i] = (Polygon) part(first + i, factory);
+        }
+        return factory.createMultiPolygon(polygons);
+      }
+      default: {
+        Geometry[] geometries = new Geometry[end - first];
+        for (int i = 0; i < geometries.length; i++) {
+          geometries[i] = part(first + i, factory);
+        }
+        return factory.createGeometryCollection(geometries);
+      }
+    }
+  }
+
+  private Geometry part(int part, GeometryFactory factory) {
+    int firstRing = ringOffsets[part];
+    switch (partTypes[part]) {
+      case POINT:
+        return factory.createPoint(view(firstRing));
+      case LINESTRING:
+        return factory.createLineString(view(firstRing));
+      default: {
+        int rings = ringOffsets[part + 1] - firstRing;
+        if (rings == 0) {
+          return factory.createPolygon();
+        }
+        LinearRing[] holes = new LinearRing[rings - 1];
+        for (int i = 0; i < holes.length; i++) {
+          holes[i] = factory.createLinearRing(view(firstRing + 1 + i));
+        }
+        return factory.createPolygon(factory.createLinearRing(view(firstRing)), holes);
+      }
+    }
+  }
+
+  private CoordinateView view(int ring) {
+    CoordinateView view = new CoordinateView(coordinates);
+    view.moveTo(coordinateOffsets[ring], coordinateOffsets[ring + 1] - coordinateOffsets[ring]);
+    return view;
+  }
+
+  /**
+   * 返回逐行遍历的游标
+   */
+  public Cursor cursor() {
+    return new Cursor();
+  }
+
+  /**
+   * 逐行遍历表的游标，只在创建时分配一次对象。
+   * {@link #getRing} 返回的坐标序列在游标上复用，下一次调用后失效。
+   */
+  public final class Cursor {
+    private int row = -1;
+    private final CoordinateView ring = new CoordinateView(coordinates);
+
+    private Cursor() {
+    }
+
+    /**
+     * 移到下一行，没有更多行时返回false
+     */
+    public boolean next() {
+      if (row + 1 >= size) {
+        row = size;
+        return false;
+      }
+      row++;
+      return true;
+    }
+
+    /**
+     * 移到指定的行
+     */
+    public void moveTo(int row) {
+      if (row < 0 || row >= size) {
+        throw new IndexOutOfBoundsException("row " + row + " of " + size);
+      }
+      this.row = row;
+    }
+
+    public int getRow() {
+      return row;
+    }
+
+    public byte getGeometryType() {
+      return geometryTypes[current()];
+    }
+
+    public String getId() {
+      return ids[current()];
+    }
+
+    /**
+     * 当前行的部件数量，点、线和多边形为1，没有geometry时为0
+     */
+    public int getNumParts() {
+      return partOffsets[current() + 1] - partOffsets[row];
+    }
+
+    /**
+     * 部件的类型，为 {@link #POINT}、{@link #LINESTRING} 或 {@link #POLYGON}
+     */
+    public byte getPartType(int part) {
+      return partTypes[partIndex(part)];
+    }
+
+    /**
+     * 部件中环的数量，多边形的第一个环是外环
+     */
+    public int getNumRings(int part) {
+      int index = partIndex(part);
+      return ringOffsets[index + 1] - ringOffsets[index];
+    }
+
+    /**
+     * 返回部件中第i个环的坐标序列
+     */
+    public CoordinateSequence getRing(int part, int i) {
+      int index = partIndex(part);
+      int first = ringOffsets[index];
+      if (i < 0 || first + i >= ringOffsets[index + 1]) {
+        throw new IndexOutOfBoundsException("ring " + i + " of part " + part);
+      }
+      int r = first + i;
+      ring.moveTo(coordinateOffsets[r], coordinateOffsets[r + 1] - coordinateOffsets[r]);
+      return ring;
+    }
+
+    public Geometry getGeometry(GeometryFactory factory) {
+      return FeatureTable.this.getGeometry(current(), factory);
+    }
+
+    public Envelope getEnvelope() {
+      return FeatureTable.this.getEnvelope(current());
+    }
+
+    private int partIndex(int part) {
+      int first = partOffsets[current()];
+      if (part < 0 || first + part >= partOffsets[row + 1]) {
+        throw new IndexOutOfBoundsException("part " + part + " of row " + row);
+      }
+      return first + part;
+    }
+
+    private int current() {
+      if (row < 0 || row >= size) {
+        throw new NoSuchElementException();
+      }
+      return row;
+    }
+  }
+
+  /**
+   * 一个属性列。
+   * <p>
+   * 所有值都是Double时保存为double[]，都是Integer、Long等整数时保存为long[]，都是Boolean时保存为BitSet，
+   * 都是String时按字典编码为int[]，其他情况（包括出现null值）保存为Object[]。
+   * 整数列还原时统一为Long。
+   * </p>
+   */
+  public static final class Column {
+    public enum Type {
+      DOUBLE, LONG, BOOLEAN, STRING, OBJECT
+    }
+
+    private final String name;
+    private final Type type;
+    private final BitSet defined;
+    private double[] doubles;
+    private long[] longs;
+    private BitSet booleans;
+    private int[] codes;
+    private String[] dictionary;
+    private Object[] objects;
+
+    private Column(String name, Type type, BitSet defined) {
+      this.name = name;
+      this.type = type;
+      this.defined = defined;
+    }
+
+    static Column of(String name, List<Object> values, BitSet defined) {
+      Type type = null;
+      for (int row = defined.nextSetBit(0); row >= 0; row = defined.nextSetBit(row + 1)) {
+        Type t = typeOf(values.get(row));
+        if (type == null) {
+          type = t;
+        } else if (type != t) {
+          type = Type.OBJECT;
+          break;
+        }
+      }
+      Column column = new Column(name, type == null ? Type.OBJECT : type, defined);
+      int size = values.size();
+      switch (column.type) {
+        case DOUBLE:
+          column.doubles = new double[size];
+          for (int row = defined.nextSetBit(0); row >= 0; row = defined.nextSetBit(row + 1)) {
+            column.doubles[row] = ((Number) values.get(row)).doubleValue();
+          }
+          break;
+        case LONG:
+          column.longs = new long[size];
+          for (int row = defined.nextSetBit(0); row >= 0; row = defined.nextSetBit(row + 1)) {
+            column.longs[row] = ((Number) values.get(row)).longValue();
+          }
+          break;
+        case BOOLEAN:
+          column.booleans = new BitSet(size);
+          for (int row = defined.nextSetBit(0); row >= 0; row = defined.nextSetBit(row + 1)) {
+            column.booleans.set(row, (Boolean) values.get(row));
+          }
+          break;
+        case STRING: {
+          column.codes = new int[size];
+          Map<String, Integer> indexes = new LinkedHashMap<String, Integer>();
+          for (int row = defined.nextSetBit(0); row >= 0; row = defined.nextSetBit(row + 1)) {
+            String value = (String) values.get(row);
+            Integer code = indexes.get(value);
+            if (code == null) {
+              code = indexes.size();
+              indexes.put(value, code);
+            }
+            column.codes[row] = code;
+          }
+          column.dictionary = indexes.keySet().toArray(new String[0]);
+          break;
+        }
+        default:
+          column.objects = values.toArray();
+      }
+      return column;
+    }
+
+    private static Type typeOf(Object value) {
+      if (value instanceof Double || value instanceof Float) {
+        return Type.DOUBLE;
+      }
+      if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+        return Type.LONG;
+      }
+      if (value instanceof Boolean) {
+        return Type.BOOLEAN;
+      }
+      if (value instanceof String) {
+        return Type.STRING;
+      }
+      return Type.OBJECT;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public Type getType() {
+      return type;
+    }
+
+    /**
+     * 第row行是否有这个属性
+     */
+    public boolean isDefined(int row) {
+      return defined.get(row);
+    }
+
+    /**
+     * 返回数值列的值，DOUBLE和LONG列可用，没有该属性时返回NaN
+     */
+    public double getDouble(int row) {
+      if (!defined.get(row)) {
+        return Double.NaN;
+      }
+      switch (type) {
+        case DOUBLE:
+          return doubles[row];
+        case LONG:
+          return longs[row];
+        default:
+          throw new IllegalStateException("Column " + name + " is not numeric: " + type);
+      }
+    }
+
+    /**
+     * 返回整数列的值，没有该属性时返回0
+     */
+    public long getLong(int row) {
+      if (type != Type.LONG) {
+        throw new IllegalStateException("Column " + name + " is not integral: " + type);
+      }
+      return longs[row];
+    }
+
+    /**
+     * 返回布尔列的值，没有该属性时返回false
+     */
+    public boolean getBoolean(int row) {
+      if (type != Type.BOOLEAN) {
+        throw new IllegalStateException("Column " + name + " is not boolean: " + type);
+      }
+      return booleans.get(row);
+    }
+
+    /**
+     * 返回字符串列的值在字典中的下标，没有该属性时返回-1
+     */
+    public int getCode(int row) {
+      if (type != Type.STRING) {
+        throw new IllegalStateException("Column " + name + " is not a string column: " + type);
+      }
+      return defined.get(row) ? codes[row] : -1;
+    }
+
+    /**
+     * 字符串列的字典，按第一次出现的顺序
+     */
+    public String getDictionary(int code) {
+      return dictionary[code];
+    }
+
+    public int getDictionarySize() {
+      return dictionary == null ? 0 : dictionary.length;
+    }
+
+    /**
+     * 返回装箱后的值，没有该属性时返回null
+     */
+    public Object get(int row) {
+      if (!defined.get(row)) {
+        return null;
+      }
+      switch (type) {
+        case DOUBLE:
+          return doubles[row];
+        case LONG:
+          return longs[row];
+        case BOOLEAN:
+          return booleans.get(row);
+        case STRING:
+          return dictionary[codes[row]];
+        default:
+          return objects[row];
+      }
+    }
+  }
+
+  /**
+   * 逐个Feature追加几何结构的构建器，数组按需倍增
+   */
+  private static final class Builder {
+    private int size;
+    private byte[] geometryTypes;
+    private int[] partOffsets;
+    private int parts;
+    private byte[] partTypes = new byte[16];
+    private int[] ringOffsets = new int[17];
+    private int rings;
+    private int[] coordinateOffsets = new int[17];
+    private int points;
+    private double[] coordinates = new double[64];
+    private final String[] ids;
+    private final long[] numericIds;
+    private final BitSet hasProperties;
+
+    Builder(int capacity) {
+      geometryTypes = new byte[capacity];
+      partOffsets = new int[capacity + 1];
+      ids = new String[capacity];
+      numericIds = new long[capacity];
+      hasProperties = new BitSet(capacity);
+    }
+
+    void add(Feature feature) {
+      Geometry g = feature.getGeometry();
+      geometryTypes[size] = g == null ? NONE : typeOf(g);
+      if (g != null) {
+        addGeometry(g);
+      }
+      ids[size] = feature.getId();
+      numericIds[size] = feature.getNumericId();
+      hasProperties.set(size, feature.getProperties() != null);
+      size++;
+      partOffsets[size] = parts;
+    }
+
+    private static byte typeOf(Geometry g) {
+      if (g instanceof Point) {
+        return POINT;
+      } else if (g instanceof LineString) {
+        return LINESTRING;
+      } else if (g instanceof Polygon) {
+        return POLYGON;
+      } else if (g instanceof MultiPoint) {
+        return MULTIPOINT;
+      } else if (g instanceof MultiLineString) {
+        return MULTILINESTRING;
+      } else if (g instanceof MultiPolygon) {
+        return MULTIPOLYGON;
+      } else if (g instanceof GeometryCollection) {
+        return GEOMETRYCOLLECTION;
+      }
+      throw new IllegalArgumentException("Unsupported GeoGeometry type: " + g.getGeometryType());
+    }
+
+    private void addGeometry(Geometry g) {
+      if (g instanceof Point) {
+        addPart(POINT);
+        addRing(((Point) g).getCoordinateSequence());
+      } else if (g instanceof LineString) {
+        addPart(LINESTRING);
+        addRing(((LineString) g).getCoordinateSequence());
+      } else if (g instanceof Polygon) {
+        Polygon polygon = (Polygon) g;
+        addPart(POLYGON);
+        if (!polygon.isEmpty()) {
+          addRing(polygon.getExteriorRing().getCoordinateSequence());
+          for (int i = 0; i < polygon.getNumInteriorRing(); i++) {
+            addRing(polygon.getInteriorRingN(i).getCoordinateSequence());
+          }
+        }
+      } else {
+        for (int i = 0; i < g.getNumGeometries(); i++) {
+          addGeometry(g.getGeometryN(i));
+        }
+      }
+    }
+
+    private void addPart(byte type) {
+      if (parts == partTypes.length) {
+        partTypes = Arrays.copyOf(partTypes, parts * 2);
+        ringOffsets = Arrays.copyOf(ringOffsets, parts * 2 + 1);
+      }
+      partTypes[parts++] = type;
+      ringOffsets[parts] = rings;
+    }
+
+    private void addRing(CoordinateSequence seq) {
+      int n = seq.size();
+      if (rings + 1 == coordinateOffsets.length) {
+        coordinateOffsets = Arrays.copyOf(coordinateOffsets, coordinateOffsets.length * 2);
+      }
+      if ((points + n) * 2 > coordinates.length) {
+        coordinates = Arrays.copyOf(coordinates, Math.max((points + n) * 2, coordinates.length * 2));
+      }
+      for (int i = 0; i < n; i++) {
+        coordinates[(points + i) * 2] = seq.getX(i);
+        coordinates[(points + i) * 2 + 1] = seq.getY(i);
+      }
+      points += n;
+      rings++;
+      coordinateOffsets[rings] = points;
+      ringOffsets[parts] = rings;
+    }
+  }
+
+  /**
+   * 引用坐标数组中一段连续坐标的二维坐标序列。
+   * 第一次修改坐标时复制自己的一段坐标，之后的读写都使用这份副本，表中的坐标数组始终不变。
+   */
+  private static final class CoordinateView implements CoordinateSequence {
+    /**
+     * 表中的坐标数组，只读
+     */
+    private final double[] source;
+    private double[] coordinates;
+    private int offset;
+    private int size;
+
+    CoordinateView(double[] source) {
+      this.source = source;
+      this.coordinates = source;
+    }
+
+    void moveTo(int first, int size) {
+      this.coordinates = source;
+      this.offset = first * 2;
+      this.size = size;
+    }
+
+    @Override public int getDimension() {
+      return 2;
+    }
+
+    @Override public Coordinate getCoordinate(int i) {
+      return new Coordinate(getX(i), getY(i));
+    }
+
+    @Override public Coordinate getCoordinateCopy(int i) {
+      return getCoordinate(i);
+    }
+
+    @Override public void getCoordinate(int i, Coordinate coord) {
+      coord.setX(getX(i));
+      coord.setY(getY(i));
+    }
+
+    @Override public double getX(int i) {
+      return coordinates[offset + i * 2];
+    }
+
+    @Override public double getY(int i) {
+      return coordinates[offset + i * 2 + 1];
+    }
+
+    @Override public double getOrdinate(int i, int ordinateIndex) {
+      switch (ordinateIndex) {
+        case X:
+          return getX(i);
+        case Y:
+          return getY(i);
+        default:
+          return Double.NaN;
+      }
+    }
+
+    @Override public int size() {
+      return size;
+    }
+
+    @Override public void setOrdinate(int i, int ordinateIndex, double value) {
+      if (ordinateIndex == X || ordinateIndex == Y) {
+        if (coordinates == source) {
+          coordinates = Arrays.copyOfRange(source, offset, offset + size * 2);
+          offset = 0;
+        }
+        coordinates[offset + i * 2 + ordinateIndex] = value;
+      }
+    }
+
+    @Override public Coordinate[] toCoordinateArray() {
+      Coordinate[] coords = new Coordinate[size];
+      for (int i = 0; i < size; i++) {
+        coords[i] = getCoordinate(i);
+      }
+      return coords;
+    }
+
+    @Override public Envelope expandEnvelope(Envelope env) {
+      for (int i = 0; i < size; i++) {
+        env.expandToInclude(getX(i), getY(i));
+      }
+      return env;
+    }
+
+    @Override @Deprecated public Object clone() {
+      return copy();
+    }
+
+    @Override public CoordinateView copy() {
+      CoordinateView copy = new CoordinateView(Arrays.copyOfRange(coordinates, offset, offset + size * 2));
+      copy.moveTo(0, size);
+      return copy;
+    }
+
+    @Override public String toString() {
+      StringBuilder builder = new StringBuilder("(");
+      for (int i = 0; i < size; i++) {
+        if (i > 0) {
+          builder.append(", ");
+        }
+        builder.append(getX(i)).append(' ').append(getY(i));
+      }
+      return builder.append(')').toString();
+    }
+  }
+}
@@ -0,0 +1,106 @@
+package io.github.geojson;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 流式写出FeatureCollection，Feature逐个写入Writer或OutputStream，不生成中间的map和字符串。
+ * <pre>
+ * try (FeatureWriter writer = new FeatureWriter(response.getOutputStream())) {
+ *   for (Feature feature : features) {
+ *     writer.write(feature);
+ *   }
+ * }
+ * </pre>
+ * 关闭时补全features数组和FeatureCollection对象的结尾。
+ */
+public class FeatureWriter implements Closeable, Flushable {
+  private final JsonWriter out;
+  private final FeatureAdapter adapter;
+  private boolean started;
+  private boolean closed;
+
+  public FeatureWriter(Writer writer) {
+    this(writer, GeoJSON.getGson());
+  }
+
+  /**
+   * 以UTF-8编码写入OutputStream
+   */
+  public FeatureWriter(OutputStream out) {
+    this(out, GeoJSON.getGson());
+  }
+
+  public FeatureWriter(OutputStream out, Gson gson) {
+    this(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)), gson);
+  }
+
+  /**
+   * @param writer 输出的目标writer对象。
+   * @param gson 用于写出properties的Gson配置，同时决定是否输出null值，参见 {@link GeoJSON#createGson(boolean)}
+   */
+  public FeatureWriter(Writer writer, Gson gson) {
+    this(newJsonWriter(writer, gson), new FeatureAdapter(gson));
+  }
+
+  FeatureWriter(JsonWriter out, FeatureAdapter adapter) {
+    this.out = out;
+    this.adapter = adapter;
+  }
+
+  /**
+   * 写出一个Feature
+   */
+  public void write(Feature feature) throws IOException {
+    begin();
+    adapter.write(out, feature);
+  }
+
+  /**
+   * 依次写出所有Feature
+   */
+  public void writeAll(Iterable<Feature> features) throws IOException {
+    for (Feature feature : features) {
+      write(feature);
+    }
+  }
+
+  @Override public void flush() throws IOException {
+    out.flush();
+  }
+
+  @Override public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    begin();
+    out.endArray();
+    out.endObject();
+    out.close();
+  }
+
+  static JsonWriter newJsonWriter(Writer writer, Gson gson) {
+    JsonWriter out = new JsonWriter(writer);
+    out.setSerializeNulls(gson.serializeNulls());
+    out.setHtmlSafe(gson.htmlSafe());
+    return out;
+  }
+
+  private void begin() throws IOException {
+    if (!started) {
+      started = true;
+      out.beginObject();
+      out.name(FeatureAdapter.NAME_TYPE).value(FeatureAdapter.TYPE_FEATURE_COLLECTION);
+      out.name(FeatureAdapter.NAME_FEATURES).beginArray();
+    }
+  }
+}
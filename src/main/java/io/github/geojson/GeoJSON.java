@@ -2,9 +2,18 @@ package io.github.geojson;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import io.github.geom.Geom;
+import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.Reader;
+import java.io.Writer;
 import java.lang.reflect.Type;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.stream.Stream;
 
 /**
  * 数据的常用方法的工具类。
@@ -37,9 +46,87 @@ public class GeoJSON {
    */
 
   public static final Gson createGson(final boolean serializeNulls) {
+    return createGson(serializeNulls, new GeometryAdapter());
+  }
+
+  /**
+   * Create the standard {@link com.google.gson.Gson} configuration whose geometries are created by the given factory,
+   * e.g. {@link Geom#packedFactory} to decode coordinates into packed coordinate sequences
+   *
+   * @param serializeNulls whether nulls should be serialized
+   * @param geometryFactory factory used to create parsed geometries
+   * @return created gson, never null
+   */
+
+  public static final Gson createGson(final boolean serializeNulls, final GeometryFactory geometryFactory) {
+    return createGson(serializeNulls, new GeometryAdapter(geometryFactory));
+  }
+
+  /**
+   * Create the standard {@link com.google.gson.Gson} configuration writing ordinates with a fixed number of decimals
+   *
+   * @param serializeNulls whether nulls should be serialized
+   * @param precision number of decimals kept for each ordinate, between 0 and 15
+   * @return created gson, never null
+   */
+
+  public static final Gson createGson(final boolean serializeNulls, final int precision) {
+    return createGson(serializeNulls, new GeometryAdapter(new GeometryFactory(), precision));
+  }
+
+  /**
+   * Create the standard {@link com.google.gson.Gson} configuration whose geometries are created by the given factory
+   * and whose ordinates are written with a fixed number of decimals
+   *
+   * @param serializeNulls whether nulls should be serialized
+   * @param geometryFactory factory used to create parsed geometries
+   * @param precision number of decimals kept for each ordinate, between 0 and 15
+   * @return created gson, never null
+   */
+
+  public static final Gson createGson(final boolean serializeNulls, final GeometryFactory geometryFactory,
+      final int precision) {
+    return createGson(serializeNulls, new GeometryAdapter(geometryFactory, precision));
+  }
+
+  /**
+   * Create the standard {@link com.google.gson.Gson} configuration that parses {@code Map<String, Object>} values,
+   * such as {@link Feature#getProperties()}, into compact {@link PropertyMap}s sharing their key schema
+   *
+   * @param serializeNulls whether nulls should be serialized
+   * @return created gson, never null
+   */
+
+  public static final Gson createCompactGson(final boolean serializeNulls) {
+    return createGson(serializeNulls, new GeometryAdapter(), true);
+  }
+
+  /**
+   * Create the standard {@link com.google.gson.Gson} configuration whose geometries are created by the given factory
+   * and whose {@code Map<String, Object>} values are parsed into compact {@link PropertyMap}s
+   *
+   * @param serializeNulls whether nulls should be serialized
+   * @param geometryFactory factory used to create parsed geometries
+   * @return created gson, never null
+   */
+
+  public static final Gson createCompactGson(final boolean serializeNulls, final GeometryFactory geometryFactory) {
+    return createGson(serializeNulls, new GeometryAdapter(geometryFactory), true);
+  }
+
+  private static Gson createGson(final boolean serializeNulls, final GeometryAdapter geometryAdapter) {
+    return createGson(serializeNulls, geometryAdapter, false);
+  }
+
+  private static Gson createGson(final boolean serializeNulls, final GeometryAdapter geometryAdapter,
+      final boolean compactProperties) {
     final GsonBuilder builder = new GsonBuilder();
     //设置Jts空间对象转换为GeoJSON格式的适配器
-    builder.registerTypeHierarchyAdapter(Geometry.class, new GeometryAdapter());
+    builder.registerTypeAdapterFactory(geometryAdapter.factory());
+    if (compactProperties) {
+      //属性表解析为共享属性名结构的PropertyMap
+      builder.registerTypeAdapterFactory(PropertyMapAdapter.factory());
+    }
     //设置JSON格式化的日期格式
     builder.setDateFormat(DEFAULT_DATE_PATTERN);
     if (serializeNulls) {
@@ -173,4 +260,96 @@ public class GeoJSON {
   public static final <V> V parse(Reader reader, Type type) {
     return GSON.fromJson(reader, type);
   }
+
+  /**
+   * 使用内存映射并行解析本地的 {@code FeatureCollection} 文件，参见 {@link GeoJSONFile}。
+   *
+   * @param path UTF-8编码的GeoJSON文件路径
+   * @return 文件中的FeatureCollection，Feature保持文件中的顺序
+   */
+
+  public static final FeatureCollection parse(Path path) {
+    return new FeatureCollection(GeoJSONFile.read(path));
+  }
+
+  /**
+   * 以流的方式逐个读取 {@code FeatureCollection} 中的 {@code Feature}，不会一次性把整个集合加载到内存。
+   *
+   * @param reader 给定的 {@code JSON} reader对象。
+   * @return Feature的流式读取器，使用完毕后需要关闭。
+   */
+
+  public static final FeatureReader featureReader(Reader reader) {
+    return new FeatureReader(reader, GSON);
+  }
+
+  /**
+   * 以流的方式逐个读取 {@code FeatureCollection} 中范围与filter相交的 {@code Feature}。
+   * 不相交的Feature在扫描坐标时即被跳过，不创建JTS对象；bbox成员出现在geometry之前时坐标也不再解析。
+   *
+   * @param reader 给定的 {@code JSON} reader对象。
+   * @param filter 范围过滤条件
+   * @return Feature的流式读取器，使用完毕后需要关闭。
+   */
+
+  public static final FeatureReader featureReader(Reader reader, Envelope filter) {
+    return new FeatureReader(reader, GSON, filter);
+  }
+
+  /**
+   * 以流的方式逐个读取 {@code FeatureCollection} 中的 {@code Feature}，只读取指定名称的属性，其余属性直接跳过。
+   *
+   * @param reader 给定的 {@code JSON} reader对象。
+   * @param propertyNames 需要读取的属性名
+   * @return Feature的流式读取器，使用完毕后需要关闭。
+   */
+
+  public static final FeatureReader featureReader(Reader reader, Set<String> propertyNames) {
+    return new FeatureReader(reader, GSON, propertyNames);
+  }
+
+  /**
+   * 以 {@link Stream} 的方式逐个读取 {@code FeatureCollection} 中的 {@code Feature}，关闭Stream时关闭reader。
+   *
+   * @param reader 给定的 {@code JSON} reader对象。
+   * @return 顺序的Feature流。
+   */
+
+  public static final Stream<Feature> features(Reader reader) {
+    return featureReader(reader).stream();
+  }
+
+  /**
+   * 以 {@link java.util.concurrent.Flow.Publisher} 的方式发布UTF-8编码的 {@code FeatureCollection} 输入流中的
+   * {@code Feature}，按订阅者的请求数逐个解析。
+   *
+   * @param in 给定的输入流，完成、出错或取消订阅时关闭。
+   * @return 只允许一个订阅者的Feature发布者。
+   */
+
+  public static final FeaturePublisher publisher(InputStream in) {
+    return new FeaturePublisher(in);
+  }
+
+  /**
+   * 以流的方式把 {@code Feature} 逐个写出为 {@code FeatureCollection}，关闭时补全结尾。
+   *
+   * @param writer 输出的目标writer对象。
+   * @return Feature的流式写出器，使用完毕后需要关闭。
+   */
+
+  public static final FeatureWriter featureWriter(Writer writer) {
+    return new FeatureWriter(writer, GSON);
+  }
+
+  /**
+   * 以流的方式把 {@code Feature} 逐个以UTF-8编码写出为 {@code FeatureCollection}，关闭时补全结尾。
+   *
+   * @param out 输出的目标流。
+   * @return Feature的流式写出器，使用完毕后需要关闭。
+   */
+
+  public static final FeatureWriter featureWriter(OutputStream out) {
+    return new FeatureWriter(out, GSON);
+  }
 }
@@ -0,0 +1,293 @@
+package io.github.geojson;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.MalformedJsonException;
+import java.io.CharArrayReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+
+/**
+ * 使用内存映射并行读取本地的大型GeoJSON文件（UTF-8编码）。
+ * <p>
+ * 调用线程按字节顺序扫描映射后的文件，只跟踪嵌套层次和字符串状态，找到features数组中元素之间的逗号，
+ * 把连续的若干个Feature组成一个字节区间提交到fork-join线程池。每个任务单独映射自己的区间，
+ * 解码为字符后解析为Feature，扫描和解析同时进行，解析时间随核数增加而缩短。
+ * </p>
+ * 输入可以是FeatureCollection对象，也可以是直接由Feature组成的数组。
+ */
+public class GeoJSONFile {
+  /**
+   * 每个并行解析区间的最小字节数
+   */
+  private static final int BATCH_SIZE = 4 << 20;
+  /**
+   * 扫描时每次映射的字节数
+   */
+  private static final int WINDOW_SIZE = 1 << 30;
+  private static final byte[] NAME_FEATURES = FeatureAdapter.NAME_FEATURES.getBytes(StandardCharsets.UTF_8);
+
+  /**
+   * 并行读取文件中的所有Feature，保持文件中的顺序
+   *
+   * @param path 文件路径
+   * @return 读取到的Feature列表
+   */
+  public static List<Feature> read(Path path) {
+    final List<Feature> features = new ArrayList<Feature>();
+    read(path, features::add, true);
+    return features;
+  }
+
+  /**
+   * 使用公共fork-join线程池并行读取Feature
+   *
+   * @param path 文件路径
+   * @param consumer Feature的处理函数，无序模式下会在多个线程中同时调用，需要是线程安全的
+   * @param ordered 是否按文件中的顺序在调用线程中依次处理Feature
+   */
+  public static void read(Path path, Consumer<? super Feature> consumer, boolean ordered) {
+    read(path, consumer, ordered, ForkJoinPool.commonPool(), GeoJSON.getGson());
+  }
+
+  /**
+   * 并行读取Feature。同时在解析的区间数不超过线程池并行度的两倍，超出时等待最早提交的区间解析完成。
+   *
+   * @param path 文件路径
+   * @param consumer Feature的处理函数，无序模式下会在多个线程中同时调用，需要是线程安全的
+   * @param ordered 有序模式下在调用线程中按文件顺序处理Feature，无序模式下在解析线程中直接处理
+   * @param pool 解析使用的线程池
+   * @param gson 用于解析geometry和properties的Gson配置
+   */
+  public static void read(Path path, Consumer<? super Feature> consumer, boolean ordered, ForkJoinPool pool,
+      Gson gson) {
+    FeatureAdapter adapter = new FeatureAdapter(gson);
+    Deque<ForkJoinTask<List<Feature>>> pending = new ArrayDeque<ForkJoinTask<List<Feature>>>();
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      Scanner scanner = new Scanner(channel, pool, pending, adapter, ordered ? null : consumer);
+      int maxPending = Math.max(2, pool.getParallelism() * 2);
+      long size = channel.size();
+      for (long offset = 0; offset < size && !scanner.finished; offset += WINDOW_SIZE) {
+        MappedByteBuffer window =
+            channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(WINDOW_SIZE, size - offset));
+        int pos = 0;
+        while (pos < window.limit() && !scanner.finished) {
+          pos = scanner.scan(window, offset, pos);
+          while (pending.size() >= maxPending) {
+            GeoJSONSeq.emit(pending.removeFirst().join(), ordered ? consumer : null);
+          }
+        }
+      }
+      scanner.finish();
+      while (!pending.isEmpty()) {
+        GeoJSONSeq.emit(pending.removeFirst().join(), ordered ? consumer : null);
+      }
+    } catch (IOException e) {
+      GeoJSONSeq.cancel(pending);
+      throw new JsonIOException(e);
+    } catch (RuntimeException e) {
+      GeoJSONSeq.cancel(pending);
+      throw e;
+    }
+  }
+
+  /**
+   * 按字节扫描文件的状态机。UTF-8中多字节字符的每个字节都不小于0x80，不会与引号、括号等ASCII字符混淆
+   */
+  private static final class Scanner {
+    private final FileChannel channel;
+    private final ForkJoinPool pool;
+    private final Deque<ForkJoinTask<List<Feature>>> pending;
+    private final FeatureAdapter adapter;
+    private final Consumer<? super Feature> consumer;
+
+    private boolean started;
+    private boolean finished;
+    private int depth;
+    private boolean inString;
+    private boolean escaped;
+    /**
+     * features数组内部的嵌套层次，为0时还没有找到features数组
+     */
+    private int arrayDepth;
+    /**
+     * 根对象中当前字符串与"features"已匹配的字节数，-1表示不匹配
+     */
+    private int keyMatched = -1;
+    private boolean keyFound;
+    private boolean valueExpected;
+    private long batchStart;
+
+    Scanner(FileChannel channel, ForkJoinPool pool, Deque<ForkJoinTask<List<Feature>>> pending,
+        FeatureAdapter adapter, Consumer<? super Feature> consumer) {
+      this.channel = channel;
+      this.pool = pool;
+      this.pending = pending;
+      this.adapter = adapter;
+      this.consumer = consumer;
+    }
+
+    /**
+     * 从pos开始扫描窗口，提交一个区间或扫描到窗口末尾时返回下一个扫描位置
+     */
+    int scan(ByteBuffer window, long offset, int pos) {
+      int limit = window.limit();
+      while (pos < limit) {
+        byte b = window.get(pos++);
+        if (inString) {
+          if (escaped) {
+            escaped = false;
+          } else if (b == '\\') {
+            escaped = true;
+            keyMatched = -1;
+          } else if (b == '"') {
+            inString = false;
+            keyFound = keyMatched == NAME_FEATURES.length;
+            keyMatched = -1;
+          } else if (keyMatched >= 0) {
+            keyMatched = keyMatched < NAME_FEATURES.length && NAME_FEATURES[keyMatched] == b ? keyMatched + 1 : -1;
+          }
+          continue;
+        }
+        if (b == ' ' || b == '\n' || b == '\r' || b == '\t') {
+          continue;
+        }
+        if (!started) {
+          if (b == (byte) 0xEF || b == (byte) 0xBB || b == (byte) 0xBF) {
+            // UTF-8 BOM
+            continue;
+          }
+          started = true;
+          if (b == '[') {
+            depth = 1;
+            arrayDepth = 1;
+            batchStart = offset + pos;
+            continue;
+          } else if (b != '{') {
+            throw new JsonSyntaxException("Expected a FeatureCollection or an array of features at byte "
+                + (offset + pos - 1));
+          }
+        }
+        boolean expectingArray = valueExpected;
+        valueExpected = false;
+        switch (b) {
+          case '"':
+            inString = true;
+            keyMatched = arrayDepth == 0 && depth == 1 ? 0 : -1;
+            keyFound = false;
+            break;
+          case ':':
+            valueExpected = keyFound && arrayDepth == 0 && depth == 1;
+            keyFound = false;
+            break;
+          case '{':
+            depth++;
+            break;
+          case '[':
+            depth++;
+            if (expectingArray) {
+              arrayDepth = depth;
+              batchStart = offset + pos;
+            }
+            break;
+          case '}':
+          case ']':
+            if (depth == arrayDepth) {
+              submit(batchStart, offset + pos - 1);
+              finished = true;
+              return pos;
+            }
+            depth--;
+            break;
+          case ',':
+            if (depth == arrayDepth && offset + pos - 1 - batchStart >= BATCH_SIZE) {
+              submit(batchStart, offset + pos - 1);
+              batchStart = offset + pos;
+              return pos;
+            }
+            break;
+          default:
+            keyFound = false;
+        }
+      }
+      return pos;
+    }
+
+    void finish() {
+      if (!finished && (inString || depth > 0 || !started)) {
+        throw new JsonSyntaxException(started ? "Unterminated GeoJSON document" : "Empty GeoJSON document");
+      }
+    }
+
+    /**
+     * 提交一个由逗号分隔的Feature组成的字节区间[start, end)
+     */
+    private void submit(final long start, final long end) {
+      if (end <= start) {
+        return;
+      }
+      if (end - start > Integer.MAX_VALUE - 2) {
+        throw new JsonSyntaxException("Feature larger than 2GB at byte " + start);
+      }
+      pending.addLast(pool.submit(() -> parseRange(channel, start, (int) (end - start), adapter, consumer)));
+    }
+  }
+
+  /**
+   * 映射并解析一个字节区间，区间内容包在方括号中作为Feature数组解析。
+   * consumer不为null时直接交给consumer处理，否则收集后返回
+   */
+  private static List<Feature> parseRange(FileChannel channel, long start, int length, FeatureAdapter adapter,
+      Consumer<? super Feature> consumer) {
+    List<Feature> features = consumer == null ? new ArrayList<Feature>() : Collections.<Feature>emptyList();
+    try {
+      MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+      CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+          .onMalformedInput(CodingErrorAction.REPLACE)
+          .onUnmappableCharacter(CodingErrorAction.REPLACE);
+      // UTF-8解码后的字符数不超过字节数
+      CharBuffer chars = CharBuffer.allocate(length + 2);
+      chars.put('[');
+      decoder.decode(bytes, chars, true);
+      decoder.flush(chars);
+      chars.put(']');
+      JsonReader in = new JsonReader(new CharArrayReader(chars.array(), 0, chars.position()));
+      in.beginArray();
+      while (in.hasNext()) {
+        Feature feature = adapter.read(in);
+        if (feature == null) {
+          continue;
+        }
+        if (consumer == null) {
+          features.add(feature);
+        } else {
+          consumer.accept(feature);
+        }
+      }
+      in.endArray();
+    } catch (MalformedJsonException | IllegalStateException | NumberFormatException e) {
+      throw new JsonSyntaxException(e);
+    } catch (IOException e) {
+      throw new JsonIOException(e);
+    }
+    return features;
+  }
+}
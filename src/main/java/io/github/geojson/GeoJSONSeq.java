@@ -0,0 +1,244 @@
+package io.github.geojson;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.google.gson.stream.MalformedJsonException;
+import java.io.BufferedWriter;
+import java.io.CharArrayReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+
+/**
+ * 按行分隔的GeoJSON（GeoJSONSeq，RFC 8142）读写工具类，每行一个Feature。
+ * <p>
+ * 写出时每个Feature占一行，可选在行首输出RFC 8142要求的记录分隔符（0x1E）。
+ * 读取时输入按行切分为若干块，在fork-join线程池中并行解析，行首的记录分隔符和空行会被忽略。
+ * </p>
+ */
+public class GeoJSONSeq {
+  /**
+   * RFC 8142 记录分隔符
+   */
+  public static final char RECORD_SEPARATOR = '\u001e';
+  /**
+   * 每个并行解析块的最小字符数
+   */
+  private static final int CHUNK_SIZE = 1 << 20;
+
+  /**
+   * 把Feature逐行写出，不输出记录分隔符
+   *
+   * @param writer 输出的目标writer对象。
+   * @param features 要写出的Feature。
+   */
+  public static void write(Writer writer, Iterable<Feature> features) throws IOException {
+    write(writer, features, false);
+  }
+
+  /**
+   * 把Feature逐行以UTF-8编码写出，不输出记录分隔符
+   *
+   * @param out 输出的目标流。
+   * @param features 要写出的Feature。
+   */
+  public static void write(OutputStream out, Iterable<Feature> features) throws IOException {
+    Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+    write(writer, features, false);
+    writer.flush();
+  }
+
+  /**
+   * 把Feature逐行写出
+   *
+   * @param writer 输出的目标writer对象。
+   * @param features 要写出的Feature。
+   * @param recordSeparator 是否在每行行首输出RFC 8142的记录分隔符
+   */
+  public static void write(Writer writer, Iterable<Feature> features, boolean recordSeparator) throws IOException {
+    write(writer, features, recordSeparator, GeoJSON.getGson());
+  }
+
+  /**
+   * 把Feature逐行写出
+   *
+   * @param writer 输出的目标writer对象。
+   * @param features 要写出的Feature。
+   * @param recordSeparator 是否在每行行首输出RFC 8142的记录分隔符
+   * @param gson 用于写出geometry和properties的Gson配置
+   */
+  public static void write(Writer writer, Iterable<Feature> features, boolean recordSeparator, Gson gson)
+      throws IOException {
+    FeatureAdapter adapter = new FeatureAdapter(gson);
+    JsonWriter out = FeatureWriter.newJsonWriter(writer, gson);
+    // 宽松模式下JsonWriter允许连续写出多个顶层对象
+    out.setLenient(true);
+    for (Feature feature : features) {
+      if (recordSeparator) {
+        writer.write(RECORD_SEPARATOR);
+      }
+      adapter.write(out, feature);
+      writer.write('\n');
+    }
+    out.flush();
+  }
+
+  /**
+   * 并行读取所有Feature
+   *
+   * @param reader 给定的reader对象。
+   * @param ordered 返回的Feature是否保持输入中的顺序
+   * @return 读取到的Feature列表
+   */
+  public static List<Feature> read(Reader reader, boolean ordered) {
+    final List<Feature> features = ordered ? new ArrayList<Feature>() : Collections.synchronizedList(new ArrayList<Feature>());
+    read(reader, features::add, ordered);
+    return features;
+  }
+
+  /**
+   * 使用公共fork-join线程池并行读取Feature
+   *
+   * @param reader 给定的reader对象。
+   * @param consumer Feature的处理函数，无序模式下会在多个线程中同时调用，需要是线程安全的
+   * @param ordered 是否按输入中的顺序在调用线程中依次处理Feature
+   */
+  public static void read(Reader reader, Consumer<? super Feature> consumer, boolean ordered) {
+    read(reader, consumer, ordered, ForkJoinPool.commonPool(), GeoJSON.getGson());
+  }
+
+  /**
+   * 并行读取Feature。
+   * <p>
+   * 输入按行切分为不少于1M字符的块，每块作为一个任务提交到线程池中解析。为避免整个文件堆积在内存中，
+   * 同时在解析的块数不超过线程池并行度的两倍，超出时等待最早提交的块解析完成。
+   * </p>
+   *
+   * @param reader 给定的reader对象。
+   * @param consumer Feature的处理函数，无序模式下会在多个线程中同时调用，需要是线程安全的
+   * @param ordered 有序模式下在调用线程中按输入顺序处理Feature，无序模式下在解析线程中直接处理
+   * @param pool 解析使用的线程池
+   * @param gson 用于解析geometry和properties的Gson配置
+   */
+  public static void read(Reader reader, final Consumer<? super Feature> consumer, final boolean ordered,
+      ForkJoinPool pool, Gson gson) {
+    final FeatureAdapter adapter = new FeatureAdapter(gson);
+    int maxPending = Math.max(2, pool.getParallelism() * 2);
+    Deque<ForkJoinTask<List<Feature>>> pending = new ArrayDeque<ForkJoinTask<List<Feature>>>();
+    try {
+      char[] buf = new char[CHUNK_SIZE];
+      int len = 0;
+      while (true) {
+        int n = reader.read(buf, len, buf.length - len);
+        if (n < 0) {
+          if (len > 0) {
+            submit(pool, pending, Arrays.copyOf(buf, len), adapter, ordered ? null : consumer);
+          }
+          break;
+        }
+        len += n;
+        if (len < buf.length) {
+          continue;
+        }
+        int cut = lastLineBreak(buf, len);
+        if (cut < 0) {
+          // 单行超过了缓冲区的大小
+          buf = Arrays.copyOf(buf, buf.length * 2);
+          continue;
+        }
+        submit(pool, pending, Arrays.copyOf(buf, cut + 1), adapter, ordered ? null : consumer);
+        len -= cut + 1;
+        System.arraycopy(buf, cut + 1, buf, 0, len);
+        while (pending.size() >= maxPending) {
+          emit(pending.removeFirst().join(), ordered ? consumer : null);
+        }
+      }
+      while (!pending.isEmpty()) {
+        emit(pending.removeFirst().join(), ordered ? consumer : null);
+      }
+    } catch (IOException e) {
+      cancel(pending);
+      throw new JsonIOException(e);
+    } catch (RuntimeException e) {
+      cancel(pending);
+      throw e;
+    }
+  }
+
+  private static void submit(ForkJoinPool pool, Deque<ForkJoinTask<List<Feature>>> pending, final char[] chunk,
+      final FeatureAdapter adapter, final Consumer<? super Feature> consumer) {
+    pending.addLast(pool.submit(() -> parseChunk(chunk, adapter, consumer)));
+  }
+
+  static void emit(List<Feature> features, Consumer<? super Feature> consumer) {
+    if (consumer != null) {
+      for (Feature feature : features) {
+        consumer.accept(feature);
+      }
+    }
+  }
+
+  static void cancel(Deque<ForkJoinTask<List<Feature>>> pending) {
+    for (ForkJoinTask<List<Feature>> task : pending) {
+      task.cancel(false);
+    }
+  }
+
+  private static int lastLineBreak(char[] buf, int len) {
+    for (int i = len - 1; i >= 0; i--) {
+      if (buf[i] == '\n') {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * 解析一块完整的行。consumer不为null时直接交给consumer处理，否则收集后返回
+   */
+  private static List<Feature> parseChunk(char[] chunk, FeatureAdapter adapter, Consumer<? super Feature> consumer) {
+    for (int i = 0; i < chunk.length; i++) {
+      if (chunk[i] == RECORD_SEPARATOR) {
+        chunk[i] = ' ';
+      }
+    }
+    List<Feature> features = consumer == null ? new ArrayList<Feature>() : Collections.<Feature>emptyList();
+    JsonReader in = new JsonReader(new CharArrayReader(chunk));
+    // 宽松模式下JsonReader可以连续读取以空白分隔的多个顶层对象
+    in.setLenient(true);
+    try {
+      while (in.peek() != JsonToken.END_DOCUMENT) {
+        Feature feature = adapter.read(in);
+        if (feature == null) {
+          continue;
+        }
+        if (consumer == null) {
+          features.add(feature);
+        } else {
+          consumer.accept(feature);
+        }
+      }
+    } catch (MalformedJsonException | IllegalStateException | NumberFormatException e) {
+      throw new JsonSyntaxException(e);
+    } catch (IOException e) {
+      throw new JsonIOException(e);
+    }
+    return features;
+  }
+}
@@ -1,34 +1,36 @@
 package io.github.geojson;
 
-import com.google.gson.JsonArray;
-import com.google.gson.JsonDeserializationContext;
-import com.google.gson.JsonDeserializer;
+import com.google.gson.Gson;
 import com.google.gson.JsonElement;
-import com.google.gson.JsonParseException;
-import com.google.gson.JsonSerializationContext;
-import com.google.gson.JsonSerializer;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 import io.github.geom.Geom;
-import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.CoordinateSequence;
+import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.geom.Geometry;
-import org.locationtech.jts.geom.GeometryCollection;
 import org.locationtech.jts.geom.GeometryFactory;
 import org.locationtech.jts.geom.LineString;
 import org.locationtech.jts.geom.LinearRing;
 import org.locationtech.jts.geom.MultiLineString;
-import org.locationtech.jts.geom.MultiPoint;
 import org.locationtech.jts.geom.MultiPolygon;
 import org.locationtech.jts.geom.Point;
 import org.locationtech.jts.geom.Polygon;
-import java.lang.reflect.Type;
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Map;
 
 /**
  * Created by Administrator on 2015/10/11.
+ * <p>
+ * 直接在token级别读写GeoJSON几何对象，不经过Gson的JsonElement树。
+ * </p>
  */
-public class GeometryAdapter implements JsonSerializer<Geometry>, JsonDeserializer<Geometry> {
+public class GeometryAdapter extends TypeAdapter<Geometry> {
   private final String NAME_GEOMETRIES = "geometries";
   private final String NAME_CRS = "crs";
   private final String NAME_PROPERTIES = "properties";
@@ -43,289 +45,400 @@ public class GeometryAdapter implements JsonSerializer<Geometry>, JsonDeserializ
   private final String NAME_GEOMETRY_COLLECTION = "GeometryCollection";
   private final String EPSG_PREFIX = "EPSG:";
   private final String NAME_COORDINATES = "coordinates";
-  private GeometryFactory geomFactory = new GeometryFactory();
+  private final String NAME_BBOX = "bbox";
+  private static final int MAX_RETAINED_ORDINATES = 1 << 20;
+  private static final ThreadLocal<CoordinateBuffer> BUFFER = ThreadLocal.withInitial(CoordinateBuffer::new);
+  private static final double MIN_ROUNDING = 1e-3;
+  private static final double MAX_ROUNDING = 1e7;
+  private GeometryFactory geomFactory;
   private double scale = Math.pow(10, 8);
+  private final OrdinateFormat ordinateFormat;
 
-  @Override public Geometry deserialize(JsonElement jsonElement, Type type, JsonDeserializationContext context)
-      throws JsonParseException {
-    return toJts(jsonElement);
+  public GeometryAdapter() {
+    this(new GeometryFactory());
   }
 
-  @Override public JsonElement serialize(Geometry geometry, Type type, JsonSerializationContext context) {
-    return context.serialize(formGeometry(geometry));
+  /**
+   * 使用指定的几何工厂创建解析出的JTS对象。
+   * 传入 {@link Geom#packedFactory} 或 {@link Geom#packedFloatFactory} 时坐标直接解析为紧凑的坐标序列，
+   * 每个坐标点占用16（float为8）个字节，而不是一个Coordinate对象。
+   *
+   * @param geomFactory 几何工厂
+   */
+  public GeometryAdapter(GeometryFactory geomFactory) {
+    this.geomFactory = geomFactory;
+    this.ordinateFormat = null;
+  }
+
+  /**
+   * 写出坐标时按固定的小数位数直接格式化，整数值不输出小数点，末尾的0也被去掉。
+   *
+   * @param geomFactory 几何工厂
+   * @param precision 保留的小数位数，0到15之间，经纬度坐标一般取6或7
+   */
+  public GeometryAdapter(GeometryFactory geomFactory, int precision) {
+    this.geomFactory = geomFactory;
+    this.ordinateFormat = new OrdinateFormat(precision);
   }
 
   /**
-   * JTS对象转换为map对象，进行json序列化
+   * 把JTS对象直接写入JsonWriter，坐标从CoordinateSequence中逐个读取，不生成中间的map和数组
    */
-  private Map<String, Object> formGeometry(Geometry geometry) {
-    Map<String, Object> result = new LinkedHashMap<String, Object>();
-    result.put(NAME_TYPE, geometry.getGeometryType());
-    switch (Geom.Type.from(geometry)){
+  @Override public void write(JsonWriter out, Geometry geometry) throws IOException {
+    if (geometry == null) {
+      out.nullValue();
+      return;
+    }
+    out.beginObject();
+    out.name(NAME_TYPE).value(geometry.getGeometryType());
+    switch (Geom.Type.from(geometry)) {
       case POINT:
-        result.put(NAME_COORDINATES, fromPoint((Point) geometry));
+        out.name(NAME_COORDINATES);
+        writePoint(out, (Point) geometry);
         break;
       case LINESTRING:
-        result.put(NAME_COORDINATES, fromLineString((LineString) geometry));
+        out.name(NAME_COORDINATES);
+        writeCoordinates(out, ((LineString) geometry).getCoordinateSequence());
         break;
       case POLYGON:
-        result.put(NAME_COORDINATES, fromPolygon((Polygon) geometry));
+        out.name(NAME_COORDINATES);
+        writePolygon(out, (Polygon) geometry);
         break;
       case MULTIPOINT:
-        result.put(NAME_COORDINATES, fromMultiPoint((MultiPoint) geometry));
+        out.name(NAME_COORDINATES).beginArray();
+        for (int i = 0; i < geometry.getNumGeometries(); i++) {
+          writePosition(out, ((Point) geometry.getGeometryN(i)).getCoordinateSequence(), 0);
+        }
+        out.endArray();
         break;
       case MULTILINESTRING:
-        result.put(NAME_COORDINATES, fromMultiLineString((MultiLineString) geometry));
+        out.name(NAME_COORDINATES).beginArray();
+        for (int i = 0; i < geometry.getNumGeometries(); i++) {
+          writeCoordinates(out, ((LineString) geometry.getGeometryN(i)).getCoordinateSequence());
+        }
+        out.endArray();
         break;
       case MULTIPOLYGON:
-        result.put(NAME_COORDINATES, fromMulitPolygon((MultiPolygon) geometry));
+        out.name(NAME_COORDINATES).beginArray();
+        for (int i = 0; i < geometry.getNumGeometries(); i++) {
+          writePolygon(out, (Polygon) geometry.getGeometryN(i));
+        }
+        out.endArray();
         break;
       case GEOMETRYCOLLECTION:
-        GeometryCollection geometryCollection = (GeometryCollection) geometry;
-        List<Map<String, Object>> geometries = new ArrayList<Map<String, Object>>(geometryCollection.getNumGeometries());
-        for (int i = 0; i < geometryCollection.getNumGeometries(); i++) {
-          geometries.add(formGeometry(geometryCollection.getGeometryN(i)));
+        out.name(NAME_GEOMETRIES).beginArray();
+        for (int i = 0; i < geometry.getNumGeometries(); i++) {
+          write(out, geometry.getGeometryN(i));
         }
-        result.put(NAME_GEOMETRIES, geometries);
+        out.endArray();
         break;
       default:
         throw new IllegalArgumentException("Unable to encode geometry " + geometry.getGeometryType());
     }
-    /*if (encodeCRS) {
-      result.put(GeoJsonConstants.NAME_CRS, createCRS(geometry.getSRID()));
-    }*/
-    return result;
+    out.endObject();
   }
 
-  /**
-   * 转换jts点对象到geojson点对象
-   */
-  private double[] fromPoint(Point pt) {
-    Coordinate coord = pt.getCoordinate();
-    int size = !Double.isNaN(coord.z) ? 3 : 2;
-    double[] coordinates = new double[size];
-    coordinates[0] = formatOrdinate(coord.x);
-    coordinates[1] = formatOrdinate(coord.y);
-    if (!Double.isNaN(coord.z)) {
-      coordinates[2] = formatOrdinate(coord.z);
+  private void writePoint(JsonWriter out, Point point) throws IOException {
+    CoordinateSequence seq = point.getCoordinateSequence();
+    if (seq.size() == 0) {
+      out.beginArray().endArray();
+    } else {
+      writePosition(out, seq, 0);
+    }
+  }
+
+  private void writePolygon(JsonWriter out, Polygon polygon) throws IOException {
+    out.beginArray();
+    if (!polygon.isEmpty()) {
+      writeCoordinates(out, polygon.getExteriorRing().getCoordinateSequence());
+      for (int i = 0; i < polygon.getNumInteriorRing(); i++) {
+        writeCoordinates(out, polygon.getInteriorRingN(i).getCoordinateSequence());
+      }
+    }
+    out.endArray();
+  }
+
+  private void writeCoordinates(JsonWriter out, CoordinateSequence seq) throws IOException {
+    out.beginArray();
+    for (int i = 0, size = seq.size(); i < size; i++) {
+      writePosition(out, seq, i);
+    }
+    out.endArray();
+  }
+
+  private void writePosition(JsonWriter out, CoordinateSequence seq, int i) throws IOException {
+    out.beginArray();
+    writeOrdinate(out, seq.getX(i));
+    writeOrdinate(out, seq.getY(i));
+    double z = seq.getZ(i);
+    if (!Double.isNaN(z)) {
+      writeOrdinate(out, z);
+    }
+    out.endArray();
+  }
+
+  private void writeOrdinate(JsonWriter out, double x) throws IOException {
+    if (ordinateFormat == null) {
+      out.value(formatOrdinate(x));
+      return;
+    }
+    String str = ordinateFormat.format(x);
+    if (str == null) {
+      out.value(x);
+    } else {
+      out.jsonValue(str);
     }
-    return coordinates;
   }
 
   /**
-   * 转换jts多点对象到geojson多点对象
+   * 把GeoJson对象转换为JTS对象，coordinates和type的先后顺序不影响解析
    */
-  private List<double[]> fromMultiPoint(MultiPoint mpt) {
-    return toCoordinates(mpt.getCoordinates());
+  @Override public Geometry read(JsonReader in) throws IOException {
+    return read(in, null);
   }
 
   /**
-   * 转换jts线对象到geojson线对象
+   * 把GeoJson对象转换为JTS对象，范围与filter不相交的几何对象直接跳过，不创建JTS对象。
+   * 几何对象带有bbox成员且出现在coordinates之前时，coordinates不再解析。
+   *
+   * @param filter 范围过滤条件，为null时不过滤
+   * @return JTS对象，为null或被过滤掉时返回null
    */
-  private List<double[]> fromLineString(LineString lineString) {
-    return toCoordinates(lineString.getCoordinates());
+  Geometry read(JsonReader in, Envelope filter) throws IOException {
+    if (in.peek() == JsonToken.NULL) {
+      in.nextNull();
+      return null;
+    }
+    String type = null;
+    CoordinateBuffer coordinates = null;
+    List<Geometry> geometries = null;
+    boolean rejected = false;
+    try {
+      in.beginObject();
+      while (in.hasNext()) {
+        String name = in.nextName();
+        if (rejected) {
+          in.skipValue();
+        } else if (NAME_TYPE.equals(name)) {
+          type = in.nextString();
+        } else if (NAME_BBOX.equals(name) && filter != null) {
+          rejected = !bboxIntersects(in, filter);
+        } else if (NAME_COORDINATES.equals(name) && in.peek() == JsonToken.BEGIN_ARRAY) {
+          coordinates = borrowBuffer(coordinates);
+          coordinates.read(in);
+          rejected = filter != null
+              && !coordinates.intersects(filter.getMinX(), filter.getMinY(), filter.getMaxX(), filter.getMaxY());
+        } else if (NAME_GEOMETRIES.equals(name) && in.peek() == JsonToken.BEGIN_ARRAY) {
+          geometries = new ArrayList<Geometry>();
+          in.beginArray();
+          while (in.hasNext()) {
+            Geometry geometry = read(in, null);
+            if (geometry != null) {
+              geometries.add(geometry);
+            }
+          }
+          in.endArray();
+        } else {
+          in.skipValue();
+        }
+      }
+      in.endObject();
+      if (rejected) {
+        return null;
+      }
+      Geometry geom = toJts(type, coordinates, geometries);
+      if (filter != null && !filter.intersects(geom.getEnvelopeInternal())) {
+        return null;
+      }
+      return geom;
+    } finally {
+      if (coordinates != null) {
+        releaseBuffer(coordinates);
+      }
+    }
   }
 
   /**
-   * 转换jts多线对象到geojson多线对象
+   * 以 {@link TypeAdapterFactory} 的形式注册本适配器。请求Geometry类型时直接返回本适配器，
+   * 请求子类型（如Point）时读取后检查解析结果的类型。
    */
-  private List<List<double[]>> fromMultiLineString(MultiLineString multiLineString) {
-    int size = multiLineString.getNumGeometries();
-    List<List<double[]>> list = new ArrayList<List<double[]>>(size);
-    for (int i = 0; i < size; i++) {
-      list.add(toCoordinates(multiLineString.getGeometryN(i).getCoordinates()));
-    }
-    return list;
+  public TypeAdapterFactory factory() {
+    final GeometryAdapter adapter = this;
+    return new TypeAdapterFactory() {
+      @SuppressWarnings("unchecked")
+      @Override public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> typeToken) {
+        final Class<? super T> rawType = typeToken.getRawType();
+        if (rawType == Geometry.class) {
+          return (TypeAdapter<T>) adapter;
+        }
+        if (!Geometry.class.isAssignableFrom(rawType)) {
+          return null;
+        }
+        return (TypeAdapter<T>) new TypeAdapter<Geometry>() {
+          @Override public void write(JsonWriter out, Geometry geometry) throws IOException {
+            adapter.write(out, geometry);
+          }
+
+          @Override public Geometry read(JsonReader in) throws IOException {
+            Geometry geometry = adapter.read(in);
+            if (geometry != null && !rawType.isInstance(geometry)) {
+              throw new JsonSyntaxException(
+                  "Expected a " + rawType.getName() + " but was " + geometry.getClass().getName());
+            }
+            return geometry;
+          }
+        };
+      }
+    };
   }
 
   /**
-   * 转换jts面对像到geojson面对像
+   * 读取bbox成员，判断是否与filter相交。bbox格式不正确时视为相交，由坐标本身决定
    */
-  private List<List<double[]>> fromPolygon(Polygon polygon) {
-    int size = polygon.getNumInteriorRing();
-    List<List<double[]>> list = new ArrayList<List<double[]>>(size);
-    list.add(fromLineString(polygon.getExteriorRing()));
-    for (int i = 0; i < size; i++) {
-      list.add(fromLineString(polygon.getInteriorRingN(i)));
+  static boolean bboxIntersects(JsonReader in, Envelope filter) throws IOException {
+    if (in.peek() != JsonToken.BEGIN_ARRAY) {
+      in.skipValue();
+      return true;
     }
-    return list;
+    double[] bbox = new double[6];
+    int size = 0;
+    in.beginArray();
+    while (in.hasNext()) {
+      if (size < bbox.length && in.peek() == JsonToken.NUMBER) {
+        bbox[size++] = in.nextDouble();
+      } else {
+        in.skipValue();
+        size = bbox.length + 1;
+      }
+    }
+    in.endArray();
+    if (size == 4) {
+      return filter.intersects(new Envelope(bbox[0], bbox[2], bbox[1], bbox[3]));
+    } else if (size == 6) {
+      return filter.intersects(new Envelope(bbox[0], bbox[3], bbox[1], bbox[4]));
+    }
+    return true;
   }
 
   /**
-   * 转换jts多面对象到geojson多面对象
+   * 取得当前线程可重复使用的坐标缓冲区，嵌套调用时缓冲区正在使用则新建一个
    */
-  private List<List<List<double[]>>> fromMulitPolygon(MultiPolygon multiPolygon) {
-    int size = multiPolygon.getNumGeometries();
-    List<List<List<double[]>>> list = new ArrayList<List<List<double[]>>>(size);
-    for (int i = 0; i < size; i++) {
-      list.add(fromPolygon((Polygon) multiPolygon.getGeometryN(i)));
+  private static CoordinateBuffer borrowBuffer(CoordinateBuffer previous) {
+    if (previous != null) {
+      previous.reset();
+      return previous;
+    }
+    CoordinateBuffer buffer = BUFFER.get();
+    if (buffer.inUse) {
+      buffer = new CoordinateBuffer();
     }
-    return list;
+    buffer.reset();
+    buffer.inUse = true;
+    return buffer;
   }
 
   /**
-   * 把JTS的坐标对象转换为GeoJson坐标对象
+   * 归还坐标缓冲区，解析超大几何对象后扩容过的缓冲区不再保留在线程中
    */
-  private List<double[]> toCoordinates(Coordinate[] coords) {
-    int size = coords.length;
-    List<double[]> List = new ArrayList<double[]>(size);
-    for (int i = 0; i < size; i++) {
-      int len = !Double.isNaN(coords[i].z) ? 3 : 2;
-      double[] coordinates = new double[len];
-      coordinates[0] = formatOrdinate(coords[i].x);
-      coordinates[1] = formatOrdinate(coords[i].y);
-      if (!Double.isNaN(coords[i].z)) {
-        coordinates[2] = formatOrdinate(coords[i].z);
-      }
-      List.add(coordinates);
+  private static void releaseBuffer(CoordinateBuffer buffer) {
+    buffer.inUse = false;
+    if (buffer.ords.length > MAX_RETAINED_ORDINATES && BUFFER.get() == buffer) {
+      BUFFER.remove();
     }
-    return List;
   }
 
   /**
    * 把GeoJson对象转换为JTS对象
    */
   public Geometry toJts(JsonElement jsonElement) {
-    String type = jsonElement.getAsJsonObject().get(NAME_TYPE).getAsString();
-    JsonElement coordsElement = jsonElement.getAsJsonObject().get(NAME_COORDINATES);
+    return fromJsonTree(jsonElement);
+  }
+
+  private Geometry toJts(String type, CoordinateBuffer coordinates, List<Geometry> geometries) {
+    if (NAME_GEOMETRY_COLLECTION.equals(type)) {
+      Geometry[] geometrieList = geometries == null ? new Geometry[0] : geometries.toArray(new Geometry[geometries.size()]);
+      return geomFactory.createGeometryCollection(geometrieList);
+    }
+    if (type != null && coordinates == null) {
+      throw new JsonSyntaxException("Missing coordinates for GeoJSON type " + type);
+    }
     Geometry geom = null;
     // check type and convert
     if (NAME_POINT.equals(type)) {
-      geom = toPoint(coordsElement);
+      geom = toPoint(coordinates, type);
     } else if (NAME_MULTI_POINT.equals(type)) {
-      geom = toMultiPoint(coordsElement);
+      geom = geomFactory.createMultiPoint(coordinates.nextSequence(geomFactory, type));
     } else if (NAME_LINE_STRING.equals(type)) {
-      geom = toLineString(coordsElement);
+      geom = geomFactory.createLineString(coordinates.nextSequence(geomFactory, type));
     } else if (NAME_MULTI_LINE_STRING.equals(type)) {
-      geom = toMultiLineString(coordsElement);
+      geom = toMultiLineString(coordinates, type);
     } else if (NAME_POLYGON.equals(type)) {
-      geom = toPolygon(coordsElement);
+      geom = toPolygon(coordinates, type);
     } else if (NAME_MULTI_POLYGON.equals(type)) {
-      geom = toMultiPolygon(coordsElement);
-    } else if (NAME_GEOMETRY_COLLECTION.equals(type)) {
-      JsonArray geometrys = jsonElement.getAsJsonObject().get(NAME_GEOMETRIES).getAsJsonArray();
-      int size = geometrys.size();
-      Geometry[] geometrieList = new Geometry[size];
-      for (int i = 0; i < size; i++) {
-        geometrieList[i] = toJts(geometrys.get(i));
-      }
-      geom = new GeometryCollection(geometrieList, geomFactory);
+      geom = toMultiPolygon(coordinates, type);
     } else {
-      throw new IllegalArgumentException("Unsupported GeoGeometry type: " + jsonElement.getAsString());
+      throw new IllegalArgumentException("Unsupported GeoGeometry type: " + type);
+    }
+    if (!coordinates.isExhausted()) {
+      throw new JsonSyntaxException("Invalid coordinates for GeoJSON type " + type);
     }
     return geom;
   }
 
   /**
-   * 把GeoJson对象转换为JTS的Point对象
+   * 坐标缓冲区转换为JTS的Point对象，空数组对应空的Point
    */
-  private Geometry toPoint(JsonElement jsonElement) {
-    JsonArray pts = jsonElement.getAsJsonArray();
-    if (pts.size() > 2) {
-      return geomFactory.createPoint(
-          new Coordinate(pts.get(0).getAsDouble(), pts.get(1).getAsDouble(), pts.get(2).getAsDouble()));
-    } else {
-      return geomFactory.createPoint(new Coordinate(pts.get(0).getAsDouble(), pts.get(1).getAsDouble()));
+  private Point toPoint(CoordinateBuffer coordinates, String type) {
+    if (coordinates.isPosition()) {
+      return geomFactory.createPoint(coordinates.nextPosition(geomFactory, type));
     }
+    coordinates.expect(CoordinateBuffer.BEGIN, type);
+    coordinates.expect(CoordinateBuffer.END, type);
+    return geomFactory.createPoint();
   }
 
   /**
-   * GSON的Element对象转换成JTS的MultiPoint对象
-   * @param jsonElement
-   * @return
-   */
-  private MultiPoint toMultiPoint(JsonElement jsonElement) {
-    JsonArray array = jsonElement.getAsJsonArray();
-    Coordinate[] coords = toCoordinates(array);
-    return geomFactory.createMultiPoint(coords);
-  }
-
-  /**
-   * GSON的Element对象转换成JTS的LIneString对象
-   * @param jsonElement
-   * @return
-   */
-  private LineString toLineString(JsonElement jsonElement) {
-    JsonArray array = jsonElement.getAsJsonArray();
-    Coordinate[] coords = toCoordinates(array);
-    return geomFactory.createLineString(coords);
-  }
-
-  /**
-   * GSON的Element对象转成JTS的MultiLineString对象
-   * @param jsonElement
-   * @return
+   * 坐标缓冲区转成JTS的MultiLineString对象
    */
-  private MultiLineString toMultiLineString(JsonElement jsonElement) {
-    JsonArray array = jsonElement.getAsJsonArray();
-    int size = array.size();
-    LineString[] lineStrings = new LineString[size];
-    for (int i = 0; i < size; i++) {
-      lineStrings[i] = toLineString(array.get(i));
+  private MultiLineString toMultiLineString(CoordinateBuffer coordinates, String type) {
+    List<LineString> lineStrings = new ArrayList<LineString>();
+    coordinates.expect(CoordinateBuffer.BEGIN, type);
+    while (!coordinates.isEnd()) {
+      lineStrings.add(geomFactory.createLineString(coordinates.nextSequence(geomFactory, type)));
     }
-    return geomFactory.createMultiLineString(lineStrings);
-  }
-
-  /**
-   * GSON的Element对象转成JTS的Polygon对象
-   * @param jsonElement
-   * @return
-   */
-  private Polygon toPolygon(JsonElement jsonElement) {
-    return toPolygon(jsonElement.getAsJsonArray());
+    coordinates.expect(CoordinateBuffer.END, type);
+    return geomFactory.createMultiLineString(lineStrings.toArray(new LineString[lineStrings.size()]));
   }
 
   /**
-   * GSON的Element对象转成JTS MultiPolygon对象
-   * @param jsonElement
-   * @return
+   * 坐标缓冲区转成JTS的Polygon对象，第一个环为外环，其余为内环
    */
-  private MultiPolygon toMultiPolygon(JsonElement jsonElement) {
-    JsonArray coordinates = jsonElement.getAsJsonArray();
-    int size = coordinates.size();
-    Polygon[] polygons = new Polygon[size];
-    for (int i = 0; i < size; i++) {
-      polygons[i] = toPolygon(coordinates.get(i).getAsJsonArray());
+  private Polygon toPolygon(CoordinateBuffer coordinates, String type) {
+    coordinates.expect(CoordinateBuffer.BEGIN, type);
+    if (coordinates.isEnd()) {
+      coordinates.expect(CoordinateBuffer.END, type);
+      return geomFactory.createPolygon();
     }
-    return geomFactory.createMultiPolygon(polygons);
-  }
-
-  /**
-   * GSON的array对象转成JTS Polygon对象
-   * @param coordinates
-   * @return
-   */
-  private Polygon toPolygon(JsonArray coordinates) {
-    int size = coordinates.size();
-    LinearRing shell = geomFactory.createLinearRing(toCoordinates(coordinates.get(0).getAsJsonArray()));
-    if (size > 1) {
-      LinearRing[] holes = new LinearRing[size - 1];
-      for (int i = 0; i < size - 1; i++) {
-        holes[i] = geomFactory.createLinearRing(toCoordinates(coordinates.get(i + 1).getAsJsonArray()));
-      }
-      return geomFactory.createPolygon(shell, holes);
-    } else {
-      return geomFactory.createPolygon(shell);
+    LinearRing shell = geomFactory.createLinearRing(coordinates.nextSequence(geomFactory, type));
+    List<LinearRing> holes = new ArrayList<LinearRing>();
+    while (!coordinates.isEnd()) {
+      holes.add(geomFactory.createLinearRing(coordinates.nextSequence(geomFactory, type)));
     }
+    coordinates.expect(CoordinateBuffer.END, type);
+    return geomFactory.createPolygon(shell, holes.toArray(new LinearRing[holes.size()]));
   }
 
   /**
-   * 把GSON的array对象转换成坐标序列数组
-   * @param coordinates
-   * @return
+   * 坐标缓冲区转成JTS MultiPolygon对象
    */
-  private Coordinate[] toCoordinates(JsonArray coordinates) {
-    int size = coordinates.size();
-    Coordinate[] coords = new Coordinate[size];
-    for (int i = 0; i < size; i++) {
-      JsonArray pts = coordinates.get(i).getAsJsonArray();
-      if (pts.size() > 2) {
-        coords[i] = new Coordinate(pts.get(0).getAsDouble(), pts.get(1).getAsDouble(), pts.get(2).getAsDouble());
-      } else {
-        coords[i] = new Coordinate(pts.get(0).getAsDouble(), pts.get(1).getAsDouble());
-      }
+  private MultiPolygon toMultiPolygon(CoordinateBuffer coordinates, String type) {
+    List<Polygon> polygons = new ArrayList<Polygon>();
+    coordinates.expect(CoordinateBuffer.BEGIN, type);
+    while (!coordinates.isEnd()) {
+      polygons.add(toPolygon(coordinates, type));
     }
-    return coords;
+    coordinates.expect(CoordinateBuffer.END, type);
+    return geomFactory.createMultiPolygon(polygons.toArray(new Polygon[polygons.size()]));
   }
 
   /**
@@ -334,7 +447,7 @@ public class GeometryAdapter implements JsonSerializer<Geometry>, JsonDeserializ
    * @return
    */
   private double formatOrdinate(double x) {
-    if (Math.abs(x) >= Math.pow(10, -3) && x < Math.pow(10, 7)) {
+    if (Math.abs(x) >= MIN_ROUNDING && x < MAX_ROUNDING) {
       x = Math.floor(x * scale + 0.5) / scale;
     }
     return x;
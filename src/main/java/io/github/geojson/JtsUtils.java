@@ -1,11 +1,11 @@
 package io.github.geojson;
 
 import io.github.geom.Geom;
+import io.github.geom.WKTParser;
 import org.locationtech.jts.geom.*;
 import org.locationtech.jts.io.ParseException;
 import org.locationtech.jts.io.WKBWriter;
-import org.locationtech.jts.io.WKTReader;
-import org.locationtech.jts.util.StringUtil;
+import org.locationtech.jts.io.WKTWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -15,8 +15,16 @@ import java.util.List;
 public class JtsUtils {
     private static final Logger log = LoggerFactory.getLogger(JtsUtils.class);
     private static GeometryFactory geomFactory = Geom.factory;
-    private static WKTReader reader = new WKTReader(geomFactory);
-    private static WKBWriter wkbWriter = new WKBWriter(2,true);;
+    /**
+     * 单遍扫描的WKT解析器，不保存状态，可以在多个线程中共用
+     */
+    private static final WKTParser reader = new WKTParser(geomFactory);
+    /**
+     * JTS的写出器不是线程安全的，每个线程各自持有一份，避免在并发调用时加锁
+     */
+    private static final ThreadLocal<WKTWriter> wktWriter = ThreadLocal.withInitial(WKTWriter::new);
+    private static final ThreadLocal<WKBWriter> wkbWriter = ThreadLocal.withInitial(() -> new WKBWriter(2, true));
+    private static final String SRID_PREFIX = "SRID=";
     private static final double R = 6378137.0;
 
     /**
@@ -42,15 +50,8 @@ public class JtsUtils {
      */
     public static Geometry ewkt2Geometry(String str) {
         try {
-            if(str.contains("SRID")){
-                String[] strs = StringUtil.split(str,";");
-                int srid = Integer.parseInt(StringUtil.split(strs[0],"=")[1]);
-                Geometry geometry = reader.read(strs[1]);
-                setSridRecurse(geometry, srid);
-                return geometry;
-            }else {
-                return reader.read(str);
-            }
+            // 解析器直接读取SRID=前缀，并把SRID设置到所有子对象上
+            return reader.read(str);
         } catch (ParseException e) {
             log.error("EWKT格式空间对象转换时出现异常：" + e);
             throw new RuntimeException(e);
@@ -63,7 +64,7 @@ public class JtsUtils {
     public static String wkt2HexEwkb(String str, int srid) {
         Geometry geometry = wkt2Geometry(str);
         setSridRecurse(geometry, srid);
-        String hexEwkb = WKBWriter.toHex(wkbWriter.write(geometry));
+        String hexEwkb = WKBWriter.toHex(wkbWriter.get().write(geometry));
         return hexEwkb;
     }
 
@@ -72,7 +73,7 @@ public class JtsUtils {
      */
     public static String ewkt2HexEwkb(String str) {
         Geometry geometry = ewkt2Geometry(str);
-        String hexEwkb = WKBWriter.toHex(wkbWriter.write(geometry));
+        String hexEwkb = WKBWriter.toHex(wkbWriter.get().write(geometry));
         return hexEwkb;
     }
 
@@ -83,7 +84,7 @@ public class JtsUtils {
      * @return
      */
     public static String geometry2Wkt(Geometry geometry) {
-        return geometry.toText();
+        return wktWriter.get().write(geometry);
     }
 
     /**
@@ -93,7 +94,7 @@ public class JtsUtils {
      * @return
      */
     public static String geometry2EWkt(Geometry geometry, int srid) {
-        return String.format("SRID=%d;%s", srid, geometry.toText());
+        return SRID_PREFIX + srid + ';' + wktWriter.get().write(geometry);
     }
 
     /**
@@ -104,7 +105,7 @@ public class JtsUtils {
      */
     public static String geometry2HexEWkb(Geometry geometry, int srid) {
         setSridRecurse(geometry, srid);
-        String hexEwkb = WKBWriter.toHex(wkbWriter.write(geometry));
+        String hexEwkb = WKBWriter.toHex(wkbWriter.get().write(geometry));
         return hexEwkb;
     }
 
@@ -159,7 +160,7 @@ public class JtsUtils {
     public static String bufferByWKT(String str, double distance) {
         Geometry geometry = wkt2Geometry(str);
         Geometry geo = buffer(geometry, distance);
-        return geo.toText();
+        return geometry2Wkt(geo);
     }
 
     /**
@@ -213,22 +214,7 @@ public class JtsUtils {
      * @Author EricLee 2010-9-14
      */
     public static String toSdoLine(LineString line, int srid) {
-        StringBuilder strBd = new StringBuilder("");
-        strBd.append("MDSYS.SDO_GEOMETRY(");
-        strBd.append("2002,");
-        strBd.append(srid == 0 ? 4326 : srid);
-        strBd.append(",NULL,MDSYS.SDO_ELEM_INFO_ARRAY(1,2,1),MDSYS.SDO_ORDINATE_ARRAY(");
-        Coordinate[] pts = line.getCoordinates();
-        for (int i = 0; i < pts.length; i++) {
-            strBd.append(pts[i].x);
-            strBd.append(",");
-            strBd.append(pts[i].y);
-            if (i != (pts.length - 1)) {
-                strBd.append(",");
-            }
-        }
-        strBd.append("))");
-        return strBd.toString();
+        return SdoWriter.toSdo(line, srid == 0 ? 4326 : srid);
     }
 
     /**
@@ -251,22 +237,18 @@ public class JtsUtils {
      * @Author EricLee 2010-9-14
      */
     public static String toSdoPolygon(Polygon polygon, int srid) {
-        StringBuilder strBd = new StringBuilder("");
-        strBd.append("MDSYS.SDO_GEOMETRY(");
-        strBd.append("2003,");
-        strBd.append(srid == 0 ? 4326 : srid);
-        strBd.append(",NULL,MDSYS.SDO_ELEM_INFO_ARRAY(1,1003,1),MDSYS.SDO_ORDINATE_ARRAY(");
-        Coordinate[] pts = polygon.getCoordinates();
-        for (int i = 0; i < pts.length; i++) {
-            strBd.append(pts[i].x);
-            strBd.append(",");
-            strBd.append(pts[i].y);
-            if (i != (pts.length - 1)) {
-                strBd.append(",");
-            }
-        }
-        strBd.append("))");
-        return strBd.toString();
+        return SdoWriter.toSdo(polygon, srid == 0 ? 4326 : srid);
+    }
+
+    /**
+     * 把任意类型的空间对象拼接成Oracle Spatial识别的Geo-Sql，包括多点、多线、多面、带洞的面和几何集合
+     *
+     * @param geometry 空间对象
+     * @param srid     坐标系
+     * @see SdoWriter
+     */
+    public static String toSdo(Geometry geometry, int srid) {
+        return SdoWriter.toSdo(geometry, srid == 0 ? 4326 : srid);
     }
 
     /**
@@ -293,7 +275,6 @@ public class JtsUtils {
         strBd.append(",");
         strBd.append(ymax);
         strBd.append("))");
-        strBd.append("))");
         return strBd.toString();
     }
 
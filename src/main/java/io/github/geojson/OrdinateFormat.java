@@ -0,0 +1,105 @@
+package io.github.geojson;
+
+/**
+ * 按固定的小数位数格式化坐标值。
+ * <p>
+ * 坐标值乘以10的precision次方后取整，整数部分和小数部分都用整数运算逐位写入字符缓冲区，
+ * 末尾的0被去掉（整数值不输出小数点），避免了 {@link Double#toString(double)} 的开销，输出也更短。
+ * 超出long精确表示范围的值退回到 {@link Double#toString(double)}。
+ * </p>
+ */
+final class OrdinateFormat {
+  static final int MAX_PRECISION = 15;
+  private static final long[] POW10 = new long[MAX_PRECISION + 1];
+  /**
+   * 2^53，超过该值的double不能保证精确转换为long
+   */
+  private static final double MAX_EXACT = 9007199254740992.0;
+
+  static {
+    POW10[0] = 1;
+    for (int i = 1; i < POW10.length; i++) {
+      POW10[i] = POW10[i - 1] * 10;
+    }
+  }
+
+  private final int precision;
+  private final double scale;
+
+  /**
+   * @param precision 保留的小数位数，0到15之间
+   */
+  OrdinateFormat(int precision) {
+    if (precision < 0 || precision > MAX_PRECISION) {
+      throw new IllegalArgumentException("precision must be between 0 and " + MAX_PRECISION + ": " + precision);
+    }
+    this.precision = precision;
+    this.scale = POW10[precision];
+  }
+
+  int getPrecision() {
+    return precision;
+  }
+
+  /**
+   * 格式化坐标值，NaN和无穷大返回null
+   */
+  String format(double value) {
+    if (Double.isNaN(value) || Double.isInfinite(value)) {
+      return null;
+    }
+    char[] buf = new char[32];
+    int len = format(value, buf, 0);
+    return new String(buf, 0, len);
+  }
+
+  /**
+   * 把坐标值写入字符缓冲区，缓冲区从offset开始至少需要32个字符的空间，返回写入的字符数
+   */
+  int format(double value, char[] buf, int offset) {
+    double scaled = value * scale;
+    if (!(Math.abs(scaled) < MAX_EXACT)) {
+      String str = Double.toString(value);
+      str.getChars(0, str.length(), buf, offset);
+      return str.length();
+    }
+    long units = Math.round(scaled);
+    int pos = offset;
+    if (units < 0) {
+      buf[pos++] = '-';
+      units = -units;
+    } else if (units == 0) {
+      buf[pos++] = '0';
+      return pos - offset;
+    }
+    long integer = units / POW10[precision];
+    long fraction = units - integer * POW10[precision];
+    pos = writeDigits(integer, 1, buf, pos);
+    if (fraction != 0) {
+      int digits = precision;
+      while (fraction % 10 == 0) {
+        fraction /= 10;
+        digits--;
+      }
+      buf[pos++] = '.';
+      pos = writeDigits(fraction, digits, buf, pos);
+    }
+    return pos - offset;
+  }
+
+  /**
+   * 写出非负整数，不足minDigits位时在前面补0
+   */
+  private static int writeDigits(long value, int minDigits, char[] buf, int pos) {
+    int digits = 1;
+    for (long v = value / 10; v != 0; v /= 10) {
+      digits++;
+    }
+    digits = Math.max(digits, minDigits);
+    for (int i = pos + digits - 1; i >= pos; i--) {
+      buf[i] = (char) ('0' + value % 10);
+      value /= 10;
+    }
+    return pos + digits;
+  }
+}
@@ -0,0 +1,280 @@
+package io.github.geojson;
+
+import com.google.gson.Gson;
+import io.github.geom.EWKBWriter;
+import org.locationtech.jts.geom.Geometry;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 按PostgreSQL {@code COPY ... FROM STDIN (FORMAT binary)} 的格式流式写出Feature，用于批量入库。
+ * <p>
+ * 每个Feature写为一行：第一列是EWKB格式的geometry，其余各列依次取properties中同名的值，
+ * 值的编码由列类型决定，必须与目标表的列类型一致。geometry为null或没有该属性时写为NULL。
+ * 与逐行执行INSERT并把geometry转为十六进制字符串相比，不需要解析SQL，也不需要十六进制编解码。
+ * </p>
+ * <pre>
+ * Map&lt;String, PgCopyWriter.Type&gt; columns = new LinkedHashMap&lt;&gt;();
+ * columns.put("name", PgCopyWriter.Type.TEXT);
+ * columns.put("population", PgCopyWriter.Type.INT8);
+ * try (PgCopyWriter writer = new PgCopyWriter(out, 4326, columns)) {
+ *   writer.writeAll(collection.getFeatures());
+ * }
+ * // COPY city (geom, name, population) FROM STDIN (FORMAT binary)
+ * String sql = PgCopyWriter.copyStatement("city", "geom", columns.keySet());
+ * </pre>
+ * 使用JDBC时可以把输出交给PostgreSQL驱动的 {@code CopyManager.copyIn(sql, in)}。关闭时写出结束标记。
+ */
+public class PgCopyWriter implements Closeable, Flushable {
+  private static final byte[] SIGNATURE = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0};
+  private static final byte JSONB_VERSION = 1;
+
+  /**
+   * 属性列的类型，对应PostgreSQL的二进制格式
+   */
+  public enum Type {
+    TEXT, INT4, INT8, FLOAT8, BOOL, JSON, JSONB
+  }
+
+  private final OutputStream out;
+  private final int srid;
+  private final String[] names;
+  private final Type[] types;
+  private final EWKBWriter ewkbWriter;
+  private final Gson gson;
+  /**
+   * 一行的缓冲区，网络字节序
+   */
+  private ByteBuffer row = ByteBuffer.allocate(1024);
+  private boolean started;
+  private boolean closed;
+
+  /**
+   * @param out 输出流
+   * @param srid 写入geometry的SRID，为0时不写SRID
+   * @param columns 属性名 -> 列类型，按目标表中列的顺序
+   */
+  public PgCopyWriter(OutputStream out, int srid, Map<String, Type> columns) {
+    this(out, srid, columns, new EWKBWriter(), GeoJSON.getGson());
+  }
+
+  /**
+   * @param out 输出流
+   * @param srid 写入geometry的SRID，为0时不写SRID
+   * @param columns 属性名 -> 列类型，按目标表中列的顺序
+   * @param ewkbWriter geometry的编码方式，例如需要写出z值时使用三维的EWKBWriter
+   * @param gson 写出JSON和JSONB列使用的Gson配置
+   */
+  public PgCopyWriter(OutputStream out, int srid, Map<String, Type> columns, EWKBWriter ewkbWriter, Gson gson) {
+    this.out = new BufferedOutputStream(out, 1 << 16);
+    this.srid = srid;
+    this.names = columns.keySet().toArray(new String[0]);
+    this.types = columns.values().toArray(new Type[0]);
+    this.ewkbWriter = ewkbWriter;
+    this.gson = gson;
+  }
+
+  /**
+   * 把FeatureCollection写为COPY二进制文件
+   */
+  public static void write(Path path, FeatureCollection collection, int srid, Map<String, Type> columns)
+      throws IOException {
+    try (PgCopyWriter writer = new PgCopyWriter(Files.newOutputStream(path), srid, columns)) {
+      if (collection.getFeatures() != null) {
+        writer.writeAll(collection.getFeatures());
+      }
+    }
+  }
+
+  /**
+   * 生成与写出的列对应的COPY语句，表名和列名原样拼接，需要时由调用方加引号
+   */
+  public static String copyStatement(String table, String geometryColumn, Iterable<String> columns) {
+    List<String> names = new ArrayList<String>();
+    names.add(geometryColumn);
+    for (String column : columns) {
+      names.add(column);
+    }
+    return "COPY " + table + " (" + String.join(", ", names) + ") FROM STDIN (FORMAT binary)";
+  }
+
+  /**
+   * 写出一个Feature
+   */
+  public void write(Feature feature) throws IOException {
+    if (closed) {
+      throw new IOException("PgCopyWriter is closed");
+    }
+    if (!started) {
+      started = true;
+      out.write(SIGNATURE);
+      // flags和头部扩展长度
+      writeInt(0);
+      writeInt(0);
+    }
+    row.clear();
+    ensure(2);
+    row.putShort((short) (1 + names.length));
+    Geometry geometry = feature.getGeometry();
+    if (geometry == null) {
+      ensure(4);
+      row.putInt(-1);
+    } else {
+      int size = ewkbWriter.size(geometry, srid);
+      ensure(4 + size);
+      row.putInt(size);
+      ewkbWriter.write(geometry, srid, row);
+    }
+    Map<String, Object> properties = feature.getProperties();
+    for (int i = 0; i < names.length; i++) {
+      writeValue(properties == null ? null : properties.get(names[i]), i);
+    }
+    out.write(row.array(), 0, row.position());
+  }
+
+  /**
+   * 依次写出所有Feature
+   */
+  public void writeAll(Iterable<Feature> features) throws IOException {
+    for (Feature feature : features) {
+      write(feature);
+    }
+  }
+
+  @Override public void flush() throws IOException {
+    out.flush();
+  }
+
+  /**
+   * 写出结束标记并关闭输出流，没有写出任何Feature时也输出完整的文件头
+   */
+  @Override public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    try {
+      if (!started) {
+        started = true;
+        out.write(SIGNATURE);
+        writeInt(0);
+        writeInt(0);
+      }
+      out.write(0xFF);
+      out.write(0xFF);
+      out.flush();
+    } finally {
+      closed = true;
+      out.close();
+    }
+  }
+
+  private void writeValue(Object value, int column) {
+    if (value == null) {
+      ensure(4);
+      row.putInt(-1);
+      return;
+    }
+    switch (types[column]) {
+      case INT4:
+        ensure(8);
+        row.putInt(4).putInt(Math.toIntExact(integral(value, column)));
+        break;
+      case INT8:
+        ensure(12);
+        row.putInt(8).putLong(integral(value, column));
+        break;
+      case FLOAT8:
+        ensure(12);
+        row.putInt(8).putDouble(number(value, column).doubleValue());
+        break;
+      case BOOL:
+        ensure(5);
+        row.putInt(1).put(bool(value, column) ? (byte) 1 : (byte) 0);
+        break;
+      case JSON:
+        writeText(gson.toJson(value), false);
+        break;
+      case JSONB:
+        writeText(gson.toJson(value), true);
+        break;
+      default:
+        writeText(value instanceof String ? (String) value : value instanceof Map || value instanceof List
+            ? gson.toJson(value) : value.toString(), false);
+    }
+  }
+
+  private void writeText(String text, boolean jsonb) {
+    byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+    int length = bytes.length + (jsonb ? 1 : 0);
+    ensure(4 + length);
+    row.putInt(length);
+    if (jsonb) {
+      row.put(JSONB_VERSION);
+    }
+    row.put(bytes);
+  }
+
+  private Number number(Object value, int column) {
+    if (value instanceof Number) {
+      return (Number) value;
+    }
+    if (value instanceof String) {
+      try {
+        return Double.valueOf((String) value);
+      } catch (NumberFormatException e) {
+        // 在下面统一报错
+      }
+    }
+    throw new IllegalArgumentException("Column " + names[column] + " expects a number but was: " + value);
+  }
+
+  /**
+   * 整数列接受整数值的Double，例如从GeoJSON中读出的数字
+   */
+  private long integral(Object value, int column) {
+    Number number = number(value, column);
+    if (number instanceof Double || number instanceof Float) {
+      double d = number.doubleValue();
+      if (d != Math.rint(d) || Double.isInfinite(d)) {
+        throw new IllegalArgumentException("Column " + names[column] + " expects an integer but was: " + value);
+      }
+    }
+    return number.longValue();
+  }
+
+  private boolean bool(Object value, int column) {
+    if (value instanceof Boolean) {
+      return (Boolean) value;
+    }
+    if ("true".equals(value) || "false".equals(value)) {
+      return "true".equals(value);
+    }
+    throw new IllegalArgumentException("Column " + names[column] + " expects a boolean but was: " + value);
+  }
+
+  private void writeInt(int value) throws IOException {
+    out.write(value >>> 24);
+    out.write(value >>> 16);
+    out.write(value >>> 8);
+    out.write(value);
+  }
+
+  private void ensure(int bytes) {
+    if (row.remaining() < bytes) {
+      ByteBuffer grown = ByteBuffer.allocate(Math.max(row.capacity() * 2, row.position() + bytes));
+      row.flip();
+      grown.put(row);
+      row = grown;
+    }
+  }
+}
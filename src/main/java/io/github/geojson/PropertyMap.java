@@ -0,0 +1,219 @@
+package io.github.geojson;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * 紧凑的Feature属性表。
+ * <p>
+ * 属性名到下标的映射由属性名相同的Feature共享（{@link PropertySchema}），每个Feature只保存一个值数组。
+ * 数值属性不装箱，保存在单独的double数组中，{@link #get(Object)} 时才转换为Double，
+ * 也可以通过 {@link #getDouble(String, double)} 直接读取。
+ * </p>
+ * 由 {@link GeoJSON#createCompactGson(boolean)} 创建的Gson在解析时生成。
+ */
+public final class PropertyMap extends AbstractMap<String, Object> {
+  /**
+   * 值数组中的占位对象，表示该属性的值保存在numbers中
+   */
+  private static final Object NUMBER = new Object();
+  private static final double[] NO_NUMBERS = new double[0];
+
+  private PropertySchema schema;
+  private Object[] values;
+  private double[] numbers = NO_NUMBERS;
+
+  PropertyMap(PropertySchema schema) {
+    this.schema = schema;
+    this.values = new Object[schema.size()];
+  }
+
+  PropertySchema getSchema() {
+    return schema;
+  }
+
+  @Override public int size() {
+    return schema.size();
+  }
+
+  @Override public boolean containsKey(Object key) {
+    return schema.indexOf(key) >= 0;
+  }
+
+  @Override public Object get(Object key) {
+    int index = schema.indexOf(key);
+    return index < 0 ? null : value(index);
+  }
+
+  /**
+   * 读取数值属性，属性不存在或不是数值时返回defaultValue
+   */
+  public double getDouble(String key, double defaultValue) {
+    int index = schema.indexOf(key);
+    if (index < 0) {
+      return defaultValue;
+    }
+    if (values[index] == NUMBER) {
+      return numbers[index];
+    }
+    return values[index] instanceof Number ? ((Number) values[index]).doubleValue() : defaultValue;
+  }
+
+  @Override public Object put(String key, Object value) {
+    int index = schema.indexOf(key);
+    if (index < 0) {
+      append(key);
+      index = schema.size() - 1;
+      set(index, value);
+      return null;
+    }
+    Object previous = value(index);
+    set(index, value);
+    return previous;
+  }
+
+  /**
+   * 设置数值属性，值不装箱
+   */
+  public void putDouble(String key, double value) {
+    int index = schema.indexOf(key);
+    if (index < 0) {
+      append(key);
+      index = schema.size() - 1;
+    }
+    setDouble(index, value);
+  }
+
+  @Override public Object remove(Object key) {
+    int index = schema.indexOf(key);
+    if (index < 0) {
+      return null;
+    }
+    Object previous = value(index);
+    removeAt(index);
+    return previous;
+  }
+
+  @Override public void clear() {
+    schema = schema.getRoot();
+    values = new Object[0];
+    numbers = NO_NUMBERS;
+  }
+
+  @Override public Set<Entry<String, Object>> entrySet() {
+    return new AbstractSet<Entry<String, Object>>() {
+      @Override public Iterator<Entry<String, Object>> iterator() {
+        return new EntryIterator();
+      }
+
+      @Override public int size() {
+        return schema.size();
+      }
+    };
+  }
+
+  Object value(int index) {
+    return values[index] == NUMBER ? Double.valueOf(numbers[index]) : values[index];
+  }
+
+  void set(int index, Object value) {
+    values[index] = value;
+  }
+
+  void setDouble(int index, double value) {
+    if (numbers.length < values.length) {
+      numbers = Arrays.copyOf(numbers, values.length);
+    }
+    values[index] = NUMBER;
+    numbers[index] = value;
+  }
+
+  /**
+   * 在末尾追加一个属性名，值为null
+   */
+  void append(String key) {
+    schema = schema.with(key);
+    if (values.length < schema.size()) {
+      values = Arrays.copyOf(values, Math.max(schema.size(), values.length * 2));
+    }
+  }
+
+  /**
+   * 删除一个属性，剩余的属性名从根结构重新转移，保证与相同属性名的其他Feature共享结构
+   */
+  private void removeAt(int index) {
+    PropertySchema old = schema;
+    Object[] oldValues = values;
+    double[] oldNumbers = numbers;
+    PropertySchema next = old.getRoot();
+    for (int i = 0; i < old.size(); i++) {
+      if (i != index) {
+        next = next.with(old.key(i));
+      }
+    }
+    schema = next;
+    values = new Object[next.size()];
+    numbers = oldNumbers.length == 0 ? NO_NUMBERS : new double[next.size()];
+    for (int i = 0, j = 0; i < old.size(); i++) {
+      if (i != index) {
+        values[j] = oldValues[i];
+        if (oldValues[i] == NUMBER) {
+          numbers[j] = oldNumbers[i];
+        }
+        j++;
+      }
+    }
+  }
+
+  /**
+   * 解析完成后去掉值数组多余的容量
+   */
+  void trim() {
+    if (values.length > schema.size()) {
+      values = Arrays.copyOf(values, schema.size());
+    }
+    if (numbers.length > schema.size()) {
+      numbers = Arrays.copyOf(numbers, schema.size());
+    }
+  }
+
+  private final class EntryIterator implements Iterator<Entry<String, Object>> {
+    private int next;
+    private int last = -1;
+
+    @Override public boolean hasNext() {
+      return next < schema.size();
+    }
+
+    @Override public Entry<String, Object> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      last = next++;
+      final int index = last;
+      final PropertySchema current = schema;
+      return new SimpleEntry<String, Object>(current.key(index), value(index)) {
+        @Override public Object setValue(Object value) {
+          if (schema != current) {
+            throw new IllegalStateException("Property map was modified");
+          }
+          set(index, value);
+          return super.setValue(value);
+        }
+      };
+    }
+
+    @Override public void remove() {
+      if (last < 0) {
+        throw new IllegalStateException();
+      }
+      removeAt(last);
+      next = last;
+      last = -1;
+    }
+  }
+}
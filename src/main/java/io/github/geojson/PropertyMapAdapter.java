@@ -0,0 +1,94 @@
+package io.github.geojson;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 把 {@code Map<String, Object>} 解析为 {@link PropertyMap}，同一个Gson解析出的属性表共享属性名结构。
+ * 嵌套的对象和数组仍由Gson默认的方式解析。
+ */
+final class PropertyMapAdapter extends TypeAdapter<Map<String, Object>> {
+  private static final Type PROPERTIES_TYPE = new TypeToken<Map<String, Object>>() {
+  }.getType();
+
+  private final TypeAdapter<Object> valueAdapter;
+  private final PropertySchema root = new PropertySchema();
+
+  private PropertyMapAdapter(TypeAdapter<Object> valueAdapter) {
+    this.valueAdapter = valueAdapter;
+  }
+
+  /**
+   * 只处理 {@code Map<String, Object>} 类型的TypeAdapterFactory
+   */
+  static TypeAdapterFactory factory() {
+    return new TypeAdapterFactory() {
+      @SuppressWarnings("unchecked")
+      @Override public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> typeToken) {
+        if (!PROPERTIES_TYPE.equals(typeToken.getType())) {
+          return null;
+        }
+        return (TypeAdapter<T>) new PropertyMapAdapter(gson.getAdapter(Object.class));
+      }
+    };
+  }
+
+  @Override public void write(JsonWriter out, Map<String, Object> properties) throws IOException {
+    if (properties == null) {
+      out.nullValue();
+      return;
+    }
+    out.beginObject();
+    for (Map.Entry<String, Object> entry : properties.entrySet()) {
+      out.name(entry.getKey());
+      valueAdapter.write(out, entry.getValue());
+    }
+    out.endObject();
+  }
+
+  @Override public Map<String, Object> read(JsonReader in) throws IOException {
+    return read(in, null);
+  }
+
+  /**
+   * @param propertyNames 需要读取的属性名，其余属性直接跳过，为null时读取全部属性
+   */
+  Map<String, Object> read(JsonReader in, Set<String> propertyNames) throws IOException {
+    if (in.peek() == JsonToken.NULL) {
+      in.nextNull();
+      return null;
+    }
+    PropertyMap properties = new PropertyMap(root);
+    in.beginObject();
+    while (in.hasNext()) {
+      String name = in.nextName();
+      if (propertyNames != null && !propertyNames.contains(name)) {
+        in.skipValue();
+        continue;
+      }
+      if (properties.containsKey(name)) {
+        throw new JsonSyntaxException("duplicate key: " + name);
+      }
+      properties.append(name);
+      int index = properties.size() - 1;
+      if (in.peek() == JsonToken.NUMBER) {
+        properties.setDouble(index, in.nextDouble());
+      } else {
+        properties.set(index, valueAdapter.read(in));
+      }
+    }
+    in.endObject();
+    properties.trim();
+    return properties;
+  }
+}
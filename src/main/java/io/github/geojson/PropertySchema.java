@@ -0,0 +1,107 @@
+package io.github.geojson;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link PropertyMap} 共享的属性名结构，保存属性名到下标的映射。
+ * <p>
+ * 从根结构开始，每追加一个属性名就转移到下一个结构，转移结果缓存在父结构中，
+ * 因此属性名及其顺序相同的Feature共用同一个结构对象，属性名字符串也只保存一份。
+ * 缓存的大小有两层限制：每个结构最多缓存 {@value #MAX_TRANSITIONS} 个转移，
+ * 同一个根结构下最多缓存 {@value #MAX_SCHEMAS} 个结构。超过限制后生成的结构不进入缓存，
+ * 由它继续转移得到的结构也不缓存，随使用它的PropertyMap一起回收。
+ * </p>
+ */
+final class PropertySchema {
+  /**
+   * 每个结构最多缓存的转移数，属性名不固定的数据不会使缓存无限增长
+   */
+  private static final int MAX_TRANSITIONS = 256;
+  /**
+   * 同一个根结构下最多缓存的结构数，属性名不断变化的数据流不会使整棵树无限增长
+   */
+  static final int MAX_SCHEMAS = 4096;
+
+  private final PropertySchema root;
+  private final String[] keys;
+  private final Map<String, Integer> indexes;
+  private final ConcurrentHashMap<String, PropertySchema> transitions = new ConcurrentHashMap<String, PropertySchema>();
+  /**
+   * 根结构下已缓存的结构数，只在根结构上使用
+   */
+  private final AtomicInteger cachedSchemas;
+  /**
+   * 是否在缓存中，不在缓存中的结构不再缓存自己的转移
+   */
+  private final boolean cached;
+
+  /**
+   * 创建一个不包含任何属性名的根结构
+   */
+  PropertySchema() {
+    this.root = this;
+    this.keys = new String[0];
+    this.indexes = new HashMap<String, Integer>();
+    this.cachedSchemas = new AtomicInteger();
+    this.cached = true;
+  }
+
+  private PropertySchema(PropertySchema parent, String key, boolean cached) {
+    this.root = parent.root;
+    this.cachedSchemas = null;
+    this.cached = cached;
+    this.keys = Arrays.copyOf(parent.keys, parent.keys.length + 1);
+    this.keys[parent.keys.length] = key;
+    this.indexes = new HashMap<String, Integer>(parent.indexes);
+    this.indexes.put(key, parent.keys.length);
+  }
+
+  PropertySchema getRoot() {
+    return root;
+  }
+
+  int size() {
+    return keys.length;
+  }
+
+  String key(int index) {
+    return keys[index];
+  }
+
+  /**
+   * 属性名的下标，不存在时返回-1
+   */
+  int indexOf(Object key) {
+    Integer index = indexes.get(key);
+    return index == null ? -1 : index;
+  }
+
+  /**
+   * 在末尾追加一个属性名后的结构，调用前需确认key不存在
+   */
+  PropertySchema with(String key) {
+    PropertySchema next = transitions.get(key);
+    if (next != null) {
+      return next;
+    }
+    if (!cached || transitions.size() >= MAX_TRANSITIONS) {
+      return new PropertySchema(this, key, false);
+    }
+    AtomicInteger count = root.cachedSchemas;
+    if (count.incrementAndGet() > MAX_SCHEMAS) {
+      count.decrementAndGet();
+      return new PropertySchema(this, key, false);
+    }
+    next = new PropertySchema(this, key, true);
+    PropertySchema previous = transitions.putIfAbsent(key, next);
+    if (previous != null) {
+      count.decrementAndGet();
+      return previous;
+    }
+    return next;
+  }
+}
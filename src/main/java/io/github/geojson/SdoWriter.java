@@ -0,0 +1,277 @@
+package io.github.geojson;
+
+import io.github.geom.Geom;
+import org.locationtech.jts.algorithm.Orientation;
+import org.locationtech.jts.geom.CoordinateSequence;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.geom.Point;
+import org.locationtech.jts.geom.Polygon;
+import java.io.IOException;
+
+/**
+ * 把JTS对象写为Oracle Spatial的 {@code MDSYS.SDO_GEOMETRY(...)} 构造表达式，用于生成批量入库的SQL脚本。
+ * <p>
+ * 支持所有几何类型：多点、多线、多面、带洞的面以及几何集合，SDO_ELEM_INFO_ARRAY按每个元素在坐标数组中的起始位置生成，
+ * 面的外环按逆时针、内环按顺时针写出（方向相反时倒序输出），空的子对象被跳过，空对象或null写为NULL。
+ * 坐标直接从CoordinateSequence中读取，不调用 {@link Geometry#getCoordinates()} 复制坐标，只写出x和y。
+ * </p>
+ * <pre>
+ * StringBuilder sql = new StringBuilder();
+ * SdoWriter writer = new SdoWriter(sql, 7);
+ * for (Feature feature : features) {
+ *   sql.append("INSERT INTO city (geom) VALUES (");
+ *   writer.write(feature.getGeometry(), 4326);
+ *   sql.append(");\n");
+ * }
+ * </pre>
+ * 目标是StringBuilder时直接写入，其他Appendable（例如Writer）先写入内部缓冲区，每个对象写完后整体追加一次。
+ * 注意Oracle的SQL语句中构造函数最多接受999个参数，坐标更多的对象需要通过PL/SQL或绑定变量写入。
+ * 实例不是线程安全的。
+ */
+public class SdoWriter {
+  private static final String NULL = "NULL";
+
+  private final Appendable out;
+  private final StringBuilder buffer;
+  /**
+   * 为null时按 {@link StringBuilder#append(double)} 输出完整精度
+   */
+  private final OrdinateFormat ordinateFormat;
+  private final char[] digits = new char[32];
+  private boolean firstValue;
+
+  /**
+   * 按完整精度写出坐标
+   *
+   * @param out 输出目标
+   */
+  public SdoWriter(Appendable out) {
+    this.out = out;
+    this.buffer = out instanceof StringBuilder ? (StringBuilder) out : new StringBuilder(256);
+    this.ordinateFormat = null;
+  }
+
+  /**
+   * 按固定的小数位数写出坐标，整数值不输出小数点，末尾的0也被去掉。
+   *
+   * @param out 输出目标
+   * @param precision 保留的小数位数，0到15之间，经纬度坐标一般取6或7
+   */
+  public SdoWriter(Appendable out, int precision) {
+    this.out = out;
+    this.buffer = out instanceof StringBuilder ? (StringBuilder) out : new StringBuilder(256);
+    this.ordinateFormat = new OrdinateFormat(precision);
+  }
+
+  /**
+   * 把空间对象转为SDO_GEOMETRY表达式
+   *
+   * @param geometry 空间对象
+   * @param srid 坐标系，不大于0时写为NULL
+   */
+  public static String toSdo(Geometry geometry, int srid) {
+    StringBuilder sb = new StringBuilder();
+    new SdoWriter(sb).append(sb, geometry, srid);
+    return sb.toString();
+  }
+
+  /**
+   * 写出一个空间对象
+   *
+   * @param geometry 空间对象，为null或空对象时写出NULL
+   * @param srid 坐标系，不大于0时写为NULL
+   */
+  public SdoWriter write(Geometry geometry, int srid) throws IOException {
+    append(buffer, geometry, srid);
+    flushBuffer();
+    return this;
+  }
+
+  /**
+   * 依次写出多个空间对象，对象之间写出分隔符
+   *
+   * @param geometries 空间对象
+   * @param srid 坐标系，不大于0时写为NULL
+   * @param separator 分隔符，例如 ",\n"
+   */
+  public SdoWriter writeAll(Iterable<? extends Geometry> geometries, int srid, CharSequence separator)
+      throws IOException {
+    boolean first = true;
+    for (Geometry geometry : geometries) {
+      if (!first) {
+        buffer.append(separator);
+      }
+      first = false;
+      append(buffer, geometry, srid);
+      flushBuffer();
+    }
+    return this;
+  }
+
+  private void flushBuffer() throws IOException {
+    if (buffer != out) {
+      out.append(buffer);
+      buffer.setLength(0);
+    }
+  }
+
+  private void append(StringBuilder sb, Geometry geometry, int srid) {
+    if (geometry == null || geometry.isEmpty()) {
+      sb.append(NULL);
+      return;
+    }
+    Geom.Type type = Geom.Type.from(geometry);
+    sb.append("MDSYS.SDO_GEOMETRY(").append(2000 + gtype(type)).append(',');
+    if (srid > 0) {
+      sb.append(srid);
+    } else {
+      sb.append(NULL);
+    }
+    if (type == Geom.Type.POINT) {
+      CoordinateSequence seq = ((Point) geometry).getCoordinateSequence();
+      sb.append(",MDSYS.SDO_POINT_TYPE(");
+      appendOrdinate(sb, seq.getX(0));
+      sb.append(',');
+      appendOrdinate(sb, seq.getY(0));
+      sb.append(",NULL),NULL,NULL)");
+      return;
+    }
+    sb.append(",NULL,MDSYS.SDO_ELEM_INFO_ARRAY(");
+    firstValue = true;
+    appendElemInfo(sb, geometry, 1);
+    sb.append("),MDSYS.SDO_ORDINATE_ARRAY(");
+    firstValue = true;
+    appendOrdinates(sb, geometry);
+    sb.append("))");
+  }
+
+  /**
+   * SDO_GTYPE的最后一位
+   */
+  private static int gtype(Geom.Type type) {
+    switch (type) {
+      case POINT:
+        return 1;
+      case LINESTRING:
+        return 2;
+      case POLYGON:
+        return 3;
+      case MULTIPOINT:
+        return 5;
+      case MULTILINESTRING:
+        return 6;
+      case MULTIPOLYGON:
+        return 7;
+      default:
+        return 4;
+    }
+  }
+
+  /**
+   * 写出元素描述三元组（起始位置,SDO_ETYPE,SDO_INTERPRETATION），返回下一个元素在坐标数组中的起始位置（从1开始）
+   */
+  private int appendElemInfo(StringBuilder sb, Geometry geometry, int offset) {
+    if (geometry.isEmpty()) {
+      return offset;
+    }
+    switch (Geom.Type.from(geometry)) {
+      case POINT:
+        appendTriplet(sb, offset, 1, 1);
+        return offset + 2;
+      case LINESTRING:
+        appendTriplet(sb, offset, 2, 1);
+        return offset + 2 * ((LineString) geometry).getNumPoints();
+      case POLYGON: {
+        Polygon polygon = (Polygon) geometry;
+        appendTriplet(sb, offset, 1003, 1);
+        offset += 2 * polygon.getExteriorRing().getNumPoints();
+        for (int i = 0; i < polygon.getNumInteriorRing(); i++) {
+          appendTriplet(sb, offset, 2003, 1);
+          offset += 2 * polygon.getInteriorRingN(i).getNumPoints();
+        }
+        return offset;
+      }
+      case MULTIPOINT: {
+        // 点簇：一个元素包含所有的点
+        int count = 0;
+        for (int i = 0; i < geometry.getNumGeometries(); i++) {
+          if (!geometry.getGeometryN(i).isEmpty()) {
+            count++;
+          }
+        }
+        appendTriplet(sb, offset, 1, count);
+        return offset + 2 * count;
+      }
+      default:
+        for (int i = 0; i < geometry.getNumGeometries(); i++) {
+          offset = appendElemInfo(sb, geometry.getGeometryN(i), offset);
+        }
+        return offset;
+    }
+  }
+
+  private void appendTriplet(StringBuilder sb, int offset, int etype, int interpretation) {
+    if (!firstValue) {
+      sb.append(',');
+    }
+    firstValue = false;
+    sb.append(offset).append(',').append(etype).append(',').append(interpretation);
+  }
+
+  private void appendOrdinates(StringBuilder sb, Geometry geometry) {
+    if (geometry.isEmpty()) {
+      return;
+    }
+    switch (Geom.Type.from(geometry)) {
+      case POINT:
+        appendSequence(sb, ((Point) geometry).getCoordinateSequence(), false);
+        break;
+      case LINESTRING:
+        appendSequence(sb, ((LineString) geometry).getCoordinateSequence(), false);
+        break;
+      case POLYGON: {
+        Polygon polygon = (Polygon) geometry;
+        appendRing(sb, polygon.getExteriorRing().getCoordinateSequence(), true);
+        for (int i = 0; i < polygon.getNumInteriorRing(); i++) {
+          appendRing(sb, polygon.getInteriorRingN(i).getCoordinateSequence(), false);
+        }
+        break;
+      }
+      default:
+        for (int i = 0; i < geometry.getNumGeometries(); i++) {
+          appendOrdinates(sb, geometry.getGeometryN(i));
+        }
+    }
+  }
+
+  /**
+   * Oracle要求外环逆时针、内环顺时针
+   */
+  private void appendRing(StringBuilder sb, CoordinateSequence ring, boolean shell) {
+    boolean reverse = ring.size() >= 4 && Orientation.isCCW(ring) != shell;
+    appendSequence(sb, ring, reverse);
+  }
+
+  private void appendSequence(StringBuilder sb, CoordinateSequence seq, boolean reverse) {
+    int size = seq.size();
+    for (int n = 0; n < size; n++) {
+      int i = reverse ? size - 1 - n : n;
+      if (!firstValue) {
+        sb.append(',');
+      }
+      firstValue = false;
+      appendOrdinate(sb, seq.getX(i));
+      sb.append(',');
+      appendOrdinate(sb, seq.getY(i));
+    }
+  }
+
+  private void appendOrdinate(StringBuilder sb, double value) {
+    if (ordinateFormat == null || Double.isNaN(value) || Double.isInfinite(value)) {
+      sb.append(value);
+    } else {
+      sb.append(digits, 0, ordinateFormat.format(value, digits, 0));
+    }
+  }
+}
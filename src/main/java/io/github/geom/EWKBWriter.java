@@ -0,0 +1,263 @@
+package io.github.geom;
+
+import org.locationtech.jts.geom.CoordinateSequence;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryCollection;
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.geom.MultiLineString;
+import org.locationtech.jts.geom.MultiPoint;
+import org.locationtech.jts.geom.MultiPolygon;
+import org.locationtech.jts.geom.Point;
+import org.locationtech.jts.geom.Polygon;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Writes geometries as PostGIS extended WKB into a {@link ByteBuffer}.
+ * <p>
+ * The size of the encoding is computed up front, so {@link #write(Geometry, int)} fills one reusable buffer without
+ * intermediate arrays, and {@link #write(Geometry, int, ByteBuffer)} can append directly to a caller's buffer such as
+ * a row of a binary COPY stream. The SRID is written on the outermost geometry only, as PostGIS does. Empty points
+ * are written with NaN ordinates.
+ * </p>
+ * Instances are not thread safe.
+ */
+public class EWKBWriter {
+
+  private static final int WKB_Z = 0x80000000;
+  private static final int WKB_SRID = 0x20000000;
+
+  private static final int POINT = 1;
+  private static final int LINESTRING = 2;
+  private static final int POLYGON = 3;
+  private static final int MULTIPOINT = 4;
+  private static final int MULTILINESTRING = 5;
+  private static final int MULTIPOLYGON = 6;
+  private static final int GEOMETRYCOLLECTION = 7;
+
+  private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+  private final int outputDimension;
+  private final ByteOrder byteOrder;
+  private ByteBuffer buffer = ByteBuffer.allocate(256);
+  /**
+   * dimension of the geometry being written, 2 or 3
+   */
+  private int dimension;
+
+  /**
+   * Creates a 2D, little endian (NDR) writer, the byte order PostGIS uses.
+   */
+  public EWKBWriter() {
+    this(2, ByteOrder.LITTLE_ENDIAN);
+  }
+
+  /**
+   * @param outputDimension 2, or 3 to write z values of geometries that have them.
+   * @param byteOrder The byte order of the encoding.
+   */
+  public EWKBWriter(int outputDimension, ByteOrder byteOrder) {
+    if (outputDimension != 2 && outputDimension != 3) {
+      throw new IllegalArgumentException("Output dimension must be 2 or 3: " + outputDimension);
+    }
+    this.outputDimension = outputDimension;
+    this.byteOrder = byteOrder;
+  }
+
+  /**
+   * Encodes a geometry using its own SRID.
+   */
+  public ByteBuffer write(Geometry g) {
+    return write(g, g.getSRID());
+  }
+
+  /**
+   * Encodes a geometry into the writer's reusable buffer.
+   *
+   * @param srid The SRID to write, or 0 to omit it.
+   * @return The buffer ready for reading, valid until the next call.
+   */
+  public ByteBuffer write(Geometry g, int srid) {
+    int size = size(g, srid);
+    if (buffer.capacity() < size) {
+      buffer = ByteBuffer.allocate(Math.max(size, buffer.capacity() * 2));
+    }
+    buffer.clear();
+    write(g, srid, buffer);
+    buffer.flip();
+    return buffer;
+  }
+
+  /**
+   * Appends the encoding of a geometry at the position of the target buffer. The byte order of the target is left
+   * unchanged.
+   *
+   * @param srid The SRID to write, or 0 to omit it.
+   * @throws BufferOverflowException If the target has less than {@link #size(Geometry, int)} bytes remaining.
+   */
+  public void write(Geometry g, int srid, ByteBuffer target) {
+    dimension = dimensionOf(g);
+    ByteOrder order = target.order();
+    target.order(byteOrder);
+    try {
+      writeGeometry(g, srid, target);
+    } finally {
+      target.order(order);
+    }
+  }
+
+  /**
+   * Returns the number of bytes of the encoding.
+   */
+  public int size(Geometry g, int srid) {
+    dimension = dimensionOf(g);
+    return sizeOf(g) + (srid > 0 ? 4 : 0);
+  }
+
+  /**
+   * Returns the encoding as an upper case hex string, as accepted by PostGIS.
+   */
+  public String toHex(Geometry g, int srid) {
+    ByteBuffer bytes = write(g, srid);
+    char[] chars = new char[bytes.remaining() * 2];
+    for (int i = 0; bytes.hasRemaining(); i += 2) {
+      int b = bytes.get() & 0xFF;
+      chars[i] = HEX[b >>> 4];
+      chars[i + 1] = HEX[b & 0xF];
+    }
+    return new String(chars);
+  }
+
+  private int dimensionOf(Geometry g) {
+    if (outputDimension == 3) {
+      CoordinateSequence seq = firstSequence(g);
+      if (seq != null && seq.hasZ()) {
+        return 3;
+      }
+    }
+    return 2;
+  }
+
+  private static CoordinateSequence firstSequence(Geometry g) {
+    if (g instanceof Point) {
+      return ((Point) g).getCoordinateSequence();
+    }
+    if (g instanceof LineString) {
+      return ((LineString) g).getCoordinateSequence();
+    }
+    if (g instanceof Polygon) {
+      return ((Polygon) g).getExteriorRing().getCoordinateSequence();
+    }
+    for (int i = 0; i < g.getNumGeometries(); i++) {
+      CoordinateSequence seq = firstSequence(g.getGeometryN(i));
+      if (seq != null) {
+        return seq;
+      }
+    }
+    return null;
+  }
+
+  private int sizeOf(Geometry g) {
+    int header = 1 + 4;
+    int coordinate = dimension * 8;
+    if (g instanceof Point) {
+      return header + coordinate;
+    }
+    if (g instanceof LineString) {
+      return header + 4 + ((LineString) g).getNumPoints() * coordinate;
+    }
+    if (g instanceof Polygon) {
+      Polygon polygon = (Polygon) g;
+      if (polygon.isEmpty()) {
+        return header + 4;
+      }
+      int size = header + 4 + 4 + polygon.getExteriorRing().getNumPoints() * coordinate;
+      for (int i = 0; i < polygon.getNumInteriorRing(); i++) {
+        size += 4 + polygon.getInteriorRingN(i).getNumPoints() * coordinate;
+      }
+      return size;
+    }
+    int size = header + 4;
+    for (int i = 0; i < g.getNumGeometries(); i++) {
+      size += sizeOf(g.getGeometryN(i));
+    }
+    return size;
+  }
+
+  private void writeGeometry(Geometry g, int srid, ByteBuffer out) {
+    int type = typeOf(g);
+    out.put(byteOrder == ByteOrder.LITTLE_ENDIAN ? (byte) 1 : (byte) 0);
+    if (dimension == 3) {
+      type |= WKB_Z;
+    }
+    if (srid > 0) {
+      out.putInt(type | WKB_SRID);
+      out.putInt(srid);
+    } else {
+      out.putInt(type);
+    }
+    if (g instanceof Point) {
+      CoordinateSequence seq = ((Point) g).getCoordinateSequence();
+      if (seq.size() == 0) {
+        for (int d = 0; d < dimension; d++) {
+          out.putDouble(Double.NaN);
+        }
+      } else {
+        writeCoordinates(seq, out, false);
+      }
+    } else if (g instanceof LineString) {
+      writeCoordinates(((LineString) g).getCoordinateSequence(), out, true);
+    } else if (g instanceof Polygon) {
+      Polygon polygon = (Polygon) g;
+      if (polygon.isEmpty()) {
+        out.putInt(0);
+        return;
+      }
+      out.putInt(1 + polygon.getNumInteriorRing());
+      writeCoordinates(polygon.getExteriorRing().getCoordinateSequence(), out, true);
+      for (int i = 0; i < polygon.getNumInteriorRing(); i++) {
+        writeCoordinates(polygon.getInteriorRingN(i).getCoordinateSequence(), out, true);
+      }
+    } else {
+      out.putInt(g.getNumGeometries());
+      for (int i = 0; i < g.getNumGeometries(); i++) {
+        writeGeometry(g.getGeometryN(i), 0, out);
+      }
+    }
+  }
+
+  private void writeCoordinates(CoordinateSequence seq, ByteBuffer out, boolean writeSize) {
+    int size = seq.size();
+    if (writeSize) {
+      out.putInt(size);
+    }
+    boolean hasZ = seq.hasZ();
+    for (int i = 0; i < size; i++) {
+      out.putDouble(seq.getX(i));
+      out.putDouble(seq.getY(i));
+      if (dimension == 3) {
+        out.putDouble(hasZ ? seq.getZ(i) : Double.NaN);
+      }
+    }
+  }
+
+  private static int typeOf(Geometry g) {
+    if (g instanceof Point) {
+      return POINT;
+    } else if (g instanceof LineString) {
+      return LINESTRING;
+    } else if (g instanceof Polygon) {
+      return POLYGON;
+    } else if (g instanceof MultiPoint) {
+      return MULTIPOINT;
+    } else if (g instanceof MultiLineString) {
+      return MULTILINESTRING;
+    } else if (g instanceof MultiPolygon) {
+      return MULTIPOLYGON;
+    } else if (g instanceof GeometryCollection) {
+      return GEOMETRYCOLLECTION;
+    }
+    throw new IllegalArgumentException("Unsupported geometry type: " + g.getGeometryType());
+  }
+}
@@ -0,0 +1,134 @@
+package io.github.geom;
+
+import java.math.BigInteger;
+
+/**
+ * Converts a decimal mantissa and exponent to the correctly rounded double without going through a String.
+ * <p>
+ * Small values use Clinger's fast path: when the mantissa and the power of ten are both exact doubles a single
+ * multiplication or division is correctly rounded. Other values use the Eisel-Lemire algorithm (as in the
+ * fast_float library), which multiplies the mantissa by a 128 bit approximation of the power of ten and only gives
+ * up when the truncated product is too close to a rounding boundary. Callers fall back to
+ * {@link Double#parseDouble} when {@link #toDouble} returns NaN.
+ * </p>
+ */
+final class FastDouble {
+
+  private static final int SMALLEST_POWER_OF_TEN = -342;
+  private static final int LARGEST_POWER_OF_TEN = 308;
+  private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+  /**
+   * exact powers of ten representable as double
+   */
+  private static final double[] POW10 = new double[23];
+
+  static {
+    POW10[0] = 1;
+    for (int i = 1; i < POW10.length; i++) {
+      POW10[i] = POW10[i - 1] * 10;
+    }
+  }
+
+  private FastDouble() {
+  }
+
+  /**
+   * Returns {@code mantissa * 10^exponent} correctly rounded, or NaN if it cannot be decided here.
+   *
+   * @param mantissa The decimal mantissa, not negative.
+   */
+  static double toDouble(long mantissa, int exponent) {
+    if (mantissa == 0) {
+      return 0;
+    }
+    if (mantissa < MAX_EXACT_MANTISSA && exponent >= -22 && exponent <= 22) {
+      return exponent >= 0 ? mantissa * POW10[exponent] : mantissa / POW10[-exponent];
+    }
+    if (exponent < SMALLEST_POWER_OF_TEN) {
+      return 0;
+    }
+    if (exponent > LARGEST_POWER_OF_TEN) {
+      return Double.POSITIVE_INFINITY;
+    }
+    int lz = Long.numberOfLeadingZeros(mantissa);
+    long w = mantissa << lz;
+    int index = 2 * (exponent - SMALLEST_POWER_OF_TEN);
+    long[] table = Powers.POWER_OF_FIVE_128;
+    long high = multiplyHighUnsigned(w, table[index]);
+    long low = w * table[index];
+    // 高位中决定舍入的9位全为1时，用第二个64位修正乘积
+    if ((high & 0x1FF) == 0x1FF) {
+      long secondHigh = multiplyHighUnsigned(w, table[index + 1]);
+      low += secondHigh;
+      if (Long.compareUnsigned(secondHigh, low) > 0) {
+        high++;
+      }
+    }
+    if (low == -1L && (exponent < -27 || exponent > 55)) {
+      return Double.NaN;
+    }
+    int upperBit = (int) (high >>> 63);
+    long m = high >>> (upperBit + 9);
+    int power2 = (((152170 + 65536) * exponent) >> 16) + 63 + upperBit - lz + 1023;
+    if (power2 <= 0) {
+      // 次正规数交给Double.parseDouble处理
+      return Double.NaN;
+    }
+    if (Long.compareUnsigned(low, 1) <= 0 && exponent >= -4 && exponent <= 23 && (m & 3) == 1
+        && (m << (upperBit + 9)) == high) {
+      m &= ~1L;
+    }
+    m += m & 1;
+    m >>>= 1;
+    if (m >= (2L << 52)) {
+      m = 1L << 52;
+      power2++;
+    }
+    m &= ~(1L << 52);
+    if (power2 >= 0x7FF) {
+      return Double.POSITIVE_INFINITY;
+    }
+    return Double.longBitsToDouble(m | (long) power2 << 52);
+  }
+
+  private static long multiplyHighUnsigned(long a, long b) {
+    return Math.multiplyHigh(a, b) + ((a >> 63) & b) + ((b >> 63) & a);
+  }
+
+  /**
+   * 128 bit approximations of 5^q for q in [-342, 308], high word first, generated the same way as the fast_float
+   * tables. Loaded on first use of the slow path.
+   */
+  private static final class Powers {
+    static final long[] POWER_OF_FIVE_128 = new long[2 * (LARGEST_POWER_OF_TEN - SMALLEST_POWER_OF_TEN + 1)];
+
+    static {
+      BigInteger two128 = BigInteger.ONE.shiftLeft(128);
+      BigInteger two127 = BigInteger.ONE.shiftLeft(127);
+      for (int q = SMALLEST_POWER_OF_TEN; q <= LARGEST_POWER_OF_TEN; q++) {
+        BigInteger c;
+        if (q < 0) {
+          BigInteger power5 = BigInteger.valueOf(5).pow(-q);
+          int z = power5.subtract(BigInteger.ONE).bitLength();
+          int b = q >= -27 ? z + 127 : 2 * z + 128;
+          c = BigInteger.ONE.shiftLeft(b).divide(power5).add(BigInteger.ONE);
+          while (c.compareTo(two128) >= 0) {
+            c = c.shiftRight(1);
+          }
+        } else {
+          c = BigInteger.valueOf(5).pow(q);
+          if (c.compareTo(two127) < 0) {
+            c = c.shiftLeft(127 - (c.bitLength() - 1));
+          }
+          if (c.compareTo(two128) >= 0) {
+            c = c.shiftRight(c.bitLength() - 128);
+          }
+        }
+        int index = 2 * (q - SMALLEST_POWER_OF_TEN);
+        POWER_OF_FIVE_128[index] = c.shiftRight(64).longValue();
+        POWER_OF_FIVE_128[index + 1] = c.longValue();
+      }
+    }
+  }
+}
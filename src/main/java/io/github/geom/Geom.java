@@ -16,15 +16,18 @@ package io.github.geom;
 
 import io.github.geojson.GeoJSON;
 import org.locationtech.jts.geom.*;
+import org.locationtech.jts.geom.impl.PackedCoordinateSequenceFactory;
 import org.locationtech.jts.geom.prep.PreparedGeometry;
 import org.locationtech.jts.geom.prep.PreparedGeometryFactory;
-import org.locationtech.jts.io.WKTReader;
+import org.locationtech.jts.io.WKBReader;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Geometry module utility module.
@@ -38,6 +41,18 @@ public class Geom {
    */
   public final static GeometryFactory factory = new GeometryFactory();
 
+  /**
+   * factory based on {@link #factory} whose geometries store coordinates packed in a double array
+   */
+  public final static GeometryFactory packedFactory = new GeometryFactory(factory.getPrecisionModel(),
+      factory.getSRID(), PackedCoordinateSequenceFactory.DOUBLE_FACTORY);
+
+  /**
+   * factory based on {@link #factory} whose geometries store coordinates packed in a float array
+   */
+  public final static GeometryFactory packedFloatFactory = new GeometryFactory(factory.getPrecisionModel(),
+      factory.getSRID(), PackedCoordinateSequenceFactory.FLOAT_FACTORY);
+
   /**
    * Geometry type enumeration.
    */
@@ -468,44 +483,173 @@ public class Geom {
     }
   }
 
-  static List<GeomParser> PARSERS = new ArrayList<GeomParser>();
+  /**
+   * Text encodings of geometries recognized by {@link #parse(String)}.
+   */
+  public enum Format {
+    /**
+     * GeoJSON geometry object, starts with <code>{</code>.
+     */
+    GEOJSON,
+    /**
+     * Well Known Text, starts with a letter.
+     */
+    WKT,
+    /**
+     * PostGIS extended WKT, starts with <code>SRID=</code>.
+     */
+    EWKT,
+    /**
+     * Hex encoded Well Known Binary, starts with the byte order <code>00</code> or <code>01</code>.
+     */
+    WKB,
+    /**
+     * Hex encoded PostGIS extended WKB, hex WKB whose type has the SRID flag set.
+     */
+    EWKB;
+
+    /**
+     * Detects the format from the first non blank characters of a string, without parsing it.
+     *
+     * @return The format, or <code>null</code> if the string does not look like any of the formats.
+     */
+    public static Format sniff(CharSequence str) {
+      if (str == null) {
+        return null;
+      }
+      int i = 0;
+      int n = str.length();
+      while (i < n && Character.isWhitespace(str.charAt(i))) {
+        i++;
+      }
+      if (i == n) {
+        return null;
+      }
+      char c = str.charAt(i);
+      if (c == '{') {
+        return GEOJSON;
+      }
+      if (c == '0' && i + 1 < n && (str.charAt(i + 1) == '0' || str.charAt(i + 1) == '1')) {
+        return sniffWkb(str, i, n);
+      }
+      if (regionMatchesIgnoreCase(str, i, "SRID=")) {
+        return EWKT;
+      }
+      if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z')) {
+        return WKT;
+      }
+      return null;
+    }
+
+    /**
+     * Reads the geometry type word following the byte order to tell WKB from EWKB.
+     */
+    private static Format sniffWkb(CharSequence str, int i, int n) {
+      if (i + 10 > n) {
+        return null;
+      }
+      int type = 0;
+      for (int b = 0; b < 4; b++) {
+        int hi = Character.digit(str.charAt(i + 2 + b * 2), 16);
+        int lo = Character.digit(str.charAt(i + 3 + b * 2), 16);
+        if (hi < 0 || lo < 0) {
+          return null;
+        }
+        int value = (hi << 4) | lo;
+        // byte order 01 is little endian
+        type |= str.charAt(i + 1) == '1' ? value << (8 * b) : value << (8 * (3 - b));
+      }
+      return (type & 0x20000000) != 0 ? EWKB : WKB;
+    }
+
+    private static boolean regionMatchesIgnoreCase(CharSequence str, int offset, String prefix) {
+      if (offset + prefix.length() > str.length()) {
+        return false;
+      }
+      for (int j = 0; j < prefix.length(); j++) {
+        if (Character.toUpperCase(str.charAt(offset + j)) != prefix.charAt(j)) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  /**
+   * Parses geometries of a single format.
+   */
+  public interface GeomParser {
+    Geometry parse(String str) throws Exception;
+  }
+
+  /**
+   * Parsers by format, replaced as a whole on registration so lookups need no locking.
+   */
+  static volatile Map<Format, GeomParser> PARSERS;
 
   static {
-    PARSERS.add(new GeomParser() {
+    Map<Format, GeomParser> parsers = new EnumMap<Format, GeomParser>(Format.class);
+    final WKTParser wkt = new WKTParser(factory);
+    GeomParser text = new GeomParser() {
       @Override
       public Geometry parse(String str) throws Exception {
-        return new WKTReader().read(str);
+        return wkt.read(str);
       }
-    });
-    PARSERS.add(new GeomParser() {
+    };
+    GeomParser binary = new GeomParser() {
+      @Override
+      public Geometry parse(String str) throws Exception {
+        return new WKBReader(factory).read(WKBReader.hexToBytes(str.trim()));
+      }
+    };
+    parsers.put(Format.WKT, text);
+    parsers.put(Format.EWKT, text);
+    parsers.put(Format.WKB, binary);
+    parsers.put(Format.EWKB, binary);
+    parsers.put(Format.GEOJSON, new GeomParser() {
       @Override
       public Geometry parse(String str) throws Exception {
         return GeoJSON.parse(str, Geometry.class);
       }
     });
+    PARSERS = parsers;
+  }
+
+  /**
+   * Registers the parser used for a format, replacing the built in one.
+   */
+  public static synchronized void register(Format format, GeomParser parser) {
+    Map<Format, GeomParser> parsers = new EnumMap<Format, GeomParser>(PARSERS);
+    parsers.put(format, parser);
+    PARSERS = parsers;
   }
 
   /**
-   * Parses the specified string into a geometry. <p> Currently the following geometry formats are supported. <ul>
-   * <li>Well Known Text</li> <li>GeoJSON</li> </ul> </p>
+   * Returns the format {@link #parse(String)} would parse the string as.
+   *
+   * @see Format#sniff(CharSequence)
+   */
+  public static Format format(String str) {
+    return Format.sniff(str);
+  }
+
+  /**
+   * Parses the specified string into a geometry. <p> The format is detected from the first non blank characters and
+   * the string is handed to the parser of that format only. Currently the following geometry formats are supported.
+   * <ul> <li>Well Known Text</li> <li>PostGIS EWKT</li> <li>Hex encoded WKB and EWKB</li> <li>GeoJSON</li> </ul> </p>
    *
    * @param str The geometry string.
    * @return The parsed geometry, or <code>null</code> if it could not be parsed in on of the formats listed above.
    */
   public static Geometry parse(String str) {
-    for (GeomParser p : PARSERS) {
-      try {
-        Geometry g = p.parse(str);
-        if (g != null) {
-          return g;
-        }
-      } catch (Exception e) {
-      }
+    Format format = Format.sniff(str);
+    if (format == null) {
+      return null;
+    }
+    try {
+      return PARSERS.get(format).parse(str);
+    } catch (Exception e) {
+      return null;
     }
-    return null;
-  }
-
-  interface GeomParser {
-    Geometry parse(String str) throws Exception;
   }
 }
@@ -0,0 +1,153 @@
+package io.github.geom;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.CoordinateSequence;
+import org.locationtech.jts.geom.CoordinateSequences;
+import org.locationtech.jts.geom.Envelope;
+import java.nio.DoubleBuffer;
+
+/**
+ * Coordinate sequence whose ordinates are stored in a segment of an {@link OffHeapCoordinateStore}.
+ * <p>
+ * Ordinates are packed per coordinate ({@code x, y[, z][, m]}) in a contiguous range of the segment. Copies are
+ * allocated in the same store.
+ * </p>
+ */
+public final class OffHeapCoordinateSequence implements CoordinateSequence {
+
+  private final OffHeapCoordinateStore store;
+  private final DoubleBuffer buffer;
+  private final int offset;
+  private final int size;
+  private final int dimension;
+  private final int measures;
+
+  OffHeapCoordinateSequence(OffHeapCoordinateStore store, DoubleBuffer buffer, int offset, int size, int dimension,
+      int measures) {
+    this.store = store;
+    this.buffer = buffer;
+    this.offset = offset;
+    this.size = size;
+    this.dimension = dimension;
+    this.measures = measures;
+  }
+
+  /**
+   * The store this sequence is allocated in.
+   */
+  public OffHeapCoordinateStore getStore() {
+    return store;
+  }
+
+  @Override
+  public int getDimension() {
+    return dimension;
+  }
+
+  @Override
+  public int getMeasures() {
+    return measures;
+  }
+
+  @Override
+  public Coordinate getCoordinate(int i) {
+    Coordinate coord = createCoordinate();
+    getCoordinate(i, coord);
+    return coord;
+  }
+
+  @Override
+  public Coordinate getCoordinateCopy(int i) {
+    return getCoordinate(i);
+  }
+
+  @Override
+  public void getCoordinate(int i, Coordinate coord) {
+    coord.setX(getX(i));
+    coord.setY(getY(i));
+    if (hasZ()) {
+      coord.setZ(getZ(i));
+    }
+    if (hasM()) {
+      coord.setM(getM(i));
+    }
+  }
+
+  @Override
+  public double getX(int i) {
+    return buffer.get(offset + i * dimension);
+  }
+
+  @Override
+  public double getY(int i) {
+    return buffer.get(offset + i * dimension + 1);
+  }
+
+  @Override
+  public double getZ(int i) {
+    return hasZ() ? buffer.get(offset + i * dimension + 2) : Double.NaN;
+  }
+
+  @Override
+  public double getM(int i) {
+    return hasM() ? buffer.get(offset + i * dimension + dimension - measures) : Double.NaN;
+  }
+
+  @Override
+  public double getOrdinate(int i, int ordinateIndex) {
+    if (ordinateIndex < 0 || ordinateIndex >= dimension) {
+      return Double.NaN;
+    }
+    return buffer.get(offset + i * dimension + ordinateIndex);
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public void setOrdinate(int i, int ordinateIndex, double value) {
+    if (ordinateIndex >= 0 && ordinateIndex < dimension) {
+      buffer.put(offset + i * dimension + ordinateIndex, value);
+    }
+  }
+
+  @Override
+  public Coordinate[] toCoordinateArray() {
+    Coordinate[] coords = new Coordinate[size];
+    for (int i = 0; i < size; i++) {
+      coords[i] = getCoordinate(i);
+    }
+    return coords;
+  }
+
+  @Override
+  public Envelope expandEnvelope(Envelope env) {
+    for (int i = 0; i < size; i++) {
+      int index = offset + i * dimension;
+      env.expandToInclude(buffer.get(index), buffer.get(index + 1));
+    }
+    return env;
+  }
+
+  @Override
+  @Deprecated
+  public Object clone() {
+    return copy();
+  }
+
+  @Override
+  public OffHeapCoordinateSequence copy() {
+    OffHeapCoordinateSequence copy = store.allocate(size, dimension, measures);
+    for (int i = 0; i < size * dimension; i++) {
+      copy.buffer.put(copy.offset + i, buffer.get(offset + i));
+    }
+    return copy;
+  }
+
+  @Override
+  public String toString() {
+    return CoordinateSequences.toString(this);
+  }
+}
@@ -0,0 +1,292 @@
+package io.github.geom;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.CoordinateSequence;
+import org.locationtech.jts.geom.CoordinateSequenceFactory;
+import org.locationtech.jts.geom.Coordinates;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.PrecisionModel;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Arena that keeps coordinate ordinates outside of the Java heap.
+ * <p>
+ * Ordinates are stored in fixed size segments that are either direct {@link ByteBuffer}s or regions of a memory
+ * mapped file. Geometries created through {@link #getGeometryFactory()} use {@link OffHeapCoordinateSequence}, so
+ * the heap only holds the small geometry and sequence objects while the vertices live off-heap, and the usual
+ * {@link Geom} / JTS operations work on them unchanged.
+ * </p>
+ * <p>
+ * The store is append-only: space is never reused, and new geometries produced by JTS operations through the
+ * factory are allocated in the store as well. {@link #close()} drops all segments at once, after which sequences
+ * created by the store must no longer be used. Direct segments count against {@code -XX:MaxDirectMemorySize} and
+ * are returned once the segment buffers become unreachable; mapped segments are backed by the file and paged by the
+ * operating system.
+ * </p>
+ * Allocation is thread safe; sequences may be read concurrently.
+ *
+ * <pre><code>
+ * try (OffHeapCoordinateStore store = OffHeapCoordinateStore.mapped(Paths.get("/data/roads.coords"))) {
+ *   GeometryFactory gf = store.getGeometryFactory();
+ *   Geometry road = gf.createGeometry(parsed);
+ *   ...
+ * }
+ * </code></pre>
+ */
+public class OffHeapCoordinateStore implements Closeable {
+
+  /**
+   * default segment size of direct stores, 64MB
+   */
+  public static final int DEFAULT_DIRECT_SEGMENT_SIZE = 1 << 26;
+
+  /**
+   * default segment size of mapped stores, 1GB
+   */
+  public static final int DEFAULT_MAPPED_SEGMENT_SIZE = 1 << 30;
+
+  private final int segmentOrdinates;
+  private final FileChannel channel;
+  private final Path file;
+  private final boolean deleteOnClose;
+  private final List<DoubleBuffer> segments = new ArrayList<DoubleBuffer>();
+  private final GeometryFactory geometryFactory;
+  private DoubleBuffer current;
+  private int position;
+  private long allocated;
+  private volatile boolean closed;
+
+  private OffHeapCoordinateStore(int segmentSize, FileChannel channel, Path file, boolean deleteOnClose,
+      PrecisionModel precisionModel, int srid) {
+    if (segmentSize < 64) {
+      throw new IllegalArgumentException("segment size must be at least 64 bytes: " + segmentSize);
+    }
+    this.segmentOrdinates = segmentSize / Double.BYTES;
+    this.channel = channel;
+    this.file = file;
+    this.deleteOnClose = deleteOnClose;
+    this.geometryFactory = new GeometryFactory(precisionModel, srid, new SequenceFactory());
+  }
+
+  /**
+   * Creates a store backed by direct byte buffers with the default segment size.
+   */
+  public static OffHeapCoordinateStore direct() {
+    return direct(DEFAULT_DIRECT_SEGMENT_SIZE);
+  }
+
+  /**
+   * Creates a store backed by direct byte buffers.
+   *
+   * @param segmentSize The size in bytes of each buffer, which bounds the size of a single sequence.
+   */
+  public static OffHeapCoordinateStore direct(int segmentSize) {
+    return new OffHeapCoordinateStore(segmentSize, null, null, false, Geom.factory.getPrecisionModel(),
+        Geom.factory.getSRID());
+  }
+
+  /**
+   * Creates a store backed by a memory mapped file with the default segment size. The file is created or
+   * truncated, and deleted when the store is closed.
+   */
+  public static OffHeapCoordinateStore mapped(Path file) throws IOException {
+    return mapped(file, DEFAULT_MAPPED_SEGMENT_SIZE, true);
+  }
+
+  /**
+   * Creates a store backed by a memory mapped file.
+   *
+   * @param file The file holding the ordinates, created or truncated.
+   * @param segmentSize The size in bytes of each mapped region, which bounds the size of a single sequence.
+   * @param deleteOnClose Whether to delete the file when the store is closed.
+   */
+  public static OffHeapCoordinateStore mapped(Path file, int segmentSize, boolean deleteOnClose) throws IOException {
+    FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    return new OffHeapCoordinateStore(segmentSize, channel, file, deleteOnClose, Geom.factory.getPrecisionModel(),
+        Geom.factory.getSRID());
+  }
+
+  /**
+   * The geometry factory whose coordinate sequences are allocated in this store.
+   */
+  public GeometryFactory getGeometryFactory() {
+    return geometryFactory;
+  }
+
+  /**
+   * The coordinate sequence factory allocating in this store.
+   */
+  public CoordinateSequenceFactory getCoordinateSequenceFactory() {
+    return geometryFactory.getCoordinateSequenceFactory();
+  }
+
+  /**
+   * Copies a geometry into the store.
+   */
+  public Geometry copy(Geometry g) {
+    return geometryFactory.createGeometry(g);
+  }
+
+  /**
+   * Number of bytes allocated for ordinates so far.
+   */
+  public long getAllocatedBytes() {
+    synchronized (segments) {
+      return allocated * Double.BYTES;
+    }
+  }
+
+  /**
+   * Releases all segments. Sequences allocated by the store must not be used afterwards.
+   */
+  @Override
+  public void close() throws IOException {
+    synchronized (segments) {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      segments.clear();
+      current = null;
+    }
+    if (channel != null) {
+      channel.close();
+      if (deleteOnClose) {
+        Files.deleteIfExists(file);
+      }
+    }
+  }
+
+  /**
+   * Allocates a sequence of the given size, the ordinates are zero.
+   */
+  OffHeapCoordinateSequence allocate(int size, int dimension, int measures) {
+    if (size < 0) {
+      throw new IllegalArgumentException("negative size: " + size);
+    }
+    long ordinates = (long) size * dimension;
+    if (ordinates > segmentOrdinates) {
+      throw new IllegalArgumentException(
+          "sequence of " + ordinates + " ordinates exceeds segment size of " + segmentOrdinates);
+    }
+    synchronized (segments) {
+      if (closed) {
+        throw new IllegalStateException("store is closed");
+      }
+      if (current == null || position + ordinates > segmentOrdinates) {
+        current = newSegment();
+        segments.add(current);
+        position = 0;
+      }
+      OffHeapCoordinateSequence seq = new OffHeapCoordinateSequence(this, current, position, size, dimension,
+          measures);
+      position += (int) ordinates;
+      allocated += ordinates;
+      return seq;
+    }
+  }
+
+  private DoubleBuffer newSegment() {
+    ByteBuffer buffer;
+    if (channel == null) {
+      buffer = ByteBuffer.allocateDirect(segmentOrdinates * Double.BYTES);
+    } else {
+      long start = (long) segments.size() * segmentOrdinates * Double.BYTES;
+      try {
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, start, (long) segmentOrdinates * Double.BYTES);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+    return buffer.order(ByteOrder.nativeOrder()).asDoubleBuffer();
+  }
+
+  /**
+   * Coordinate sequence factory allocating in the enclosing store. Sequences without z values are stored with two
+   * ordinates per coordinate even if the source reports three dimensions.
+   */
+  private final class SequenceFactory implements CoordinateSequenceFactory {
+
+    @Override
+    public CoordinateSequence create(Coordinate[] coordinates) {
+      if (coordinates == null) {
+        return allocate(0, 2, 0);
+      }
+      int dimension = 2;
+      int measures = 0;
+      for (Coordinate c : coordinates) {
+        int m = Coordinates.measures(c);
+        if (m > measures) {
+          measures = m;
+        }
+        if (Coordinates.dimension(c) - Coordinates.measures(c) > 2 && !Double.isNaN(c.getZ())) {
+          dimension = 3;
+        }
+      }
+      OffHeapCoordinateSequence seq = allocate(coordinates.length, dimension + measures, measures);
+      for (int i = 0; i < coordinates.length; i++) {
+        Coordinate c = coordinates[i];
+        seq.setOrdinate(i, CoordinateSequence.X, c.getX());
+        seq.setOrdinate(i, CoordinateSequence.Y, c.getY());
+        if (dimension == 3) {
+          seq.setOrdinate(i, CoordinateSequence.Z, c.getZ());
+        }
+        if (measures > 0) {
+          seq.setOrdinate(i, dimension, c.getM());
+        }
+      }
+      return seq;
+    }
+
+    @Override
+    public CoordinateSequence create(CoordinateSequence source) {
+      int measures = source.getMeasures();
+      int spatial = source.getDimension() - measures;
+      if (spatial > 2) {
+        boolean hasZ = false;
+        for (int i = 0; i < source.size() && !hasZ; i++) {
+          hasZ = !Double.isNaN(source.getOrdinate(i, CoordinateSequence.Z));
+        }
+        spatial = hasZ ? spatial : 2;
+      }
+      int dimension = spatial + measures;
+      OffHeapCoordinateSequence seq = allocate(source.size(), dimension, measures);
+      int sourceMeasureStart = source.getDimension() - measures;
+      for (int i = 0; i < source.size(); i++) {
+        for (int d = 0; d < spatial; d++) {
+          seq.setOrdinate(i, d, source.getOrdinate(i, d));
+        }
+        for (int m = 0; m < measures; m++) {
+          seq.setOrdinate(i, spatial + m, source.getOrdinate(i, sourceMeasureStart + m));
+        }
+      }
+      return seq;
+    }
+
+    @Override
+    public CoordinateSequence create(int size, int dimension) {
+      return create(size, dimension, 0);
+    }
+
+    @Override
+    public CoordinateSequence create(int size, int dimension, int measures) {
+      if (dimension - measures < 2) {
+        dimension = 2 + measures;
+      }
+      return allocate(size, dimension, measures);
+    }
+  }
+}
@@ -0,0 +1,525 @@
+package io.github.geom;
+
+import org.locationtech.jts.geom.CoordinateSequence;
+import org.locationtech.jts.geom.CoordinateSequenceFactory;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.geom.LinearRing;
+import org.locationtech.jts.geom.Point;
+import org.locationtech.jts.geom.Polygon;
+import org.locationtech.jts.geom.impl.PackedCoordinateSequence;
+import org.locationtech.jts.geom.impl.PackedCoordinateSequenceFactory;
+import org.locationtech.jts.io.ParseException;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Single pass WKT / EWKT parser.
+ * <p>
+ * Unlike {@link org.locationtech.jts.io.WKTReader} it does not tokenize the input: the text is scanned once, numbers
+ * are parsed in place and ordinates are collected into a reusable double array which becomes the coordinate
+ * sequence directly when the factory uses {@link PackedCoordinateSequenceFactory#DOUBLE_FACTORY}. Other factories
+ * get their sequences filled through {@link CoordinateSequence#setOrdinate}.
+ * </p>
+ * <p>
+ * Supported are all OGC geometry types plus LINEARRING, the {@code Z}, {@code M} and {@code ZM} dimension tags
+ * (separate or attached to the type name), {@code EMPTY}, MULTIPOINT members with or without parentheses, and an
+ * optional EWKT {@code SRID=n;} prefix which is applied to the geometry and all of its components. Keywords are
+ * case insensitive. Without a dimension tag the dimension is taken from the first coordinate.
+ * </p>
+ * The parser holds no mutable state and may be shared between threads.
+ */
+public class WKTParser {
+
+  private final GeometryFactory factory;
+  private final boolean packed;
+
+  /**
+   * Creates a parser producing geometries of {@link Geom#packedFactory}.
+   */
+  public WKTParser() {
+    this(Geom.packedFactory);
+  }
+
+  public WKTParser(GeometryFactory factory) {
+    this.factory = factory;
+    CoordinateSequenceFactory csf = factory.getCoordinateSequenceFactory();
+    this.packed = csf instanceof PackedCoordinateSequenceFactory
+        && ((PackedCoordinateSequenceFactory) csf).getType() == PackedCoordinateSequenceFactory.DOUBLE;
+  }
+
+  /**
+   * Parses WKT or EWKT text.
+   *
+   * @throws ParseException If the text is not valid WKT, with the offending position in the message.
+   */
+  public Geometry read(CharSequence wkt) throws ParseException {
+    return new Scanner(wkt, 0, wkt.length()).parse();
+  }
+
+  /**
+   * Parses WKT or EWKT text held in a range of a char array.
+   */
+  public Geometry read(char[] chars, int offset, int length) throws ParseException {
+    return read(CharBuffer.wrap(chars, offset, length));
+  }
+
+  private static final String[] TYPES = {
+      "GEOMETRYCOLLECTION", "MULTILINESTRING", "MULTIPOLYGON", "MULTIPOINT", "LINESTRING", "LINEARRING",
+      "POLYGON", "POINT"
+  };
+
+  /**
+   * State of one parse call.
+   */
+  private final class Scanner {
+    private final CharSequence s;
+    private int pos;
+    private final int end;
+    /**
+     * ordinates per coordinate, 0 while not yet known
+     */
+    private int dimension;
+    private int measures;
+    private double[] buf = new double[64];
+    private int count;
+
+    Scanner(CharSequence s, int start, int end) {
+      this.s = s;
+      this.pos = start;
+      this.end = end;
+    }
+
+    Geometry parse() throws ParseException {
+      skipWhitespace();
+      int srid = -1;
+      if (matchesIgnoreCase(pos, "SRID=")) {
+        pos += 5;
+        srid = readInt();
+        skipWhitespace();
+        expect(';');
+      }
+      Geometry g = geometry();
+      skipWhitespace();
+      if (pos < end) {
+        throw error("Unexpected text after geometry");
+      }
+      if (srid >= 0) {
+        setSrid(g, srid);
+      }
+      return g;
+    }
+
+    private Geometry geometry() throws ParseException {
+      skipWhitespace();
+      int start = pos;
+      while (pos < end && Character.isLetter(s.charAt(pos))) {
+        pos++;
+      }
+      String type = null;
+      for (String t : TYPES) {
+        if (pos - start >= t.length() && matchesIgnoreCase(start, t)) {
+          type = t;
+          break;
+        }
+      }
+      if (type == null) {
+        pos = start;
+        throw error("Unknown geometry type");
+      }
+      int tagStart = start + type.length();
+      if (tagStart == pos) {
+        // 类型名和维度标记之间可以有空格
+        skipWhitespace();
+        tagStart = pos;
+        while (pos < end && Character.isLetter(s.charAt(pos))) {
+          pos++;
+        }
+        if (pos > tagStart && matchesIgnoreCase(tagStart, "EMPTY") && pos - tagStart == 5) {
+          pos = tagStart;
+        }
+      }
+      dimensionTag(tagStart, pos);
+      if (readEmpty()) {
+        return empty(type);
+      }
+      switch (type) {
+        case "POINT": {
+          expect('(');
+          count = 0;
+          coordinate();
+          expect(')');
+          return factory.createPoint(sequence());
+        }
+        case "LINESTRING":
+          return factory.createLineString(coordinates());
+        case "LINEARRING":
+          return factory.createLinearRing(coordinates());
+        case "POLYGON":
+          return polygon();
+        case "MULTIPOINT": {
+          expect('(');
+          List<Point> points = new ArrayList<Point>();
+          do {
+            skipWhitespace();
+            if (readEmpty()) {
+              points.add(factory.createPoint());
+              continue;
+            }
+            boolean parenthesized = peek() == '(';
+            if (parenthesized) {
+              pos++;
+            }
+            count = 0;
+            coordinate();
+            if (parenthesized) {
+              expect(')');
+            }
+            points.add(factory.createPoint(sequence()));
+          } while (consume(','));
+          expect(')');
+          return factory.createMultiPoint(points.toArray(new Point[0]));
+        }
+        case "MULTILINESTRING": {
+          expect('(');
+          List<LineString> lines = new ArrayList<LineString>();
+          do {
+            lines.add(readEmpty() ? factory.createLineString() : factory.createLineString(coordinates()));
+          } while (consume(','));
+          expect(')');
+          return factory.createMultiLineString(lines.toArray(new LineString[0]));
+        }
+        case "MULTIPOLYGON": {
+          expect('(');
+          List<Polygon> polygons = new ArrayList<Polygon>();
+          do {
+            polygons.add(readEmpty() ? factory.createPolygon() : polygon());
+          } while (consume(','));
+          expect(')');
+          return factory.createMultiPolygon(polygons.toArray(new Polygon[0]));
+        }
+        default: {
+          expect('(');
+          List<Geometry> geometries = new ArrayList<Geometry>();
+          int outerDimension = dimension;
+          int outerMeasures = measures;
+          do {
+            geometries.add(geometry());
+            dimension = outerDimension;
+            measures = outerMeasures;
+          } while (consume(','));
+          expect(')');
+          return factory.createGeometryCollection(geometries.toArray(new Geometry[0]));
+        }
+      }
+    }
+
+    /**
+     * Applies a Z, M or ZM tag found in {@code [start, stop)}.
+     */
+    private void dimensionTag(int start, int stop) throws ParseException {
+      int length = stop - start;
+      if (length == 0) {
+        return;
+      }
+      if (length == 1 && matchesIgnoreCase(start, "Z")) {
+        dimension = 3;
+        measures = 0;
+      } else if (length == 1 && matchesIgnoreCase(start, "M")) {
+        dimension = 3;
+        measures = 1;
+      } else if (length == 2 && matchesIgnoreCase(start, "ZM")) {
+        dimension = 4;
+        measures = 1;
+      } else {
+        pos = start;
+        throw error("Unknown dimension tag");
+      }
+    }
+
+    private Geometry empty(String type) {
+      switch (type) {
+        case "POINT":
+          return factory.createPoint();
+        case "LINESTRING":
+          return factory.createLineString();
+        case "LINEARRING":
+          return factory.createLinearRing();
+        case "POLYGON":
+          return factory.createPolygon();
+        case "MULTIPOINT":
+          return factory.createMultiPoint();
+        case "MULTILINESTRING":
+          return factory.createMultiLineString();
+        case "MULTIPOLYGON":
+          return factory.createMultiPolygon();
+        default:
+          return factory.createGeometryCollection();
+      }
+    }
+
+    private Polygon polygon() throws ParseException {
+      expect('(');
+      LinearRing shell = readEmpty() ? factory.createLinearRing() : factory.createLinearRing(coordinates());
+      List<LinearRing> holes = new ArrayList<LinearRing>();
+      while (consume(',')) {
+        holes.add(readEmpty() ? factory.createLinearRing() : factory.createLinearRing(coordinates()));
+      }
+      expect(')');
+      return factory.createPolygon(shell, holes.toArray(new LinearRing[0]));
+    }
+
+    /**
+     * Reads a parenthesized coordinate list into a sequence.
+     */
+    private CoordinateSequence coordinates() throws ParseException {
+      expect('(');
+      count = 0;
+      do {
+        coordinate();
+      } while (consume(','));
+      expect(')');
+      return sequence();
+    }
+
+    /**
+     * Appends the ordinates of one coordinate to the buffer.
+     */
+    private void coordinate() throws ParseException {
+      int n = 0;
+      while (true) {
+        skipWhitespace();
+        char c = peek();
+        if (c == ',' || c == ')' || pos >= end) {
+          break;
+        }
+        if (dimension > 0 && n == dimension) {
+          throw error("Too many ordinates, expected " + dimension);
+        }
+        if (count == buf.length) {
+          buf = Arrays.copyOf(buf, buf.length * 2);
+        }
+        buf[count++] = readNumber();
+        n++;
+        if (dimension == 0 && n == 4) {
+          break;
+        }
+      }
+      if (dimension == 0) {
+        if (n < 2) {
+          throw error("Expected at least 2 ordinates");
+        }
+        dimension = n;
+        measures = n == 4 ? 1 : 0;
+      } else if (n != dimension) {
+        throw error("Expected " + dimension + " ordinates but found " + n);
+      }
+    }
+
+    /**
+     * Creates a sequence from the buffered ordinates.
+     */
+    private CoordinateSequence sequence() {
+      int dim = dimension == 0 ? 2 : dimension;
+      int size = count / dim;
+      if (packed) {
+        return new PackedCoordinateSequence.Double(Arrays.copyOf(buf, count), dim, measures);
+      }
+      CoordinateSequence seq = factory.getCoordinateSequenceFactory().create(size, dim, measures);
+      // 工厂可能返回维度不同的序列，只填充双方都有的纵坐标
+      int spatial = Math.min(dim - measures, seq.getDimension() - seq.getMeasures());
+      boolean copyM = measures > 0 && seq.getMeasures() > 0;
+      for (int i = 0; i < size; i++) {
+        for (int d = 0; d < spatial; d++) {
+          seq.setOrdinate(i, d, buf[i * dim + d]);
+        }
+        if (copyM) {
+          seq.setOrdinate(i, seq.getDimension() - seq.getMeasures(), buf[i * dim + dim - measures]);
+        }
+      }
+      return seq;
+    }
+
+    private boolean readEmpty() {
+      skipWhitespace();
+      if (matchesIgnoreCase(pos, "EMPTY")) {
+        int after = pos + 5;
+        if (after >= end || !Character.isLetter(s.charAt(after))) {
+          pos = after;
+          return true;
+        }
+      }
+      return false;
+    }
+
+    /**
+     * Parses a decimal number in place. Numbers with at most 18 significant digits are converted by
+     * {@link FastDouble}, longer ones and the rare undecidable cases fall back to {@link Double#parseDouble}.
+     */
+    private double readNumber() throws ParseException {
+      int start = pos;
+      boolean negative = false;
+      if (pos < end && (s.charAt(pos) == '-' || s.charAt(pos) == '+')) {
+        negative = s.charAt(pos) == '-';
+        pos++;
+      }
+      long mantissa = 0;
+      int digits = 0;
+      int exponent = 0;
+      boolean truncated = false;
+      boolean any = false;
+      char c;
+      while (pos < end && (c = s.charAt(pos)) >= '0' && c <= '9') {
+        if (digits < 18) {
+          mantissa = mantissa * 10 + (c - '0');
+          if (mantissa != 0) {
+            digits++;
+          }
+        } else {
+          exponent++;
+          truncated = true;
+        }
+        any = true;
+        pos++;
+      }
+      if (pos < end && s.charAt(pos) == '.') {
+        pos++;
+        while (pos < end && (c = s.charAt(pos)) >= '0' && c <= '9') {
+          if (digits < 18) {
+            mantissa = mantissa * 10 + (c - '0');
+            exponent--;
+            if (mantissa != 0) {
+              digits++;
+            }
+          } else {
+            truncated = true;
+          }
+          any = true;
+          pos++;
+        }
+      }
+      if (!any) {
+        if (matchesIgnoreCase(pos, "NAN")) {
+          pos += 3;
+          return Double.NaN;
+        }
+        pos = start;
+        throw error("Expected a number");
+      }
+      if (pos < end && (s.charAt(pos) == 'e' || s.charAt(pos) == 'E')) {
+        pos++;
+        boolean negativeExponent = false;
+        if (pos < end && (s.charAt(pos) == '-' || s.charAt(pos) == '+')) {
+          negativeExponent = s.charAt(pos) == '-';
+          pos++;
+        }
+        int e = 0;
+        boolean anyExponent = false;
+        while (pos < end && (c = s.charAt(pos)) >= '0' && c <= '9') {
+          if (e < 100000) {
+            e = e * 10 + (c - '0');
+          }
+          anyExponent = true;
+          pos++;
+        }
+        if (!anyExponent) {
+          throw error("Malformed exponent");
+        }
+        exponent += negativeExponent ? -e : e;
+      }
+      if (!truncated) {
+        double value = FastDouble.toDouble(mantissa, exponent);
+        if (!Double.isNaN(value)) {
+          return negative ? -value : value;
+        }
+      }
+      try {
+        return Double.parseDouble(s.subSequence(start, pos).toString());
+      } catch (NumberFormatException e) {
+        pos = start;
+        throw error("Malformed number");
+      }
+    }
+
+    private int readInt() throws ParseException {
+      int start = pos;
+      if (pos < end && s.charAt(pos) == '-') {
+        pos++;
+      }
+      long value = 0;
+      char c;
+      while (pos < end && (c = s.charAt(pos)) >= '0' && c <= '9' && value <= Integer.MAX_VALUE) {
+        value = value * 10 + (c - '0');
+        pos++;
+      }
+      if (pos == start || value > Integer.MAX_VALUE || (pos == start + 1 && s.charAt(start) == '-')) {
+        pos = start;
+        throw error("Expected an integer SRID");
+      }
+      return s.charAt(start) == '-' ? (int) -value : (int) value;
+    }
+
+    private void skipWhitespace() {
+      while (pos < end && Character.isWhitespace(s.charAt(pos))) {
+        pos++;
+      }
+    }
+
+    private char peek() {
+      return pos < end ? s.charAt(pos) : 0;
+    }
+
+    private boolean consume(char expected) {
+      skipWhitespace();
+      if (pos < end && s.charAt(pos) == expected) {
+        pos++;
+        return true;
+      }
+      return false;
+    }
+
+    private void expect(char expected) throws ParseException {
+      if (!consume(expected)) {
+        throw error("Expected '" + expected + "'");
+      }
+    }
+
+    private boolean matchesIgnoreCase(int at, String keyword) {
+      if (end - at < keyword.length()) {
+        return false;
+      }
+      for (int i = 0; i < keyword.length(); i++) {
+        if (Character.toUpperCase(s.charAt(at + i)) != keyword.charAt(i)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private ParseException error(String message) {
+      int from = Math.max(0, pos - 20);
+      int to = Math.min(end, pos + 20);
+      return new ParseException(message + " at position " + pos + ": ..." + s.subSequence(from, to) + "...");
+    }
+  }
+
+  private static void setSrid(Geometry g, int srid) {
+    g.setSRID(srid);
+    if (g instanceof Polygon) {
+      Polygon polygon = (Polygon) g;
+      polygon.getExteriorRing().setSRID(srid);
+      for (int i = 0; i < polygon.getNumInteriorRing(); i++) {
+        polygon.getInteriorRingN(i).setSRID(srid);
+      }
+    }
+    for (int i = 0; i < g.getNumGeometries(); i++) {
+      Geometry child = g.getGeometryN(i);
+      if (child != g) {
+        setSrid(child, srid);
+      }
+    }
+  }
+}
@@ -0,0 +1,114 @@
+package io.github.topojson;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonWriter;
+import io.github.geojson.Feature;
+import io.github.geojson.FeatureCollection;
+import io.github.geojson.GeoJSON;
+import org.locationtech.jts.geom.GeometryFactory;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * TopoJSON格式的读写。
+ * <p>
+ * 写出时相邻多边形的公共边只保存一次，坐标量化为整数并按差值编码，
+ * 对行政区划这类相邻面较多的数据，结果通常只有GeoJSON的几分之一。
+ * 读取时按弧段重新拼接出JTS几何对象，相邻多边形的公共边在量化精度内完全一致。
+ * </p>
+ * 几何对象只保留x和y，Feature的id和properties写在对应的几何对象上。
+ */
+public class TopoJSON {
+  /**
+   * 默认的量化级别，即每个方向上的网格数
+   */
+  public static final int DEFAULT_QUANTIZATION = 100000;
+  /**
+   * 只有一个对象时使用的对象名称
+   */
+  public static final String DEFAULT_OBJECT_NAME = "features";
+
+  /**
+   * 使用默认的量化级别把FeatureCollection编码为TopoJSON
+   */
+  public static String encode(FeatureCollection collection) {
+    return encode(collection, DEFAULT_QUANTIZATION);
+  }
+
+  /**
+   * 把FeatureCollection编码为TopoJSON
+   *
+   * @param quantization 量化级别，不小于2，越大精度越高
+   */
+  public static String encode(FeatureCollection collection, int quantization) {
+    StringWriter writer = new StringWriter();
+    try {
+      write(writer, Collections.singletonMap(DEFAULT_OBJECT_NAME, collection), quantization, GeoJSON.getGson());
+    } catch (IOException e) {
+      throw new JsonIOException(e);
+    }
+    return writer.toString();
+  }
+
+  /**
+   * 把多个FeatureCollection写为同一个拓扑中的多个对象，不同对象之间也共用弧段
+   *
+   * @param writer 输出
+   * @param objects 对象名称 -> FeatureCollection
+   * @param quantization 量化级别，不小于2
+   * @param gson 用于写出properties的Gson配置
+   */
+  public static void write(Writer writer, Map<String, FeatureCollection> objects, int quantization, Gson gson)
+      throws IOException {
+    if (quantization < 2) {
+      throw new IllegalArgumentException("quantization must be at least 2: " + quantization);
+    }
+    JsonWriter out = gson.newJsonWriter(writer);
+    new TopologyEncoder(objects, gson).write(out, quantization);
+    out.flush();
+  }
+
+  /**
+   * 解码TopoJSON，所有对象中的Feature按顺序合并到一个FeatureCollection中
+   */
+  public static FeatureCollection decode(String json) {
+    List<Feature> features = new ArrayList<Feature>();
+    for (FeatureCollection collection : read(new StringReader(json)).values()) {
+      features.addAll(collection.getFeatures());
+    }
+    return new FeatureCollection(features);
+  }
+
+  /**
+   * 读取TopoJSON，返回对象名称 -> FeatureCollection
+   */
+  public static Map<String, FeatureCollection> read(Reader reader) {
+    return read(reader, new GeometryFactory(), GeoJSON.getGson());
+  }
+
+  /**
+   * 读取TopoJSON，返回对象名称 -> FeatureCollection，顺序与objects中相同
+   *
+   * @param reader 输入
+   * @param factory 创建几何对象使用的工厂
+   * @param gson 用于解析properties的Gson配置
+   */
+  public static Map<String, FeatureCollection> read(Reader reader, GeometryFactory factory, Gson gson) {
+    JsonElement topology = JsonParser.parseReader(reader);
+    if (!topology.isJsonObject()) {
+      throw new JsonSyntaxException("Expected a Topology but was " + topology);
+    }
+    return new TopologyDecoder(factory, gson).decode(topology.getAsJsonObject());
+  }
+}
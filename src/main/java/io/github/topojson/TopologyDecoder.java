@@ -0,0 +1,279 @@
+package io.github.topojson;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.reflect.TypeToken;
+import io.github.geojson.Feature;
+import io.github.geojson.FeatureCollection;
+import org.locationtech.jts.geom.CoordinateSequence;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.geom.LinearRing;
+import org.locationtech.jts.geom.Point;
+import org.locationtech.jts.geom.Polygon;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 把TopoJSON拓扑还原为Feature。
+ * <p>
+ * 先按transform把差值编码的弧段还原为实际坐标，几何对象再按弧段引用拼接出线和环：
+ * 相邻弧段首尾共用一个点，拼接时跳过后一个弧段的第一个点，反向引用的弧段倒序拼接。
+ * </p>
+ */
+final class TopologyDecoder {
+  private static final Type PROPERTIES_TYPE = new TypeToken<Map<String, Object>>() {
+  }.getType();
+
+  private final GeometryFactory factory;
+  private final Gson gson;
+  private double scaleX = 1;
+  private double scaleY = 1;
+  private double translateX;
+  private double translateY;
+  private boolean transformed;
+  /**
+   * 还原后的弧段，x和y交替保存
+   */
+  private double[][] arcs;
+
+  TopologyDecoder(GeometryFactory factory, Gson gson) {
+    this.factory = factory;
+    this.gson = gson;
+  }
+
+  /**
+   * 按objects中的顺序返回每个对象对应的FeatureCollection
+   */
+  Map<String, FeatureCollection> decode(JsonObject topology) {
+    if (!"Topology".equals(string(topology, "type"))) {
+      throw new JsonSyntaxException("Expected a Topology but was " + topology.get("type"));
+    }
+    JsonElement transform = topology.get("transform");
+    if (transform != null && transform.isJsonObject()) {
+      JsonArray scale = transform.getAsJsonObject().getAsJsonArray("scale");
+      JsonArray translate = transform.getAsJsonObject().getAsJsonArray("translate");
+      scaleX = scale.get(0).getAsDouble();
+      scaleY = scale.get(1).getAsDouble();
+      translateX = translate.get(0).getAsDouble();
+      translateY = translate.get(1).getAsDouble();
+      transformed = true;
+    }
+    JsonArray arcArray = topology.has("arcs") ? topology.getAsJsonArray("arcs") : new JsonArray();
+    arcs = new double[arcArray.size()][];
+    for (int i = 0; i < arcs.length; i++) {
+      arcs[i] = decodeArc(arcArray.get(i).getAsJsonArray());
+    }
+    Map<String, FeatureCollection> result = new LinkedHashMap<String, FeatureCollection>();
+    JsonObject objects = topology.has("objects") ? topology.getAsJsonObject("objects") : new JsonObject();
+    for (Map.Entry<String, JsonElement> entry : objects.entrySet()) {
+      JsonObject object = entry.getValue().getAsJsonObject();
+      List<Feature> features = new ArrayList<Feature>();
+      if ("GeometryCollection".equals(string(object, "type"))) {
+        for (JsonElement geometry : object.getAsJsonArray("geometries")) {
+          features.add(feature(geometry.getAsJsonObject()));
+        }
+      } else {
+        features.add(feature(object));
+      }
+      result.put(entry.getKey(), new FeatureCollection(features));
+    }
+    return result;
+  }
+
+  private double[] decodeArc(JsonArray positions) {
+    double[] coordinates = new double[positions.size() * 2];
+    long x = 0;
+    long y = 0;
+    for (int i = 0; i < positions.size(); i++) {
+      JsonArray position = positions.get(i).getAsJsonArray();
+      if (transformed) {
+        x += position.get(0).getAsLong();
+        y += position.get(1).getAsLong();
+        coordinates[i * 2] = x * scaleX + translateX;
+        coordinates[i * 2 + 1] = y * scaleY + translateY;
+      } else {
+        coordinates[i * 2] = position.get(0).getAsDouble();
+        coordinates[i * 2 + 1] = position.get(1).getAsDouble();
+      }
+    }
+    return coordinates;
+  }
+
+  private Feature feature(JsonObject object) {
+    Feature feature = new Feature(geometry(object));
+    JsonElement id = object.get("id");
+    if (id != null && !id.isJsonNull()) {
+      feature.setId(id.getAsString());
+    }
+    JsonElement properties = object.get("properties");
+    if (properties != null && !properties.isJsonNull()) {
+      feature.setProperties(gson.<Map<String, Object>>fromJson(properties, PROPERTIES_TYPE));
+    }
+    return feature;
+  }
+
+  private Geometry geometry(JsonObject object) {
+    String type = string(object, "type");
+    if (type == null) {
+      return null;
+    }
+    switch (type) {
+      case "Point":
+        return point(object.getAsJsonArray("coordinates"));
+      case "MultiPoint": {
+        JsonArray coordinates = object.getAsJsonArray("coordinates");
+        Point[] points = new Point[coordinates.size()];
+        for (int i = 0; i < points.length; i++) {
+          points[i] = point(coordinates.get(i).getAsJsonArray());
+        }
+        return factory.createMultiPoint(points);
+      }
+      case "LineString":
+        return lineString(object.getAsJsonArray("arcs"));
+      case "MultiLineString": {
+        JsonArray arcArray = object.getAsJsonArray("arcs");
+        LineString[] lines = new LineString[arcArray.size()];
+        for (int i = 0; i < lines.length; i++) {
+          lines[i] = lineString(arcArray.get(i).getAsJsonArray());
+        }
+        return factory.createMultiLineString(lines);
+      }
+      case "Polygon":
+        return polygon(object.getAsJsonArray("arcs"));
+      case "MultiPolygon": {
+        JsonArray arcArray = object.getAsJsonArray("arcs");
+        Polygon[] polygons = new Polygon[arcArray.size()];
+        for (int i = 0; i < polygons.length; i++) {
+          polygons[i] = polygon(arcArray.get(i).getAsJsonArray());
+        }
+        return factory.createMultiPolygon(polygons);
+      }
+      case "GeometryCollection": {
+        JsonArray geometryArray = object.getAsJsonArray("geometries");
+        List<Geometry> geometries = new ArrayList<Geometry>();
+        for (JsonElement geometry : geometryArray) {
+          Geometry g = geometry(geometry.getAsJsonObject());
+          if (g != null) {
+            geometries.add(g);
+          }
+        }
+        return factory.createGeometryCollection(geometries.toArray(new Geometry[0]));
+      }
+      default:
+        throw new IllegalArgumentException("Unsupported GeoGeometry type: " + type);
+    }
+  }
+
+  private Point point(JsonArray position) {
+    if (position == null || position.size() < 2) {
+      return factory.createPoint();
+    }
+    CoordinateSequence seq = factory.getCoordinateSequenceFactory().create(1, 2);
+    if (transformed) {
+      seq.setOrdinate(0, 0, position.get(0).getAsLong() * scaleX + translateX);
+      seq.setOrdinate(0, 1, position.get(1).getAsLong() * scaleY + translateY);
+    } else {
+      seq.setOrdinate(0, 0, position.get(0).getAsDouble());
+      seq.setOrdinate(0, 1, position.get(1).getAsDouble());
+    }
+    return factory.createPoint(seq);
+  }
+
+  private LineString lineString(JsonArray refs) {
+    double[] coordinates = join(refs);
+    if (coordinates.length == 0) {
+      return factory.createLineString();
+    }
+    return factory.createLineString(sequence(coordinates, coordinates.length / 2));
+  }
+
+  /**
+   * 拼接多边形的环，外环退化时返回空多边形，退化的内环被忽略
+   */
+  private Polygon polygon(JsonArray rings) {
+    if (rings.size() == 0) {
+      return factory.createPolygon();
+    }
+    LinearRing shell = ring(rings.get(0).getAsJsonArray());
+    if (shell == null) {
+      return factory.createPolygon();
+    }
+    List<LinearRing> holes = new ArrayList<LinearRing>();
+    for (int i = 1; i < rings.size(); i++) {
+      LinearRing hole = ring(rings.get(i).getAsJsonArray());
+      if (hole != null) {
+        holes.add(hole);
+      }
+    }
+    return factory.createPolygon(shell, holes.toArray(new LinearRing[0]));
+  }
+
+  private LinearRing ring(JsonArray refs) {
+    double[] coordinates = join(refs);
+    int n = coordinates.length / 2;
+    if (n > 0 && (coordinates[0] != coordinates[n * 2 - 2] || coordinates[1] != coordinates[n * 2 - 1])) {
+      coordinates = Arrays.copyOf(coordinates, n * 2 + 2);
+      coordinates[n * 2] = coordinates[0];
+      coordinates[n * 2 + 1] = coordinates[1];
+      n++;
+    }
+    if (n < 4) {
+      return null;
+    }
+    return factory.createLinearRing(sequence(coordinates, n));
+  }
+
+  /**
+   * 按引用顺序拼接弧段，返回x和y交替保存的坐标
+   */
+  private double[] join(JsonArray refs) {
+    int size = 0;
+    for (JsonElement ref : refs) {
+      size += arc(ref.getAsInt()).length;
+    }
+    double[] coordinates = new double[size];
+    int n = 0;
+    for (JsonElement element : refs) {
+      int ref = element.getAsInt();
+      double[] arc = arc(ref);
+      int points = arc.length / 2;
+      for (int i = n == 0 ? 0 : 1; i < points; i++) {
+        int j = ref >= 0 ? i : points - 1 - i;
+        coordinates[n++] = arc[j * 2];
+        coordinates[n++] = arc[j * 2 + 1];
+      }
+    }
+    return Arrays.copyOf(coordinates, n);
+  }
+
+  private double[] arc(int ref) {
+    int index = ref >= 0 ? ref : ~ref;
+    if (index >= arcs.length) {
+      throw new JsonSyntaxException("Arc index out of range: " + ref);
+    }
+    return arcs[index];
+  }
+
+  private CoordinateSequence sequence(double[] coordinates, int size) {
+    CoordinateSequence seq = factory.getCoordinateSequenceFactory().create(size, 2);
+    for (int i = 0; i < size; i++) {
+      seq.setOrdinate(i, 0, coordinates[i * 2]);
+      seq.setOrdinate(i, 1, coordinates[i * 2 + 1]);
+    }
+    return seq;
+  }
+
+  private static String string(JsonObject object, String name) {
+    JsonElement element = object.get(name);
+    return element == null || element.isJsonNull() ? null : element.getAsString();
+  }
+}
@@ -0,0 +1,432 @@
+package io.github.topojson;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonWriter;
+import io.github.geojson.Feature;
+import io.github.geojson.FeatureCollection;
+import org.locationtech.jts.geom.CoordinateSequence;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryCollection;
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.geom.MultiLineString;
+import org.locationtech.jts.geom.MultiPoint;
+import org.locationtech.jts.geom.MultiPolygon;
+import org.locationtech.jts.geom.Point;
+import org.locationtech.jts.geom.Polygon;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 把若干组Feature编码为一个TopoJSON拓扑。
+ * <p>
+ * 所有坐标先按quantization量化为整数网格上的点，再在量化后的点上构建拓扑：
+ * 一个点在不同的线或环中前后相邻的点不同时即为连接点，线的端点也是连接点。线和环在连接点处切分为弧段，
+ * 正向或反向相同的弧段只保存一份，几何对象通过弧段序号引用（反向引用为 {@code ~index}）。
+ * 没有连接点的环旋转到最小的点开始，使相同的环得到相同的弧段。弧段按差值编码写出。
+ * </p>
+ * 几何对象按相同的顺序遍历三遍：收集线和环、切分弧段、写出对象，第i条线或环在各遍中对应同一个下标。
+ */
+final class TopologyEncoder {
+  private final Map<String, FeatureCollection> objects;
+  private final Gson gson;
+  private final TypeAdapter<Map<String, Object>> propertiesAdapter;
+  private final Envelope extent = new Envelope();
+  private double kx;
+  private double ky;
+
+  /**
+   * 量化后的线和环，环不包含闭合点。退化的环为null
+   */
+  private final List<long[]> lines = new ArrayList<long[]>();
+  private final List<Boolean> rings = new ArrayList<Boolean>();
+  /**
+   * 点 -> {前一个点, 后一个点, 是否为连接点}
+   */
+  private final Map<Long, long[]> neighbours = new HashMap<Long, long[]>();
+  private final List<long[]> arcs = new ArrayList<long[]>();
+  private final Map<ArcKey, Integer> arcIndexes = new HashMap<ArcKey, Integer>();
+  private final List<int[]> lineArcs = new ArrayList<int[]>();
+  private int cursor;
+
+  TopologyEncoder(Map<String, FeatureCollection> objects, Gson gson) {
+    this.objects = objects;
+    this.gson = gson;
+    this.propertiesAdapter = gson.getAdapter(new TypeToken<Map<String, Object>>() {
+    });
+  }
+
+  void write(JsonWriter out, int quantization) throws IOException {
+    for (FeatureCollection collection : objects.values()) {
+      for (Feature feature : features(collection)) {
+        if (feature.getGeometry() != null) {
+          extent.expandToInclude(feature.getGeometry().getEnvelopeInternal());
+        }
+      }
+    }
+    kx = extent.getWidth() > 0 ? (quantization - 1) / extent.getWidth() : 1;
+    ky = extent.getHeight() > 0 ? (quantization - 1) / extent.getHeight() : 1;
+    for (FeatureCollection collection : objects.values()) {
+      for (Feature feature : features(collection)) {
+        collect(feature.getGeometry());
+      }
+    }
+    for (int i = 0; i < lines.size(); i++) {
+      lineArcs.add(cut(lines.get(i), rings.get(i)));
+    }
+
+    out.beginObject();
+    out.name("type").value("Topology");
+    if (!extent.isNull()) {
+      out.name("bbox").beginArray().value(extent.getMinX()).value(extent.getMinY())
+          .value(extent.getMaxX()).value(extent.getMaxY()).endArray();
+      out.name("transform").beginObject();
+      out.name("scale").beginArray().value(1 / kx).value(1 / ky).endArray();
+      out.name("translate").beginArray().value(extent.getMinX()).value(extent.getMinY()).endArray();
+      out.endObject();
+    }
+    out.name("objects").beginObject();
+    cursor = 0;
+    for (Map.Entry<String, FeatureCollection> entry : objects.entrySet()) {
+      out.name(entry.getKey()).beginObject();
+      out.name("type").value("GeometryCollection");
+      out.name("geometries").beginArray();
+      for (Feature feature : features(entry.getValue())) {
+        writeFeature(out, feature);
+      }
+      out.endArray();
+      out.endObject();
+    }
+    out.endObject();
+    out.name("arcs").beginArray();
+    for (long[] arc : arcs) {
+      out.beginArray();
+      int lastX = 0;
+      int lastY = 0;
+      for (long point : arc) {
+        int x = x(point);
+        int y = y(point);
+        out.beginArray().value(x - lastX).value(y - lastY).endArray();
+        lastX = x;
+        lastY = y;
+      }
+      out.endArray();
+    }
+    out.endArray();
+    out.endObject();
+  }
+
+  private static List<Feature> features(FeatureCollection collection) {
+    return collection.getFeatures() == null ? new ArrayList<Feature>() : collection.getFeatures();
+  }
+
+  private long quantize(double x, double y) {
+    long qx = Math.round((x - extent.getMinX()) * kx);
+    long qy = Math.round((y - extent.getMinY()) * ky);
+    return (qx << 32) | (qy & 0xFFFFFFFFL);
+  }
+
+  private static int x(long point) {
+    return (int) (point >> 32);
+  }
+
+  private static int y(long point) {
+    return (int) point;
+  }
+
+  /**
+   * 第一遍：收集所有线和环，记录每个点的相邻点
+   */
+  private void collect(Geometry g) {
+    if (g == null || g instanceof Point || g instanceof MultiPoint) {
+      return;
+    }
+    if (g instanceof LineString) {
+      addLine(((LineString) g).getCoordinateSequence(), false);
+    } else if (g instanceof Polygon) {
+      Polygon polygon = (Polygon) g;
+      if (polygon.isEmpty()) {
+        return;
+      }
+      addLine(polygon.getExteriorRing().getCoordinateSequence(), true);
+      for (int i = 0; i < polygon.getNumInteriorRing(); i++) {
+        addLine(polygon.getInteriorRingN(i).getCoordinateSequence(), true);
+      }
+    } else {
+      for (int i = 0; i < g.getNumGeometries(); i++) {
+        collect(g.getGeometryN(i));
+      }
+    }
+  }
+
+  private void addLine(CoordinateSequence seq, boolean ring) {
+    long[] points = new long[seq.size()];
+    int n = 0;
+    for (int i = 0; i < seq.size(); i++) {
+      long point = quantize(seq.getX(i), seq.getY(i));
+      if (n == 0 || points[n - 1] != point) {
+        points[n++] = point;
+      }
+    }
+    if (ring) {
+      while (n > 1 && points[n - 1] == points[0]) {
+        n--;
+      }
+      if (n < 3) {
+        lines.add(null);
+        rings.add(true);
+        return;
+      }
+    } else if (n == 1) {
+      points[n++] = points[0];
+    }
+    points = Arrays.copyOf(points, n);
+    lines.add(points);
+    rings.add(ring);
+    if (n == 0) {
+      return;
+    }
+    if (ring) {
+      for (int i = 0; i < n; i++) {
+        neighbour(points[i], points[(i + n - 1) % n], points[(i + 1) % n]);
+      }
+    } else {
+      junction(points[0]);
+      junction(points[n - 1]);
+      for (int i = 1; i < n - 1; i++) {
+        neighbour(points[i], points[i - 1], points[i + 1]);
+      }
+    }
+  }
+
+  private void neighbour(long point, long previous, long next) {
+    long[] info = neighbours.get(point);
+    if (info == null) {
+      neighbours.put(point, new long[] {previous, next, 0});
+    } else if (info[2] == 0 && !(info[0] == previous && info[1] == next)
+        && !(info[0] == next && info[1] == previous)) {
+      info[2] = 1;
+    }
+  }
+
+  private void junction(long point) {
+    long[] info = neighbours.get(point);
+    if (info == null) {
+      neighbours.put(point, new long[] {0, 0, 1});
+    } else {
+      info[2] = 1;
+    }
+  }
+
+  private boolean isJunction(long point) {
+    long[] info = neighbours.get(point);
+    return info != null && info[2] != 0;
+  }
+
+  /**
+   * 第二遍：在连接点处把线或环切分为弧段，返回弧段引用
+   */
+  private int[] cut(long[] points, boolean ring) {
+    if (points == null) {
+      return null;
+    }
+    int n = points.length;
+    if (n == 0) {
+      return new int[0];
+    }
+    long[] line = points;
+    if (ring) {
+      int start = -1;
+      for (int i = 0; i < n; i++) {
+        if (isJunction(points[i])) {
+          start = i;
+          break;
+        }
+      }
+      if (start < 0) {
+        start = 0;
+        for (int i = 1; i < n; i++) {
+          if (points[i] < points[start]) {
+            start = i;
+          }
+        }
+      }
+      line = new long[n + 1];
+      for (int i = 0; i <= n; i++) {
+        line[i] = points[(start + i) % n];
+      }
+    }
+    int[] refs = new int[line.length];
+    int count = 0;
+    int from = 0;
+    for (int i = 1; i < line.length; i++) {
+      if (i == line.length - 1 || isJunction(line[i])) {
+        refs[count++] = arc(Arrays.copyOfRange(line, from, i + 1));
+        from = i;
+      }
+    }
+    return Arrays.copyOf(refs, count);
+  }
+
+  /**
+   * 查找或添加一个弧段，正向和反向的弧段保存为同一个，返回引用
+   */
+  private int arc(long[] points) {
+    long[] reversed = new long[points.length];
+    for (int i = 0; i < points.length; i++) {
+      reversed[i] = points[points.length - 1 - i];
+    }
+    boolean forward = compare(points, reversed) <= 0;
+    ArcKey key = new ArcKey(forward ? points : reversed);
+    Integer index = arcIndexes.get(key);
+    if (index == null) {
+      index = arcs.size();
+      arcs.add(key.points);
+      arcIndexes.put(key, index);
+    }
+    return forward ? index : ~index;
+  }
+
+  private static int compare(long[] a, long[] b) {
+    for (int i = 0; i < a.length; i++) {
+      if (a[i] != b[i]) {
+        return a[i] < b[i] ? -1 : 1;
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * 第三遍：写出Feature对应的几何对象
+   */
+  private void writeFeature(JsonWriter out, Feature feature) throws IOException {
+    out.beginObject();
+    writeGeometryMembers(out, feature.getGeometry());
+    if (feature.getId() != null) {
+      out.name("id").value(feature.getId());
+    }
+    if (feature.getProperties() != null) {
+      out.name("properties");
+      propertiesAdapter.write(out, feature.getProperties());
+    }
+    out.endObject();
+  }
+
+  private void writeGeometry(JsonWriter out, Geometry g) throws IOException {
+    out.beginObject();
+    writeGeometryMembers(out, g);
+    out.endObject();
+  }
+
+  private void writeGeometryMembers(JsonWriter out, Geometry g) throws IOException {
+    if (g == null) {
+      // TopoJSON允许type为null的几何对象
+      boolean serializeNulls = out.getSerializeNulls();
+      out.setSerializeNulls(true);
+      out.name("type").nullValue();
+      out.setSerializeNulls(serializeNulls);
+      return;
+    }
+    out.name("type").value(g.getGeometryType());
+    if (g instanceof Point) {
+      out.name("coordinates");
+      writePosition(out, (Point) g);
+    } else if (g instanceof MultiPoint) {
+      out.name("coordinates").beginArray();
+      for (int i = 0; i < g.getNumGeometries(); i++) {
+        writePosition(out, (Point) g.getGeometryN(i));
+      }
+      out.endArray();
+    } else if (g instanceof LineString) {
+      out.name("arcs");
+      writeRefs(out, lineArcs.get(cursor++));
+    } else if (g instanceof MultiLineString) {
+      out.name("arcs").beginArray();
+      for (int i = 0; i < g.getNumGeometries(); i++) {
+        writeRefs(out, lineArcs.get(cursor++));
+      }
+      out.endArray();
+    } else if (g instanceof Polygon) {
+      out.name("arcs");
+      writePolygon(out, (Polygon) g);
+    } else if (g instanceof MultiPolygon) {
+      out.name("arcs").beginArray();
+      for (int i = 0; i < g.getNumGeometries(); i++) {
+        writePolygon(out, (Polygon) g.getGeometryN(i));
+      }
+      out.endArray();
+    } else if (g instanceof GeometryCollection) {
+      out.name("geometries").beginArray();
+      for (int i = 0; i < g.getNumGeometries(); i++) {
+        writeGeometry(out, g.getGeometryN(i));
+      }
+      out.endArray();
+    } else {
+      throw new IllegalArgumentException("Unsupported GeoGeometry type: " + g.getGeometryType());
+    }
+  }
+
+  /**
+   * 写出多边形的环，退化的外环使整个多边形为空，退化的内环被忽略
+   */
+  private void writePolygon(JsonWriter out, Polygon polygon) throws IOException {
+    out.beginArray();
+    if (!polygon.isEmpty()) {
+      int[] shell = lineArcs.get(cursor++);
+      if (shell != null) {
+        writeRefs(out, shell);
+      }
+      for (int i = 0; i < polygon.getNumInteriorRing(); i++) {
+        int[] hole = lineArcs.get(cursor++);
+        if (shell != null && hole != null) {
+          writeRefs(out, hole);
+        }
+      }
+    }
+    out.endArray();
+  }
+
+  private void writePosition(JsonWriter out, Point point) throws IOException {
+    out.beginArray();
+    if (!point.isEmpty()) {
+      long q = quantize(point.getX(), point.getY());
+      out.value(x(q)).value(y(q));
+    }
+    out.endArray();
+  }
+
+  private static void writeRefs(JsonWriter out, int[] refs) throws IOException {
+    out.beginArray();
+    for (int ref : refs) {
+      out.value(ref);
+    }
+    out.endArray();
+  }
+
+  /**
+   * 以点序列的内容作为HashMap的键
+   */
+  private static final class ArcKey {
+    private final long[] points;
+    private final int hash;
+
+    ArcKey(long[] points) {
+      this.points = points;
+      this.hash = Arrays.hashCode(points);
+    }
+
+    @Override public int hashCode() {
+      return hash;
+    }
+
+    @Override public boolean equals(Object o) {
+      return o instanceof ArcKey && Arrays.equals(points, ((ArcKey) o).points);
+    }
+  }
+}
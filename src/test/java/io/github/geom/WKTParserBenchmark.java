@@ -0,0 +1,104 @@
+package io.github.geom;
+
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.io.ParseException;
+import org.locationtech.jts.io.WKTReader;
+import org.locationtech.jts.io.WKTWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Compares {@link WKTParser} with JTS {@link WKTReader} on generated WKT similar to what Oracle and PostGIS text
+ * columns return: points, polygons with holes and multipolygons with full precision ordinates.
+ * <p>
+ * Not part of the test suite, {@link WKTParserTest} checks that both parsers agree on the same inputs. Run with
+ * {@code mvn test-compile} and {@code java -cp target/test-classes:target/classes:... io.github.geom.WKTParserBenchmark
+ * [count] [rounds]}.
+ * </p>
+ */
+public class WKTParserBenchmark {
+
+  public static void main(String[] args) throws ParseException {
+    int count = args.length > 0 ? Integer.parseInt(args[0]) : 50000;
+    int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+    List<String> inputs = generate(count, new Random(42));
+    long chars = 0;
+    for (String input : inputs) {
+      chars += input.length();
+    }
+    System.out.printf(Locale.ROOT, "%d geometries, %.1f MB of WKT%n", count, chars / 1e6);
+
+    WKTReader jtsReader = new WKTReader(Geom.factory);
+    WKTParser parser = new WKTParser(Geom.factory);
+    WKTParser packedParser = new WKTParser(Geom.packedFactory);
+
+    for (int round = 1; round <= rounds; round++) {
+      double jts = run(inputs, s -> jtsReader.read(s));
+      double fast = run(inputs, s -> parser.read(s));
+      double packed = run(inputs, s -> packedParser.read(s));
+      System.out.printf(Locale.ROOT,
+          "round %d: WKTReader %,.0f/s, WKTParser %,.0f/s (%.1fx), WKTParser packed %,.0f/s (%.1fx)%n",
+          round, jts, fast, fast / jts, packed, packed / jts);
+    }
+  }
+
+  private interface Reader {
+    Geometry read(String wkt) throws ParseException;
+  }
+
+  /**
+   * Returns geometries parsed per second.
+   */
+  private static double run(List<String> inputs, Reader reader) throws ParseException {
+    long points = 0;
+    long start = System.nanoTime();
+    for (String input : inputs) {
+      points += reader.read(input).getNumPoints();
+    }
+    long elapsed = System.nanoTime() - start;
+    if (points == 0) {
+      throw new IllegalStateException();
+    }
+    return inputs.size() / (elapsed / 1e9);
+  }
+
+  /**
+   * Generates WKT of points, multipolygons and polygons with holes in a fixed mix, reproducible for a given seed.
+   */
+  static List<String> generate(int count, Random random) {
+    WKTWriter writer = new WKTWriter();
+    List<String> inputs = new ArrayList<String>(count);
+    for (int i = 0; i < count; i++) {
+      double x = 73 + random.nextDouble() * 62;
+      double y = 18 + random.nextDouble() * 35;
+      Geometry g;
+      switch (i % 4) {
+        case 0:
+          g = Geom.point(x, y);
+          break;
+        case 1:
+          g = ring(x, y, 0.01, 32, random).union(ring(x + 0.02, y, 0.01, 24, random));
+          break;
+        default:
+          g = ring(x, y, 0.05, 64, random).difference(ring(x, y, 0.01, 16, random));
+      }
+      inputs.add(writer.write(g));
+    }
+    return inputs;
+  }
+
+  private static Geometry ring(double x, double y, double radius, int sides, Random random) {
+    double[] ordinates = new double[(sides + 1) * 2];
+    for (int i = 0; i < sides; i++) {
+      double angle = 2 * Math.PI * i / sides;
+      double r = radius * (0.8 + random.nextDouble() * 0.4);
+      ordinates[i * 2] = x + Math.cos(angle) * r;
+      ordinates[i * 2 + 1] = y + Math.sin(angle) * r;
+    }
+    ordinates[sides * 2] = ordinates[0];
+    ordinates[sides * 2 + 1] = ordinates[1];
+    return Geom.polygon(ordinates);
+  }
+}
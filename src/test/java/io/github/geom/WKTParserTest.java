@@ -0,0 +1,25 @@
+package io.github.geom;
+
+import org.junit.Test;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.io.ParseException;
+import org.locationtech.jts.io.WKTReader;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertTrue;
+
+public class WKTParserTest {
+
+  @Test
+  public void agreesWithWKTReader() throws ParseException {
+    WKTReader expected = new WKTReader(Geom.factory);
+    WKTParser parser = new WKTParser(Geom.factory);
+    WKTParser packedParser = new WKTParser(Geom.packedFactory);
+    for (String input : WKTParserBenchmark.generate(2000, new Random(42))) {
+      Geometry g = expected.read(input);
+      assertTrue("WKTParser disagrees on " + input, g.equalsExact(parser.read(input)));
+      assertTrue("WKTParser packed disagrees on " + input, g.equalsExact(packedParser.read(input)));
+    }
+  }
+}